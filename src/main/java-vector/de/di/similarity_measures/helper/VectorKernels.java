@@ -0,0 +1,112 @@
+package de.di.similarity_measures.helper;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The SimilarityKernels on top of the Java Vector API, which the JIT compiles to SIMD instructions, e.g., eight int
+ * lanes per AVX2 register. This class is only built by the Maven profile "vector" and only loaded if the JVM runs with
+ * --add-modules jdk.incubator.vector; see SimilarityKernels.
+ */
+class VectorKernels extends SimilarityKernels {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    private static final int LANES = SPECIES.length();
+
+    // The rotations of a vector by 1, ..., LANES - 1 lanes, which compare every lane of one block with every lane of
+    // another
+    private static final VectorShuffle<Integer>[] ROTATIONS = rotations();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static VectorShuffle<Integer>[] rotations() {
+        VectorShuffle<Integer>[] rotations = new VectorShuffle[LANES];
+        for (int r = 1; r < LANES; r++)
+            rotations[r] = VectorShuffle.iota(SPECIES, r, 1, true);
+        return rotations;
+    }
+
+    @Override
+    public String getName() {
+        return "vector" + SPECIES.vectorBitSize();
+    }
+
+    @Override
+    public int countMatches(final int[] signature1, final int[] signature2, final int length, final int bitsPerHash) {
+        int mask = -1 >>> (Integer.SIZE - bitsPerHash);
+        int matches = 0;
+        int i = 0;
+        int upperBound = SPECIES.loopBound(length);
+        for (; i < upperBound; i += LANES) {
+            IntVector difference = IntVector.fromArray(SPECIES, signature1, i).lanewise(VectorOperators.XOR, IntVector.fromArray(SPECIES, signature2, i));
+            matches += difference.lanewise(VectorOperators.AND, mask).compare(VectorOperators.EQ, 0).trueCount();
+        }
+        for (; i < length; i++)
+            if (((signature1[i] ^ signature2[i]) & mask) == 0)
+                matches++;
+        return matches;
+    }
+
+    @Override
+    public int countShared(final int[] set1, final int[] set2, final int minShared) {
+        // Block-wise merge: every lane of a block of set1 is compared with every lane of a block of set2, and the block
+        // with the smaller last id is consumed, because none of its ids can occur in any later block of the other set
+        int shared = 0;
+        int i = 0, j = 0;
+        while (i + LANES <= set1.length && j + LANES <= set2.length) {
+            if (shared + Math.min(set1.length - i, set2.length - j) < minShared)
+                return -1;
+            IntVector block1 = IntVector.fromArray(SPECIES, set1, i);
+            IntVector block2 = IntVector.fromArray(SPECIES, set2, j);
+            VectorMask<Integer> matches = block1.compare(VectorOperators.EQ, block2);
+            for (int r = 1; r < LANES; r++)
+                matches = matches.or(block1.compare(VectorOperators.EQ, block2.rearrange(ROTATIONS[r])));
+            shared += matches.trueCount();
+
+            int last1 = set1[i + LANES - 1];
+            int last2 = set2[j + LANES - 1];
+            if (last1 <= last2)
+                i += LANES;
+            if (last2 <= last1)
+                j += LANES;
+        }
+        return ScalarKernels.countShared(set1, i, set2, j, shared, minShared);
+    }
+
+    @Override
+    public int levenshteinRow(final int[] query, final int length, final int label, final int[] parentRow, final int[] row) {
+        // With t[j] = min(parentRow[j] + 1, parentRow[j - 1] + cost[j]), the row is row[j] = min over i <= j of
+        // t[i] + (j - i), i.e., j plus the running minimum of t[i] - i, which is a prefix minimum over the lanes
+        IntVector maximum = IntVector.broadcast(SPECIES, Integer.MAX_VALUE);
+        IntVector iota = IntVector.zero(SPECIES).addIndex(1);
+        IntVector rowMinimum = IntVector.broadcast(SPECIES, row[0]);
+        int carry = row[0];
+        int j = 1;
+        int upperBound = 1 + SPECIES.loopBound(length);
+        for (; j < upperBound; j += LANES) {
+            IntVector cost = IntVector.zero(SPECIES).blend(1, IntVector.fromArray(SPECIES, query, j - 1).compare(VectorOperators.NE, label));
+            IntVector vertical = IntVector.fromArray(SPECIES, parentRow, j).add(1);
+            IntVector diagonal = IntVector.fromArray(SPECIES, parentRow, j - 1).add(cost);
+            IntVector positions = iota.add(j);
+            IntVector offsets = vertical.min(diagonal).sub(positions);
+            for (int shift = 1; shift < LANES; shift <<= 1)
+                offsets = offsets.min(maximum.slice(LANES - shift, offsets));
+            offsets = offsets.min(carry);
+            carry = offsets.lane(LANES - 1);
+            IntVector values = offsets.add(positions);
+            values.intoArray(row, j);
+            rowMinimum = rowMinimum.min(values);
+        }
+
+        int minimum = rowMinimum.reduceLanes(VectorOperators.MIN);
+        for (; j <= length; j++) {
+            int value = Math.min(Math.min(parentRow[j] + 1, row[j - 1] + 1), parentRow[j - 1] + (label == query[j - 1] ? 0 : 1));
+            row[j] = value;
+            minimum = Math.min(minimum, value);
+        }
+        return minimum;
+    }
+}
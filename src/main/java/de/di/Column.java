@@ -0,0 +1,144 @@
+package de.di;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Column is the dictionary-encoded representation of one attribute of a Relation. Every distinct value of the
+ * attribute is stored exactly once in the dictionary; the codes array holds, for each record, the position of the
+ * record's value in that dictionary. Codes are assigned in order of first occurrence, i.e., the value of record 0
+ * always receives code 0.
+ */
+@Getter
+@AllArgsConstructor
+public class Column {
+
+    // The dictionary code of each record's value; codes[record] is a valid index into the dictionary.
+    private final int[] codes;
+
+    // The distinct values of this column; the position of a value in this array is its dictionary code.
+    private final String[] dictionary;
+
+    /**
+     * Dictionary-encodes the provided column values.
+     * @param values The values of the column in record order; may contain null values.
+     * @return The dictionary-encoded column.
+     */
+    public static Column encode(final String[] values) {
+        Encoder encoder = new Encoder(values.length);
+        for (String value : values)
+            encoder.add(value);
+        return encoder.build();
+    }
+
+    /**
+     * Dictionary-encodes the values of one attribute of the provided records. Records that are too short to contain
+     * the attribute are treated as holding the empty string.
+     * @param records The records in row-major order.
+     * @param attribute The index of the attribute that should be encoded.
+     * @return The dictionary-encoded column.
+     */
+    public static Column encode(final String[][] records, final int attribute) {
+        String[] values = new String[records.length];
+        for (int i = 0; i < records.length; i++)
+            values[i] = attribute < records[i].length ? records[i][attribute] : "";
+        return encode(values);
+    }
+
+    /**
+     * Dictionary-encodes the given attributes in a single pass over the records of the provided source. Only the
+     * codes and the distinct values are kept in memory, not the records. Records that are too short to contain an
+     * attribute are treated as holding the empty string.
+     * @param source The source of the records; it is consumed, but not closed.
+     * @param attributes The indexes of the attributes that should be encoded.
+     * @return The dictionary-encoded columns in the order of the given attributes.
+     */
+    public static Column[] encode(final RecordSource source, final int... attributes) {
+        Encoder[] encoders = new Encoder[attributes.length];
+        for (int i = 0; i < attributes.length; i++)
+            encoders[i] = new Encoder(16);
+
+        String[][] batch;
+        while ((batch = source.nextBatch()) != null)
+            for (String[] record : batch)
+                for (int i = 0; i < attributes.length; i++)
+                    encoders[i].add(attributes[i] < record.length ? record[attributes[i]] : "");
+
+        Column[] columns = new Column[attributes.length];
+        for (int i = 0; i < attributes.length; i++)
+            columns[i] = encoders[i].build();
+        return columns;
+    }
+
+    /**
+     * Returns the number of records in this column.
+     * @return The number of records in this column.
+     */
+    public int size() {
+        return this.codes.length;
+    }
+
+    /**
+     * Returns the number of distinct values in this column.
+     * @return The number of distinct values in this column.
+     */
+    public int getNumDistinct() {
+        return this.dictionary.length;
+    }
+
+    /**
+     * Returns the value of the given record in this column.
+     * @param record The index of the record.
+     * @return The (shared) dictionary value of the record.
+     */
+    public String getValue(final int record) {
+        return this.dictionary[this.codes[record]];
+    }
+
+    /**
+     * Materializes this column as a plain value array in record order. The returned array is a fresh copy, but its
+     * elements are the shared dictionary instances.
+     * @return The values of this column in record order.
+     */
+    public String[] decode() {
+        String[] values = new String[this.codes.length];
+        for (int i = 0; i < this.codes.length; i++)
+            values[i] = this.dictionary[this.codes[i]];
+        return values;
+    }
+
+    /**
+     * Assigns codes to values in order of their first occurrence.
+     */
+    private static class Encoder {
+
+        private final Object2IntOpenHashMap<String> valueToCode = new Object2IntOpenHashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private final IntArrayList codes;
+
+        private Encoder(int expectedSize) {
+            this.valueToCode.defaultReturnValue(-1);
+            this.codes = new IntArrayList(expectedSize);
+        }
+
+        private void add(String value) {
+            int code = this.valueToCode.getInt(value);
+            if (code == -1) {
+                code = this.dictionary.size();
+                this.valueToCode.put(value, code);
+                this.dictionary.add(value);
+            }
+            this.codes.add(code);
+        }
+
+        private Column build() {
+            this.codes.trim();
+            return new Column(this.codes.elements(), this.dictionary.toArray(new String[0]));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package de.di;
+
+import com.opencsv.CSVParser;
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.enums.CSVReaderNullFieldIndicator;
+import com.opencsv.exceptions.CsvValidationException;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A CsvRecordSource streams the records of a CSV file with OpenCSV. It parses exactly as the file-based Relation
+ * constructors do, i.e., null fields in data records become empty strings and files without header receive the
+ * attribute labels "0", "1", ..., but it holds only the current batch of records in memory.
+ */
+public class CsvRecordSource implements RecordSource {
+
+    private final String name;
+    private final String[] attributes;
+    private final int batchSize;
+
+    private final CSVReader reader;
+
+    // The first record of a file without header, which had to be read to determine the number of attributes
+    private String[] pendingRecord;
+
+    public CsvRecordSource(Path filePath, boolean hasHeader, char separator, Charset charset) {
+        this(filePath, hasHeader, separator, charset, DEFAULT_BATCH_SIZE);
+    }
+
+    public CsvRecordSource(Path filePath, boolean hasHeader, char separator, Charset charset, int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("The batch size must be positive, but is " + batchSize);
+
+        this.name = Relation.nameOf(filePath);
+        this.batchSize = batchSize;
+
+        try {
+            this.reader = new CSVReaderBuilder(Files.newBufferedReader(filePath, charset)).withCSVParser(buildParser(separator)).build();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        // The caller gets no instance to close if the constructor fails, so the reader has to be closed here
+        try {
+            if (hasHeader) {
+                this.attributes = this.readRecord(false);
+            } else {
+                this.pendingRecord = this.readRecord(true);
+                this.attributes = this.pendingRecord == null ? null : Relation.defaultAttributes(this.pendingRecord.length);
+            }
+        } catch (RuntimeException | Error e) {
+            try {
+                this.reader.close();
+            } catch (IOException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw e;
+        }
+    }
+
+    static CSVParser buildParser(char separator) {
+        return new CSVParserBuilder()
+                .withSeparator(separator)
+                .withQuoteChar('"')
+                .withEscapeChar('\\')
+                .withStrictQuotes(false)
+                .withIgnoreLeadingWhiteSpace(false)
+                .withFieldAsNull(CSVReaderNullFieldIndicator.EMPTY_SEPARATORS)
+                .build();
+    }
+
+    private String[] readRecord(boolean replaceNulls) {
+        String[] record;
+        try {
+            record = this.reader.readNext();
+        } catch (CsvValidationException | IOException e) {
+            throw new RuntimeException(e);
+        }
+        if (record != null && replaceNulls)
+            for (int i = 0; i < record.length; i++)
+                if (record[i] == null)
+                    record[i] = "";
+        return record;
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public String[] getAttributes() {
+        return this.attributes;
+    }
+
+    @Override
+    public String[][] nextBatch() {
+        String[][] batch = new String[this.batchSize][];
+        int size = 0;
+        if (this.pendingRecord != null) {
+            batch[size++] = this.pendingRecord;
+            this.pendingRecord = null;
+        }
+
+        String[] record;
+        while (size < this.batchSize && (record = this.readRecord(true)) != null)
+            batch[size++] = record;
+
+        if (size == 0)
+            return null;
+        return size < this.batchSize ? Arrays.copyOf(batch, size) : batch;
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.reader.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
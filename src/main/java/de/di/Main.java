@@ -8,6 +8,7 @@ import de.di.data_profiling.INDProfiler;
 import de.di.data_profiling.UCCProfiler;
 import de.di.data_profiling.structures.IND;
 import de.di.data_profiling.structures.UCC;
+import de.di.duplicate_detection.LSHBlocking;
 import de.di.duplicate_detection.RecordComparator;
 import de.di.duplicate_detection.SortedNeighborhood;
 import de.di.duplicate_detection.TransitiveClosure;
@@ -84,28 +85,30 @@ public class Main {
                 case CommandUCCProfiler.COMMAND:
                     UCCProfiler uccProfiler = new UCCProfiler();
                     List<UCC> uccResult = new ArrayList<>();
-                    for (Relation relation : Relation.readAllRelationsIn(commandUCCProfiler.inputPath, commandUCCProfiler.hasHeader, commandUCCProfiler.separator.charAt(0), StandardCharsets.UTF_8))
+                    for (Relation relation : Relation.readAllRelationsIn(commandUCCProfiler.inputPath, commandUCCProfiler.hasHeader, commandUCCProfiler.separator.charAt(0), StandardCharsets.UTF_8, commandUCCProfiler.threads, pathOf(commandUCCProfiler.cacheDir), commandUCCProfiler.parallelFiles, commandUCCProfiler.memoryBudget * 1024 * 1024))
                         uccResult.addAll(uccProfiler.profile(relation));
                     uccResult.forEach(System.out::println);
                     break;
                 case CommandINDProfiler.COMMAND:
                     INDProfiler indProfiler = new INDProfiler();
-                    List<Relation> relations = Relation.readAllRelationsIn(commandINDProfiler.inputPath, commandINDProfiler.hasHeader, commandINDProfiler.separator.charAt(0), StandardCharsets.UTF_8);
+                    List<Relation> relations = Relation.readAllRelationsIn(commandINDProfiler.inputPath, commandINDProfiler.hasHeader, commandINDProfiler.separator.charAt(0), StandardCharsets.UTF_8, commandINDProfiler.threads, pathOf(commandINDProfiler.cacheDir), commandINDProfiler.parallelFiles, commandINDProfiler.memoryBudget * 1024 * 1024);
                     List<IND> indResult = indProfiler.profile(relations, commandINDProfiler.discoverNary);
                     indResult.forEach(System.out::println);
                     break;
                 case CommandFirstLineSchemaMatcher.COMMAND:
-                    runMatchingFor(commandFirstLineSchemaMatcher.scenarioPath, false);
+                    runMatchingFor(commandFirstLineSchemaMatcher.scenarioPath, false, commandFirstLineSchemaMatcher.threads, pathOf(commandFirstLineSchemaMatcher.cacheDir));
                     break;
                 case CommandSecondLineSchemaMatcher.COMMAND:
-                    runMatchingFor(commandSecondLineSchemaMatcher.scenarioPath, true);
+                    runMatchingFor(commandSecondLineSchemaMatcher.scenarioPath, true, commandSecondLineSchemaMatcher.threads, pathOf(commandSecondLineSchemaMatcher.cacheDir));
                     break;
                 case CommandDuplicateDetection.COMMAND:
-                    Relation relation = new Relation(commandDuplicateDetection.scenarioPath, commandDuplicateDetection.hasHeader, commandDuplicateDetection.separator.charAt(0), StandardCharsets.ISO_8859_1);
+                    Relation relation = Relation.readCached(Path.of(commandDuplicateDetection.scenarioPath), commandDuplicateDetection.hasHeader, commandDuplicateDetection.separator.charAt(0), StandardCharsets.ISO_8859_1, commandDuplicateDetection.threads, pathOf(commandDuplicateDetection.cacheDir));
                     RecordComparator recordComparator = SortedNeighborhood.suggestRecordComparatorFor(relation);
                     SortedNeighborhood sortedNeighborhood = new SortedNeighborhood();
                     int[] sortingKeys = Arrays.stream(commandDuplicateDetection.sortingKeys.split(",")).mapToInt(Integer::parseInt).toArray();
-                    Set<Duplicate> duplicates = sortedNeighborhood.detectDuplicates(relation, sortingKeys, commandDuplicateDetection.windowSize, recordComparator);
+                    Set<Duplicate> duplicates = commandDuplicateDetection.blockingThreshold > 0 ?
+                            new LSHBlocking(new Tokenizer(commandDuplicateDetection.blockingTokenSize, true), commandDuplicateDetection.blockingNumHashFunctions, commandDuplicateDetection.blockingThreshold).detectDuplicates(relation, sortingKeys, recordComparator) :
+                            sortedNeighborhood.detectDuplicates(relation, sortingKeys, commandDuplicateDetection.windowSize, recordComparator);
                     TransitiveClosure transitiveClosure = new TransitiveClosure();
                     duplicates = transitiveClosure.calculate(duplicates);
                     duplicates.forEach(System.out::println);
@@ -179,8 +182,8 @@ public class Main {
         @Parameter(names = {"--usePadding"}, description = "Specification of whether or not padding should be used", required = false, arity = 1)
         boolean usePadding = false;
 
-        @Parameter(names = {"--numHashFunctions"}, description = "Specification of the number of minHash functions to be used; must be smaller or equal to the tokenSize", required = false, arity = 1)
-        int numHashFunctions = 2;
+        @Parameter(names = {"--numHashFunctions"}, description = "Specification of the number of minHash functions to be used; more functions give more stable estimates", required = false, arity = 1)
+        int numHashFunctions = 128;
     }
 
     @Parameters(commandDescription = "Execute the UCCProfiler data profiling algorithm.")
@@ -196,6 +199,18 @@ public class Main {
 
         @Parameter(names = {"--separator"}, description = "File separator character", required = false, arity = 1)
         String separator = ";";
+
+        @Parameter(names = {"--threads"}, description = "Number of threads that parse each input file in parallel", required = false, arity = 1)
+        int threads = 1;
+
+        @Parameter(names = {"--cacheDir"}, description = "Folder for binary snapshots of the parsed input files; unchanged files are loaded from their snapshot", required = false, arity = 1)
+        String cacheDir = null;
+
+        @Parameter(names = {"--parallelFiles"}, description = "Maximum number of input files that are loaded concurrently", required = false, arity = 1)
+        int parallelFiles = Runtime.getRuntime().availableProcessors();
+
+        @Parameter(names = {"--memoryBudget"}, description = "Memory in MB that the concurrently loaded input files may occupy together", required = false, arity = 1)
+        long memoryBudget = Math.max(1, Runtime.getRuntime().maxMemory() / 2 / 1024 / 1024);
     }
 
     @Parameters(commandDescription = "Execute the INDProfiler data profiling algorithm.")
@@ -214,6 +229,18 @@ public class Main {
 
         @Parameter(names = {"--discoverNary"}, description = "Flag to indicate whether n-ary INDs should be discovered as well", required = false, arity = 1)
         boolean discoverNary = false;
+
+        @Parameter(names = {"--threads"}, description = "Number of threads that parse each input file in parallel", required = false, arity = 1)
+        int threads = 1;
+
+        @Parameter(names = {"--cacheDir"}, description = "Folder for binary snapshots of the parsed input files; unchanged files are loaded from their snapshot", required = false, arity = 1)
+        String cacheDir = null;
+
+        @Parameter(names = {"--parallelFiles"}, description = "Maximum number of input files that are loaded concurrently", required = false, arity = 1)
+        int parallelFiles = Runtime.getRuntime().availableProcessors();
+
+        @Parameter(names = {"--memoryBudget"}, description = "Memory in MB that the concurrently loaded input files may occupy together", required = false, arity = 1)
+        long memoryBudget = Math.max(1, Runtime.getRuntime().maxMemory() / 2 / 1024 / 1024);
     }
 
     @Parameters(commandDescription = "Execute the FirstLineSchemaMatcher algorithm.")
@@ -223,6 +250,12 @@ public class Main {
 
         @Parameter(names = {"--scenarioPath"}, description = "Path of the matching scenario", required = true, arity = 1)
         String scenarioPath;
+
+        @Parameter(names = {"--threads"}, description = "Number of threads that parse each input file in parallel", required = false, arity = 1)
+        int threads = 1;
+
+        @Parameter(names = {"--cacheDir"}, description = "Folder for binary snapshots of the parsed input files; unchanged files are loaded from their snapshot", required = false, arity = 1)
+        String cacheDir = null;
     }
 
     @Parameters(commandDescription = "Execute the SecondLineSchemaMatcher algorithm.")
@@ -232,6 +265,12 @@ public class Main {
 
         @Parameter(names = {"--scenarioPath"}, description = "Path of the matching scenario", required = true, arity = 1)
         String scenarioPath;
+
+        @Parameter(names = {"--threads"}, description = "Number of threads that parse each input file in parallel", required = false, arity = 1)
+        int threads = 1;
+
+        @Parameter(names = {"--cacheDir"}, description = "Folder for binary snapshots of the parsed input files; unchanged files are loaded from their snapshot", required = false, arity = 1)
+        String cacheDir = null;
     }
 
     @Parameters(commandDescription = "Execute the entire duplicate detection pipeline.")
@@ -253,9 +292,24 @@ public class Main {
 
         @Parameter(names = {"--windowSize"}, description = "Window size for the Sorted Neighborhood Method", required = false, arity = 1)
         int windowSize = 5;
+
+        @Parameter(names = {"--blockingThreshold"}, description = "If positive, LSH blocking on the sorting key values with this Jaccard threshold replaces the Sorted Neighborhood Method", required = false, arity = 1)
+        double blockingThreshold = 0;
+
+        @Parameter(names = {"--blockingTokenSize"}, description = "Token size of the padded tokens that LSH blocking compares", required = false, arity = 1)
+        int blockingTokenSize = 3;
+
+        @Parameter(names = {"--blockingNumHashFunctions"}, description = "Number of MinHash functions per LSH blocking signature", required = false, arity = 1)
+        int blockingNumHashFunctions = 128;
+
+        @Parameter(names = {"--threads"}, description = "Number of threads that parse each input file in parallel", required = false, arity = 1)
+        int threads = 1;
+
+        @Parameter(names = {"--cacheDir"}, description = "Folder for binary snapshots of the parsed input files; unchanged files are loaded from their snapshot", required = false, arity = 1)
+        String cacheDir = null;
     }
 
-    private static void runMatchingFor(String scenarioPath, boolean withSecondLineMatcher) {
+    private static void runMatchingFor(String scenarioPath, boolean withSecondLineMatcher, int threads, Path cacheDir) {
         List<Path> sources = scanFiles(scenarioPath + File.separator + "source");
         List<Path> targets = scanFiles(scenarioPath + File.separator + "target");
 
@@ -270,9 +324,9 @@ public class Main {
                     continue;
 
                 // Load the relations and ground truth data
-                Relation sourceRelation = new Relation(source.toString(), true, ',', StandardCharsets.UTF_8);
-                Relation targetRelation = new Relation(target.toString(), true, ',', StandardCharsets.UTF_8);
-                Relation groundRelation = new Relation(groundTruth.toString(), false, ',', StandardCharsets.UTF_8);
+                Relation sourceRelation = Relation.readCached(source, true, ',', StandardCharsets.UTF_8, threads, cacheDir);
+                Relation targetRelation = Relation.readCached(target, true, ',', StandardCharsets.UTF_8, threads, cacheDir);
+                Relation groundRelation = Relation.readCached(groundTruth, false, ',', StandardCharsets.UTF_8, threads, cacheDir);
 
                 // Calculate first-line matching
                 FirstLineSchemaMatcher firstMatcher = new FirstLineSchemaMatcher();
@@ -311,6 +365,10 @@ public class Main {
         }
     }
 
+    private static Path pathOf(String path) {
+        return path == null ? null : Path.of(path);
+    }
+
     private static List<Path> scanFiles(String folderPath) {
         try (Stream<Path> paths = Files.walk(Paths.get(folderPath))) {
             return paths.filter(Files::isRegularFile).collect(Collectors.toList());
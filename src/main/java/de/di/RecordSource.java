@@ -0,0 +1,38 @@
+package de.di;
+
+/**
+ * A RecordSource streams the records of a relation in batches of bounded size. Consumers that need only a single pass
+ * over the records, such as column statistics or distinct-value extraction, hold at most one batch in memory and can,
+ * therefore, process inputs that are much larger than the heap. Sources are single-use: once exhausted, they do not
+ * return any further batches.
+ */
+public interface RecordSource extends AutoCloseable {
+
+    // The number of records per batch that sources use if no batch size is given
+    int DEFAULT_BATCH_SIZE = 1 << 14;
+
+    /**
+     * Returns the name of the relation whose records this source streams.
+     * @return The name of the relation.
+     */
+    String getName();
+
+    /**
+     * Returns the attributes of the relation whose records this source streams.
+     * @return The attributes of the relation or null if the input has neither a header nor any record.
+     */
+    String[] getAttributes();
+
+    /**
+     * Returns the next batch of records. Records are returned in their original order, each batch holds at least
+     * one record, and the returned arrays are not reused by the source.
+     * @return The next batch of records or null if the source is exhausted.
+     */
+    String[][] nextBatch();
+
+    /**
+     * Releases all resources of this source.
+     */
+    @Override
+    void close();
+}
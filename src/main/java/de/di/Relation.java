@@ -1,15 +1,12 @@
 package de.di;
 
-import com.opencsv.CSVParser;
-import com.opencsv.CSVParserBuilder;
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
-import com.opencsv.enums.CSVReaderNullFieldIndicator;
-import com.opencsv.exceptions.CsvValidationException;
-import lombok.AllArgsConstructor;
+import de.di.helper.ColumnarTable;
+import de.di.helper.ConcurrentRelationLoader;
+import de.di.helper.MappedCsvReader;
+import de.di.helper.RelationSnapshot;
+import lombok.AccessLevel;
 import lombok.Getter;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -23,13 +20,17 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Getter
-@AllArgsConstructor
 public class Relation {
 
     private String name;
     private String[] attributes;
     private String[][] records;
 
+    // The dictionary-encoded columns of this relation; built once when the relation is loaded from file or lazily on
+    // first access for relations that were assembled in memory.
+    @Getter(AccessLevel.NONE)
+    private Column[] encodedColumns;
+
     public static List<Relation> readAllRelationsIn(String folderPath, boolean hasHeader, char separator, Charset charset) {
         try (Stream<Path> paths = Files.walk(Paths.get(folderPath))) {
             return paths.filter(Files::isRegularFile)
@@ -40,6 +41,158 @@ public class Relation {
         }
     }
 
+    public static List<Relation> readAllRelationsIn(String folderPath, boolean hasHeader, char separator, Charset charset, int threads) {
+        return readAllRelationsIn(folderPath, hasHeader, separator, charset, threads, null);
+    }
+
+    public static List<Relation> readAllRelationsIn(String folderPath, boolean hasHeader, char separator, Charset charset, int threads, Path cacheDir) {
+        // Snapshots must not be read as relations if the cache folder lies within the input folder
+        Path excludedDir = cacheDir == null ? null : cacheDir.toAbsolutePath().normalize();
+        try (Stream<Path> paths = Files.walk(Paths.get(folderPath))) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(filePath -> excludedDir == null || !filePath.toAbsolutePath().normalize().startsWith(excludedDir))
+                    .map(filePath -> readCached(filePath, hasHeader, separator, charset, threads, cacheDir))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads all files in the given folder concurrently. Up to maxInFlightFiles files are parsed at the same time as
+     * long as their estimated memory footprint fits into the memory budget. The relations are returned in the
+     * lexicographic order of their file paths, independent of the order in which their parsing finishes.
+     * @param folderPath The folder whose files should be read.
+     * @param hasHeader Flag to indicate whether the first line of each file is a header.
+     * @param separator The field separator.
+     * @param charset The charset of the files.
+     * @param threads The maximum number of threads that parse each file.
+     * @param cacheDir The folder that holds the snapshots or null to disable caching.
+     * @param maxInFlightFiles The maximum number of files that are loaded at the same time.
+     * @param memoryBudget The number of bytes that the files in flight may occupy together.
+     * @return The relations read from the folder in deterministic order.
+     */
+    public static List<Relation> readAllRelationsIn(String folderPath, boolean hasHeader, char separator, Charset charset, int threads, Path cacheDir,
+                                                    int maxInFlightFiles, long memoryBudget) {
+        Path excludedDir = cacheDir == null ? null : cacheDir.toAbsolutePath().normalize();
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(Paths.get(folderPath))) {
+            files = paths.filter(Files::isRegularFile)
+                    .filter(filePath -> excludedDir == null || !filePath.toAbsolutePath().normalize().startsWith(excludedDir))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return new ConcurrentRelationLoader(maxInFlightFiles, memoryBudget)
+                .load(files, filePath -> readCached(filePath, hasHeader, separator, charset, threads, cacheDir));
+    }
+
+    /**
+     * Reads the given CSV file from its binary snapshot in the given cache folder if the file has not changed since
+     * the snapshot was written; otherwise, the file is parsed with readMapped and a new snapshot is written.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Flag to indicate whether the first line of the file is a header.
+     * @param separator The field separator.
+     * @param charset The charset of the file.
+     * @param threads The maximum number of threads that parse the file.
+     * @param cacheDir The folder that holds the snapshots or null to disable caching.
+     * @return The relation read from the snapshot or the file.
+     */
+    public static Relation readCached(Path filePath, boolean hasHeader, char separator, Charset charset, int threads, Path cacheDir) {
+        if (cacheDir == null)
+            return readMapped(filePath, hasHeader, separator, charset, threads);
+
+        RelationSnapshot snapshot = RelationSnapshot.of(cacheDir, filePath, hasHeader, separator, charset);
+        Relation relation = snapshot.load();
+        if (relation == null) {
+            relation = readMapped(filePath, hasHeader, separator, charset, threads);
+            snapshot.store(relation);
+        }
+        return relation;
+    }
+
+    /**
+     * Reads the given CSV file with the memory-mapped MappedCsvReader, which parses the file on byte level and
+     * dictionary-encodes the values while parsing. The resulting relation is equal to the relation that the
+     * OpenCSV-based constructor would produce. Charsets that cannot be scanned on byte level fall back to that
+     * constructor.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Flag to indicate whether the first line of the file is a header.
+     * @param separator The field separator.
+     * @param charset The charset of the file.
+     * @return The relation read from the file.
+     */
+    public static Relation readMapped(Path filePath, boolean hasHeader, char separator, Charset charset) {
+        return readMapped(filePath, hasHeader, separator, charset, 1);
+    }
+
+    /**
+     * Reads the given CSV file with the memory-mapped MappedCsvReader using up to the given number of threads. Large
+     * files are split into byte ranges that are parsed in parallel and stitched together in the original record order.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Flag to indicate whether the first line of the file is a header.
+     * @param separator The field separator.
+     * @param charset The charset of the file.
+     * @param threads The maximum number of threads that parse the file.
+     * @return The relation read from the file.
+     */
+    public static Relation readMapped(Path filePath, boolean hasHeader, char separator, Charset charset, int threads) {
+        if (!MappedCsvReader.supports(separator, charset))
+            return new Relation(filePath, hasHeader, separator, charset);
+        try {
+            return new Relation(nameOf(filePath), hasHeader, new MappedCsvReader(separator, charset).read(filePath, hasHeader, threads));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    static String nameOf(Path filePath) {
+        return filePath.getFileName().toString().split("\\.")[0];
+    }
+
+    static String[] defaultAttributes(int numAttributes) {
+        String[] attributes = new String[numAttributes];
+        for (int i = 0; i < numAttributes; i++)
+            attributes[i] = String.valueOf(i);
+        return attributes;
+    }
+
+    private Relation(String name, boolean hasHeader, ColumnarTable table) {
+        this.name = name;
+        this.attributes = table.getHeader();
+        this.records = table.buildRecords();
+        if (!hasHeader && this.records.length != 0)
+            this.attributes = defaultAttributes(this.records[0].length);
+        this.encodedColumns = table.buildColumns(this.attributes == null ? 0 : this.attributes.length);
+    }
+
+    public Relation(String name, String[] attributes, String[][] records) {
+        this.name = name;
+        this.attributes = attributes;
+        this.records = records;
+    }
+
+    /**
+     * Assembles a relation from its dictionary-encoded columns; the records are decoded from the columns.
+     * @param name The name of the relation.
+     * @param attributes The attributes of the relation.
+     * @param columns One column per attribute; all columns must have numRecords codes.
+     * @param numRecords The number of records of the relation.
+     */
+    public Relation(String name, String[] attributes, Column[] columns, int numRecords) {
+        this.name = name;
+        this.attributes = attributes;
+        this.records = new String[numRecords][columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            int[] codes = columns[i].getCodes();
+            String[] dictionary = columns[i].getDictionary();
+            for (int j = 0; j < numRecords; j++)
+                this.records[j][i] = dictionary[codes[j]];
+        }
+        this.encodedColumns = columns;
+    }
+
     public Relation(String filePath) {
         this(filePath, true, ';', StandardCharsets.UTF_8);
     }
@@ -49,56 +202,113 @@ public class Relation {
     }
 
     public Relation(Path filePath, boolean hasHeader, char separator, Charset charset) {
-        this.name = filePath.getFileName().toString().split("\\.")[0];
-
-        CSVParser parser = new CSVParserBuilder()
-                .withSeparator(separator)
-                .withQuoteChar('"')
-                .withEscapeChar('\\')
-                .withStrictQuotes(false)
-                .withIgnoreLeadingWhiteSpace(false)
-                .withFieldAsNull(CSVReaderNullFieldIndicator.EMPTY_SEPARATORS)
-                .build();
-
-        ArrayList<String[]> records;
-        try {
-            BufferedReader buffer = Files.newBufferedReader(filePath, charset);
-            CSVReader reader = new CSVReaderBuilder(buffer).withCSVParser(parser).build();
-
-            if (hasHeader)
-                this.attributes = reader.readNext();
-
-            records = new ArrayList<>();
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                for (int i = 0; i < line.length; i++)
-                    if (line[i] == null)
-                        line[i] = "";
-                records.add(line);
-            }
-            reader.close();
-        } catch (CsvValidationException | IOException e) {
-            throw new RuntimeException(e);
+        List<String[]> records = new ArrayList<>();
+        try (CsvRecordSource source = new CsvRecordSource(filePath, hasHeader, separator, charset)) {
+            this.name = source.getName();
+            this.attributes = source.getAttributes();
+
+            String[][] batch;
+            while ((batch = source.nextBatch()) != null)
+                records.addAll(Arrays.asList(batch));
         }
+        this.records = records.toArray(new String[0][]);
 
-        this.records = new String[records.size()][];
-        for (int i = 0; i < records.size(); i++)
-            this.records[i] = records.get(i);
+        this.encodedColumns = this.encodeColumns(true);
+    }
 
-        if (!hasHeader && this.records.length != 0) {
-            this.attributes = new String[this.records[0].length];
-            for (int i = 0; i < this.records[0].length; i++)
-                this.attributes[i] = String.valueOf(i);
+    /**
+     * Dictionary-encodes all attributes of this relation. Records that this relation read itself can share their
+     * values with the dictionaries so that equal values are held in memory only once; the records of an in-memory
+     * relation belong to the caller and stay untouched.
+     * @param shareValues Flag to indicate whether all record values should be replaced by their dictionary instances.
+     * @return The dictionary-encoded columns of this relation.
+     */
+    private Column[] encodeColumns(boolean shareValues) {
+        Column[] columns = new Column[this.attributes == null ? 0 : this.attributes.length];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = Column.encode(this.records, i);
+            if (!shareValues)
+                continue;
+            int[] codes = columns[i].getCodes();
+            String[] dictionary = columns[i].getDictionary();
+            for (int j = 0; j < this.records.length; j++)
+                if (i < this.records[j].length)
+                    this.records[j][i] = dictionary[codes[j]];
         }
+        return columns;
+    }
+
+    private synchronized Column[] getEncodedColumns() {
+        if (this.encodedColumns == null)
+            this.encodedColumns = this.encodeColumns(false);
+        return this.encodedColumns;
+    }
+
+    /**
+     * Returns the dictionary-encoded column of the given attribute. The column is built only once per relation, so
+     * repeated calls are cheap and return the same instance.
+     * @param attribute The index of the attribute.
+     * @return The dictionary-encoded column of the attribute.
+     */
+    public Column getColumn(int attribute) {
+        return this.getEncodedColumns()[attribute];
+    }
+
+    /**
+     * Returns a RecordSource that streams the records of this relation in batches of the default batch size.
+     * @return A new RecordSource over the records of this relation.
+     */
+    public RecordSource asRecordSource() {
+        return this.asRecordSource(RecordSource.DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Returns a RecordSource that streams the records of this relation in batches of the given size. This lets
+     * single-pass consumers treat in-memory relations and streamed files alike.
+     * @param batchSize The maximum number of records per batch.
+     * @return A new RecordSource over the records of this relation.
+     */
+    public RecordSource asRecordSource(int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("The batch size must be positive, but is " + batchSize);
+        return new RecordSource() {
+            private int position = 0;
+
+            @Override
+            public String getName() {
+                return Relation.this.name;
+            }
+
+            @Override
+            public String[] getAttributes() {
+                return Relation.this.attributes;
+            }
+
+            @Override
+            public String[][] nextBatch() {
+                if (this.position >= Relation.this.records.length)
+                    return null;
+                int end = (int) Math.min((long) this.position + batchSize, Relation.this.records.length);
+                String[][] batch = Arrays.copyOfRange(Relation.this.records, this.position, end);
+                this.position = end;
+                return batch;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
     }
 
+    /**
+     * Returns all attribute values of this relation in column-major order. Note that this materializes a fresh
+     * String[][] on every call; algorithms should prefer the dictionary-encoded getColumn(int) instead.
+     * @return The attribute values of this relation, one array per attribute.
+     */
     public String[][] getColumns() {
         String[][] columns = new String[this.attributes.length][];
         for (int i = 0; i < columns.length; i++)
-            columns[i] = new String[this.records.length];
-        for (int j = 0; j < this.records.length; j++)
-            for (int i = 0; i < columns.length; i++)
-                columns[i][j] = this.records[j][i];
+            columns[i] = this.getColumn(i).decode();
         return columns;
     }
 
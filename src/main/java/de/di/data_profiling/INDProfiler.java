@@ -1,5 +1,6 @@
 package de.di.data_profiling;
 
+import de.di.RecordSource;
 import de.di.Relation;
 import de.di.data_profiling.structures.IND;
 
@@ -22,15 +23,76 @@ public class INDProfiler {
             throw new UnsupportedOperationException("N-ary IND discovery is not implemented.");
         }
 
+        // The distinct values of every column are taken from the column dictionaries once and reused for all checks
+        List<List<Set<String>>> valuePools = new ArrayList<>(datasets.size());
+        for (Relation relation : datasets) {
+            List<Set<String>> relationPools = new ArrayList<>(relation.getAttributes().length);
+            for (int index = 0; index < relation.getAttributes().length; index++)
+                relationPools.add(collectValues(relation.getColumn(index).getDictionary()));
+            valuePools.add(relationPools);
+        }
+
+        return this.discover(datasets, valuePools);
+    }
+
+    /**
+     * Triggers the IND discovery process on the given streamed relations. Only the distinct values of every column
+     * are held in memory, never the records themselves. The returned INDs reference record-less relations that carry
+     * the name and the attributes of their sources.
+     *
+     * @param sources        List of record sources to evaluate; they are consumed, but not closed.
+     * @param includeNary    Flag to indicate if n-ary INDs should be included (not supported).
+     * @return List of detected INDs.
+     */
+    public List<IND> profileSources(List<RecordSource> sources, boolean includeNary) {
+        if (includeNary) {
+            throw new UnsupportedOperationException("N-ary IND discovery is not implemented.");
+        }
+
+        List<Relation> datasets = new ArrayList<>(sources.size());
+        List<List<Set<String>>> valuePools = new ArrayList<>(sources.size());
+        for (RecordSource source : sources) {
+            String[] attributes = source.getAttributes() == null ? new String[0] : source.getAttributes();
+            datasets.add(new Relation(source.getName(), attributes, new String[0][]));
+            valuePools.add(collectDistinctValues(source, attributes.length));
+        }
+
+        return this.discover(datasets, valuePools);
+    }
+
+    /**
+     * Extracts the distinct values of the first numAttributes attributes in a single pass over the given source.
+     *
+     * @param source         Source of the records; it is consumed, but not closed.
+     * @param numAttributes  Number of attributes whose values should be collected.
+     * @return One set of distinct values per attribute.
+     */
+    public static List<Set<String>> collectDistinctValues(RecordSource source, int numAttributes) {
+        List<Set<String>> valuePools = new ArrayList<>(numAttributes);
+        for (int index = 0; index < numAttributes; index++)
+            valuePools.add(new HashSet<>());
+
+        String[][] batch;
+        while ((batch = source.nextBatch()) != null)
+            for (String[] record : batch)
+                for (int index = 0; index < numAttributes; index++)
+                    valuePools.get(index).add(index < record.length ? record[index] : "");
+
+        return valuePools;
+    }
+
+    private List<IND> discover(List<Relation> datasets, List<List<Set<String>>> valuePools) {
         List<IND> indResults = new ArrayList<>();
 
-        for (Relation baseRelation : datasets) {
+        for (int baseRelationIndex = 0; baseRelationIndex < datasets.size(); baseRelationIndex++) {
+            Relation baseRelation = datasets.get(baseRelationIndex);
             int baseColCount = baseRelation.getAttributes().length;
 
             for (int baseIndex = 0; baseIndex < baseColCount; baseIndex++) {
-                Set<String> baseData = collectValues(baseRelation.getColumns()[baseIndex]);
+                Set<String> baseData = valuePools.get(baseRelationIndex).get(baseIndex);
 
-                for (Relation candidateRelation : datasets) {
+                for (int candidateRelationIndex = 0; candidateRelationIndex < datasets.size(); candidateRelationIndex++) {
+                    Relation candidateRelation = datasets.get(candidateRelationIndex);
                     int candidateColCount = candidateRelation.getAttributes().length;
 
                     for (int candidateIndex = 0; candidateIndex < candidateColCount; candidateIndex++) {
@@ -39,7 +101,7 @@ public class INDProfiler {
                             continue;
                         }
 
-                        Set<String> candidateData = collectValues(candidateRelation.getColumns()[candidateIndex]);
+                        Set<String> candidateData = valuePools.get(candidateRelationIndex).get(candidateIndex);
 
                         if (isSubset(baseData, candidateData)) {
                             indResults.add(new IND(baseRelation, baseIndex, candidateRelation, candidateIndex));
@@ -53,14 +115,14 @@ public class INDProfiler {
     }
 
     /**
-     * Extracts a set of distinct values from a given column.
+     * Extracts a set of distinct values from a given column dictionary.
      *
-     * @param column Raw string array from a relation.
-     * @return Set containing all unique entries.
+     * @param dictionary Distinct values of a dictionary-encoded column.
+     * @return Set containing all unique non-null entries.
      */
-    private Set<String> collectValues(String[] column) {
-        Set<String> valuePool = new HashSet<>();
-        for (String entry : column) {
+    private Set<String> collectValues(String[] dictionary) {
+        Set<String> valuePool = new HashSet<>(dictionary.length * 2);
+        for (String entry : dictionary) {
             if (entry != null) {
                 valuePool.add(entry);
             }
@@ -77,6 +139,7 @@ public class INDProfiler {
      */
     private boolean isSubset(Set<String> smaller, Set<String> larger) {
         if (smaller.isEmpty()) return false;  // Ignore empty column INDs
+        if (smaller.size() > larger.size()) return false;
         return larger.containsAll(smaller);
     }
 
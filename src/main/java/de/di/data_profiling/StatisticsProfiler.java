@@ -0,0 +1,43 @@
+package de.di.data_profiling;
+
+import de.di.Relation;
+import de.di.RecordSource;
+import de.di.data_profiling.structures.ColumnStatistics;
+
+/**
+ * Collects per-attribute statistics in a single pass over the records of a relation.
+ */
+public class StatisticsProfiler {
+
+    /**
+     * Collects the statistics of all attributes of the given relation.
+     *
+     * @param relation The relation to analyze.
+     * @return One ColumnStatistics object per attribute.
+     */
+    public ColumnStatistics[] profile(Relation relation) {
+        return this.profile(relation.asRecordSource());
+    }
+
+    /**
+     * Collects the statistics of all attributes of the streamed relation. Only one batch of records is held in memory
+     * at a time. Records that are too short to contain an attribute count as holding the empty value.
+     *
+     * @param source The source of the records; it is consumed, but not closed.
+     * @return One ColumnStatistics object per attribute.
+     */
+    public ColumnStatistics[] profile(RecordSource source) {
+        int numAttributes = source.getAttributes() == null ? 0 : source.getAttributes().length;
+        ColumnStatistics[] statistics = new ColumnStatistics[numAttributes];
+        for (int attribute = 0; attribute < numAttributes; attribute++)
+            statistics[attribute] = new ColumnStatistics(attribute);
+
+        String[][] batch;
+        while ((batch = source.nextBatch()) != null)
+            for (String[] record : batch)
+                for (int attribute = 0; attribute < numAttributes; attribute++)
+                    statistics[attribute].add(attribute < record.length ? record[attribute] : "");
+
+        return statistics;
+    }
+}
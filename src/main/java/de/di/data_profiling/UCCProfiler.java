@@ -2,13 +2,48 @@ package de.di.data_profiling;
 
 import de.di.Relation;
 import de.di.data_profiling.structures.AttributeList;
+import de.di.data_profiling.structures.AttributeSetTrie;
+import de.di.data_profiling.structures.PLICache;
 import de.di.data_profiling.structures.PositionListIndex;
 import de.di.data_profiling.structures.UCC;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import lombok.Getter;
 
 import java.util.*;
 
+/**
+ * Discovers all minimal unique column combinations (UCCs) level-wise, i.e., bottom-up through the lattice of attribute
+ * sets. Attribute sets are bit masks with one bit per attribute in a long; relations with more than 64 attributes
+ * take the same traversal on BitSet masks in profileWide(). Every level holds the non-unique attribute sets of one size
+ * in lexicographic order of their attributes; the next level's candidates are generated Apriori-style only within
+ * blocks of sets that share all but their last attribute. A candidate is only checked if it contains none of the
+ * minimal UCCs found so far, which an AttributeSetTrie answers along the paths of the candidate's attributes; this also
+ * guarantees that every UCC that is found is minimal. The PLIs live in a PLICache with a heap budget, which intersects
+ * every candidate's PLI from the cheapest pair of its cached subsets and evicts PLIs on wide tables instead of holding
+ * all PLIs of the previous level.
+ */
 public class UCCProfiler {
 
+    // The default budget of the PLI cache is the maximum heap size divided by this
+    private static final int DEFAULT_CACHE_DIVISOR = 2;
+
+    // The heap budget of the PLI cache in bytes
+    @Getter
+    private final long cacheBudget;
+
+    public UCCProfiler() {
+        this(Runtime.getRuntime().maxMemory() / DEFAULT_CACHE_DIVISOR);
+    }
+
+    /**
+     * @param cacheBudget The heap budget of the PLI cache in bytes.
+     */
+    public UCCProfiler(long cacheBudget) {
+        if (cacheBudget < 0)
+            throw new IllegalArgumentException("The cache budget must not be negative, but is " + cacheBudget);
+        this.cacheBudget = cacheBudget;
+    }
+
     /**
      * Identifies all minimal unique column sets (UCCs) in the given relation.
      *
@@ -17,97 +52,165 @@ public class UCCProfiler {
      */
     public List<UCC> profile(Relation relation) {
         int colCount = relation.getAttributes().length;
+        if (colCount > Long.SIZE)
+            return profileWide(relation);
         List<UCC> discoveredUCCs = new ArrayList<>();
-        Set<Set<Integer>> knownUniqueSets = new HashSet<>();
-        Map<Set<Integer>, PositionListIndex> pendingCombinations = new HashMap<>();
+        AttributeSetTrie knownUniqueSets = new AttributeSetTrie();
+        PLICache plis = new PLICache(this.cacheBudget);
 
         // Initial scan: check all single-column uniqueness
+        LongArrayList level = new LongArrayList();
         for (int col = 0; col < colCount; col++) {
             AttributeList singleAttr = new AttributeList(col);
-            PositionListIndex pli = new PositionListIndex(singleAttr, relation.getColumns()[col]);
+            PositionListIndex pli = new PositionListIndex(singleAttr, relation.getColumn(col));
 
+            // The cache derives all other PLIs from the ones of the single attributes
+            plis.put(1L << col, pli);
             if (pli.isUnique()) {
                 discoveredUCCs.add(new UCC(relation, singleAttr));
-                knownUniqueSets.add(Collections.singleton(col));
+                knownUniqueSets.add(1L << col);
             } else {
-                Set<Integer> colSet = new HashSet<>();
-                colSet.add(col);
-                pendingCombinations.put(colSet, pli);
+                level.add(1L << col);
             }
         }
 
         // Multi-column uniqueness search (level-wise)
-        int targetSize = 2;
-        while (!pendingCombinations.isEmpty()) {
-            Map<Set<Integer>, PositionListIndex> nextLevel = new HashMap<>();
-
-            List<Map.Entry<Set<Integer>, PositionListIndex>> pendingList = new ArrayList<>(pendingCombinations.entrySet());
-            int n = pendingList.size();
-
-            for (int i = 0; i < n; i++) {
-                for (int j = i + 1; j < n; j++) {
-                    Set<Integer> merged = tryCombine(pendingList.get(i).getKey(), pendingList.get(j).getKey());
-                    if (merged == null || merged.size() != targetSize || containsUniqueSubset(merged, knownUniqueSets)) {
-                        continue;
-                    }
-
-                    PositionListIndex combinedPLI = pendingList.get(i).getValue()
-                            .intersect(pendingList.get(j).getValue());
-
-                    if (combinedPLI.isUnique()) {
-                        discoveredUCCs.add(new UCC(relation, new AttributeList(toArray(merged))));
-                        knownUniqueSets.add(merged);
-                    } else {
-                        nextLevel.put(merged, combinedPLI);
+        while (!level.isEmpty()) {
+            LongArrayList nextLevel = new LongArrayList();
+            int blockStart = 0;
+            while (blockStart < level.size()) {
+                long prefix = prefix(level.getLong(blockStart));
+                int blockEnd = blockStart + 1;
+                while (blockEnd < level.size() && prefix(level.getLong(blockEnd)) == prefix)
+                    blockEnd++;
+
+                for (int i = blockStart; i < blockEnd; i++) {
+                    for (int j = i + 1; j < blockEnd; j++) {
+                        long candidate = level.getLong(i) | level.getLong(j);
+                        if (knownUniqueSets.containsSubsetOf(candidate))
+                            continue;
+
+                        PositionListIndex combinedPLI = plis.get(candidate);
+                        if (combinedPLI.isUnique()) {
+                            discoveredUCCs.add(new UCC(relation, new AttributeList(toArray(candidate))));
+                            knownUniqueSets.add(candidate);
+                        } else {
+                            nextLevel.add(candidate);
+                        }
                     }
                 }
+                blockStart = blockEnd;
             }
 
-            pendingCombinations = nextLevel;
-            targetSize++;
+            level = nextLevel;
         }
 
         return discoveredUCCs;
     }
 
     /**
-     * Merges two attribute index sets if possible.
-     * Ensures sets can be merged in level-wise UCC discovery.
+     * Discovers the minimal UCCs of relations with any number of attributes, using BitSet masks instead of longs. The
+     * levels, their prefix blocks and the AttributeSetTrie of the UCCs found so far are the same as in profile(), but
+     * the PLICache only takes long masks, so every level keeps the PLIs of its sets, which are intersected pairwise
+     * within the blocks.
+     *
+     * @param relation Input relation to analyze for unique column combinations.
+     * @return List of all valid UCCs found.
      */
-    private Set<Integer> tryCombine(Set<Integer> first, Set<Integer> second) {
-        if (first.size() != second.size()) return null;
+    static List<UCC> profileWide(Relation relation) {
+        int colCount = relation.getAttributes().length;
+        List<UCC> discoveredUCCs = new ArrayList<>();
+        AttributeSetTrie knownUniqueSets = new AttributeSetTrie();
 
-        List<Integer> l1 = new ArrayList<>(first);
-        List<Integer> l2 = new ArrayList<>(second);
+        List<WideLatticeNode> level = new ArrayList<>();
+        for (int col = 0; col < colCount; col++) {
+            AttributeList singleAttr = new AttributeList(col);
+            PositionListIndex pli = new PositionListIndex(singleAttr, relation.getColumn(col));
+            BitSet attributes = new BitSet(colCount);
+            attributes.set(col);
+            if (pli.isUnique()) {
+                discoveredUCCs.add(new UCC(relation, singleAttr));
+                knownUniqueSets.add(attributes);
+            } else {
+                level.add(new WideLatticeNode(attributes, pli));
+            }
+        }
 
-        Collections.sort(l1);
-        Collections.sort(l2);
+        while (!level.isEmpty()) {
+            List<WideLatticeNode> nextLevel = new ArrayList<>();
+            int blockStart = 0;
+            while (blockStart < level.size()) {
+                BitSet prefix = prefix(level.get(blockStart).attributes);
+                int blockEnd = blockStart + 1;
+                while (blockEnd < level.size() && prefix(level.get(blockEnd).attributes).equals(prefix))
+                    blockEnd++;
+
+                for (int i = blockStart; i < blockEnd; i++) {
+                    for (int j = i + 1; j < blockEnd; j++) {
+                        BitSet candidate = (BitSet) level.get(i).attributes.clone();
+                        candidate.or(level.get(j).attributes);
+                        if (knownUniqueSets.containsSubsetOf(candidate))
+                            continue;
+
+                        PositionListIndex combinedPLI = level.get(i).pli.intersect(level.get(j).pli);
+                        if (combinedPLI.isUnique()) {
+                            discoveredUCCs.add(new UCC(relation, new AttributeList(candidate.stream().toArray())));
+                            knownUniqueSets.add(candidate);
+                        } else {
+                            nextLevel.add(new WideLatticeNode(candidate, combinedPLI));
+                        }
+                    }
+                    // The PLI was the probing side of all intersections with the rest of its block
+                    level.get(i).pli.releaseRecordToCluster();
+                }
+                blockStart = blockEnd;
+            }
 
-        for (int i = 0; i < l1.size() - 1; i++) {
-            if (!l1.get(i).equals(l2.get(i))) return null;
+            level = nextLevel;
         }
 
-        Set<Integer> merged = new HashSet<>(first);
-        merged.addAll(second);
-        return merged;
+        return discoveredUCCs;
     }
 
     /**
-     * Checks whether the candidate attribute set has a proper subset that is already known as unique.
+     * Returns the attribute set without its last, i.e., highest attribute; the sets of a block share this prefix.
      */
-    private boolean containsUniqueSubset(Set<Integer> candidate, Set<Set<Integer>> knownUCCs) {
-        for (Set<Integer> uniqueSet : knownUCCs) {
-            if (candidate.containsAll(uniqueSet) && candidate.size() > uniqueSet.size()) {
-                return true;
-            }
-        }
-        return false;
+    private static long prefix(long attributes) {
+        return attributes & ~Long.highestOneBit(attributes);
+    }
+
+    /**
+     * Returns the attribute set without its last attribute, like prefix(long).
+     */
+    private static BitSet prefix(BitSet attributes) {
+        BitSet prefix = (BitSet) attributes.clone();
+        prefix.clear(attributes.length() - 1);
+        return prefix;
+    }
+
+    /**
+     * Utility method: converts an attribute mask to the ordered int[] for the AttributeList constructor.
+     */
+    private static int[] toArray(long attributes) {
+        int[] indexes = new int[Long.bitCount(attributes)];
+        for (int i = 0; attributes != 0; attributes &= attributes - 1)
+            indexes[i++] = Long.numberOfTrailingZeros(attributes);
+        return indexes;
     }
 
     /**
-     * Utility method: converts Set<Integer> to int[] for AttributeList constructor.
+     * A non-unique attribute set of the current level of profileWide() together with its PLI.
      */
-    private int[] toArray(Set<Integer> indexSet) {
-        return indexSet.stream().mapToInt(Integer::intValue).toArray();
+    private static class WideLatticeNode {
+
+        // One bit per attribute of the set
+        private final BitSet attributes;
+
+        private final PositionListIndex pli;
+
+        private WideLatticeNode(BitSet attributes, PositionListIndex pli) {
+            this.attributes = attributes;
+            this.pli = pli;
+        }
     }
 }
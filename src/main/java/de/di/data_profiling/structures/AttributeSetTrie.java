@@ -0,0 +1,207 @@
+package de.di.data_profiling.structures;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * An AttributeSetTrie is a set-trie over attribute sets, which are bit masks with one bit per attribute as in the
+ * UCCProfiler. Every set is stored as the path of its attributes in ascending order, and the children of a node are
+ * ordered by their attributes, too. The trie answers subset and superset queries without looking at every stored set:
+ * a subset query only follows the attributes of the query set, and a superset query skips every subtree as soon as it
+ * has passed a query attribute that the path does not contain. Profilers keep, e.g., their minimal UCCs in one trie to
+ * find the candidates that contain a UCC, and their non-UCCs in another to find the candidates that cannot be unique.
+ * The nodes store attribute indexes, so sets of relations with more than 64 attributes can be added and queried as
+ * BitSets; the superset query only takes long masks.
+ */
+public class AttributeSetTrie {
+
+    private static final int NONE = -1;
+
+    private static final int ROOT = 0;
+
+    // The attribute that leads from the parent of a node to the node; undefined for the root
+    private int[] attributes;
+
+    // The child with the smallest attribute and the sibling with the next larger attribute of a node, or NONE
+    private int[] firstChildren;
+    private int[] nextSiblings;
+
+    // Flags for the nodes that end a stored set
+    private boolean[] ends;
+
+    private int numNodes;
+    private int numSets;
+
+    public AttributeSetTrie() {
+        this.attributes = new int[16];
+        this.firstChildren = new int[16];
+        this.nextSiblings = new int[16];
+        this.ends = new boolean[16];
+        this.numNodes = 1;
+        this.firstChildren[ROOT] = NONE;
+        this.nextSiblings[ROOT] = NONE;
+    }
+
+    /**
+     * Returns the number of distinct sets in this trie.
+     */
+    public int size() {
+        return this.numSets;
+    }
+
+    public boolean isEmpty() {
+        return this.numSets == 0;
+    }
+
+    /**
+     * Adds the given attribute set to this trie.
+     * @param set The attribute set.
+     * @return true if the set was not yet contained.
+     */
+    public boolean add(long set) {
+        int node = ROOT;
+        for (long remaining = set; remaining != 0; remaining &= remaining - 1)
+            node = this.child(node, Long.numberOfTrailingZeros(remaining));
+        if (this.ends[node])
+            return false;
+        this.ends[node] = true;
+        this.numSets++;
+        return true;
+    }
+
+    /**
+     * Adds the given attribute set to this trie like add(long), but for sets with any attributes.
+     * @param set The attribute set.
+     * @return true if the set was not yet contained.
+     */
+    public boolean add(BitSet set) {
+        int node = ROOT;
+        for (int attribute = set.nextSetBit(0); attribute >= 0; attribute = set.nextSetBit(attribute + 1))
+            node = this.child(node, attribute);
+        if (this.ends[node])
+            return false;
+        this.ends[node] = true;
+        this.numSets++;
+        return true;
+    }
+
+    /**
+     * Checks whether the given attribute set is contained in this trie.
+     */
+    public boolean contains(long set) {
+        int node = ROOT;
+        for (long remaining = set; remaining != 0 && node != NONE; remaining &= remaining - 1) {
+            int attribute = Long.numberOfTrailingZeros(remaining);
+            node = this.firstChildren[node];
+            while (node != NONE && this.attributes[node] < attribute)
+                node = this.nextSiblings[node];
+            if (node != NONE && this.attributes[node] != attribute)
+                node = NONE;
+        }
+        return node != NONE && this.ends[node];
+    }
+
+    /**
+     * Checks whether this trie contains a subset of the given attribute set, including the set itself.
+     * @param set The attribute set.
+     * @return true if some stored set is a subset of the given set.
+     */
+    public boolean containsSubsetOf(long set) {
+        return this.containsSubsetOf(ROOT, set);
+    }
+
+    private boolean containsSubsetOf(int node, long set) {
+        if (this.ends[node])
+            return true;
+        // Only the attributes of the set can continue a path of a subset, and all of them are larger than the node's
+        for (int child = this.firstChildren[node]; child != NONE && set != 0; child = this.nextSiblings[child]) {
+            int attribute = this.attributes[child];
+            if (attribute > Long.SIZE - 1 - Long.numberOfLeadingZeros(set))
+                break;
+            if ((set & (1L << attribute)) != 0 && this.containsSubsetOf(child, set & (-2L << attribute)))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether this trie contains a subset of the given attribute set like containsSubsetOf(long), but for sets
+     * with any attributes.
+     * @param set The attribute set.
+     * @return true if some stored set is a subset of the given set.
+     */
+    public boolean containsSubsetOf(BitSet set) {
+        return this.containsSubsetOf(ROOT, set);
+    }
+
+    private boolean containsSubsetOf(int node, BitSet set) {
+        if (this.ends[node])
+            return true;
+        // Only the attributes of the set can continue a path of a subset; the children are ordered by their attributes
+        int last = set.length() - 1;
+        for (int child = this.firstChildren[node]; child != NONE; child = this.nextSiblings[child]) {
+            int attribute = this.attributes[child];
+            if (attribute > last)
+                break;
+            if (set.get(attribute) && this.containsSubsetOf(child, set))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether this trie contains a superset of the given attribute set, including the set itself.
+     * @param set The attribute set.
+     * @return true if the given set is a subset of some stored set.
+     */
+    public boolean containsSupersetOf(long set) {
+        return this.containsSupersetOf(ROOT, set);
+    }
+
+    private boolean containsSupersetOf(int node, long remaining) {
+        // Every node lies on the path of a stored set, which contains all attributes of the path
+        if (remaining == 0)
+            return true;
+        int required = Long.numberOfTrailingZeros(remaining);
+        for (int child = this.firstChildren[node]; child != NONE; child = this.nextSiblings[child]) {
+            int attribute = this.attributes[child];
+            // A path that passes the smallest required attribute without taking it cannot contain it anymore
+            if (attribute > required)
+                break;
+            if (this.containsSupersetOf(child, attribute == required ? remaining & (remaining - 1) : remaining))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the child of the given node with the given attribute, creating it if necessary.
+     */
+    private int child(int node, int attribute) {
+        int previous = NONE;
+        int child = this.firstChildren[node];
+        while (child != NONE && this.attributes[child] < attribute) {
+            previous = child;
+            child = this.nextSiblings[child];
+        }
+        if (child != NONE && this.attributes[child] == attribute)
+            return child;
+
+        if (this.numNodes == this.attributes.length) {
+            int capacity = 2 * this.attributes.length;
+            this.attributes = Arrays.copyOf(this.attributes, capacity);
+            this.firstChildren = Arrays.copyOf(this.firstChildren, capacity);
+            this.nextSiblings = Arrays.copyOf(this.nextSiblings, capacity);
+            this.ends = Arrays.copyOf(this.ends, capacity);
+        }
+        int created = this.numNodes++;
+        this.attributes[created] = attribute;
+        this.firstChildren[created] = NONE;
+        this.nextSiblings[created] = child;
+        if (previous == NONE)
+            this.firstChildren[node] = created;
+        else
+            this.nextSiblings[previous] = created;
+        return created;
+    }
+}
@@ -0,0 +1,72 @@
+package de.di.data_profiling.structures;
+
+import lombok.Getter;
+
+/**
+ * A ColumnStatistics object summarizes the values of one attribute. All statistics can be maintained incrementally
+ * in constant memory, so they can be collected in a single pass over a streamed relation. The minimum and maximum
+ * values and lengths consider only non-empty values; they are null respectively 0 if the attribute holds only empty
+ * values.
+ */
+@Getter
+public class ColumnStatistics {
+
+    private final int attribute;
+
+    private long numValues = 0;
+    private long numEmptyValues = 0;
+    private long totalLength = 0;
+
+    private int minLength = 0;
+    private int maxLength = 0;
+
+    private String minValue = null;
+    private String maxValue = null;
+
+    public ColumnStatistics(int attribute) {
+        this.attribute = attribute;
+    }
+
+    /**
+     * Adds the given value to these statistics.
+     * @param value The next value of the attribute; null is treated as the empty value.
+     */
+    public void add(String value) {
+        this.numValues++;
+        if (value == null || value.isEmpty()) {
+            this.numEmptyValues++;
+            return;
+        }
+
+        int length = value.length();
+        this.totalLength += length;
+        if (this.minValue == null) {
+            this.minLength = length;
+            this.maxLength = length;
+            this.minValue = value;
+            this.maxValue = value;
+            return;
+        }
+        this.minLength = Math.min(this.minLength, length);
+        this.maxLength = Math.max(this.maxLength, length);
+        if (value.compareTo(this.minValue) < 0)
+            this.minValue = value;
+        if (value.compareTo(this.maxValue) > 0)
+            this.maxValue = value;
+    }
+
+    /**
+     * Returns the average length of the non-empty values of the attribute.
+     * @return The average length of the non-empty values or 0 if there are none.
+     */
+    public double getAverageLength() {
+        long numNonEmptyValues = this.numValues - this.numEmptyValues;
+        return numNonEmptyValues == 0 ? 0 : (double) this.totalLength / numNonEmptyValues;
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnStatistics(" + this.attribute + ", values=" + this.numValues + ", empty=" + this.numEmptyValues +
+                ", length=[" + this.minLength + ", " + this.maxLength + "], range=[" + this.minValue + ", " + this.maxValue + "])";
+    }
+}
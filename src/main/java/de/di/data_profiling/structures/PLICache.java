@@ -0,0 +1,234 @@
+package de.di.data_profiling.structures;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A PLICache keeps the PLIs of attribute sets, which are bit masks with one bit per attribute as in the UCCProfiler,
+ * within a heap budget. The PLI of a set that is not cached is intersected from the cheapest pair of cached PLIs that
+ * cover it, so a profiler does not need to hold on to the parents of its candidates. Only the PLI that was probed last
+ * keeps its record-to-cluster array. When the estimated size of all PLIs exceeds the budget, the cache first drops that
+ * array and then evicts the PLIs with the fewest uses per byte, i.e., it keeps small and frequently reused PLIs. The
+ * use counts are halved whenever PLIs are evicted, so that PLIs which were only useful for earlier candidates age out.
+ * The PLIs of single attributes are never evicted, because all other PLIs can be derived from them. The keys are long
+ * masks, so the UCCProfiler does not cache the PLIs of relations with more than 64 attributes and keeps the PLIs of
+ * each level instead.
+ */
+public class PLICache {
+
+    // The fraction of the budget that an eviction frees the cache down to, so that evictions stay rare
+    private static final double EVICTION_TARGET = 0.75;
+
+    // The maximum estimated size of all cached PLIs in bytes; the PLIs of single attributes count, but stay cached
+    @Getter
+    private final long budget;
+
+    private final Long2ObjectOpenHashMap<Entry> entries = new Long2ObjectOpenHashMap<>();
+
+    // The estimated size of all cached PLIs in bytes
+    @Getter
+    private long usedBytes;
+
+    // Scratch arrays for the cached subsets of a requested set and the entries of their missing attributes
+    private final Entry[] subsets = new Entry[Long.SIZE];
+    private final Entry[] complements = new Entry[Long.SIZE];
+
+    // The entry that was the probing side of the last intersection; only its record-to-cluster array is kept
+    private Entry lastProbing;
+
+    public PLICache(long budget) {
+        if (budget < 0)
+            throw new IllegalArgumentException("The budget must not be negative, but is " + budget);
+        this.budget = budget;
+    }
+
+    /**
+     * Returns the number of cached PLIs.
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    public boolean contains(long attributes) {
+        return this.entries.containsKey(attributes);
+    }
+
+    /**
+     * Adds the PLI of the given attribute set to this cache, which may evict other PLIs to stay within the budget.
+     * @param attributes The attribute set.
+     * @param pli The PLI of the attribute set.
+     */
+    public void put(long attributes, PositionListIndex pli) {
+        Entry previous = this.entries.put(attributes, new Entry(attributes, pli));
+        if (previous != null) {
+            this.usedBytes -= previous.bytes;
+            if (previous == this.lastProbing)
+                this.lastProbing = null;
+        }
+        this.usedBytes += pli.estimateMemorySize();
+        if (this.usedBytes > this.budget)
+            this.evict();
+    }
+
+    /**
+     * Returns the PLI of the given attribute set. If it is not cached, it is intersected from the cheapest pair of
+     * cached PLIs of the sets without one of its attributes, or of such a set and the missing attribute; if none of
+     * these sets is cached, one of them is derived recursively. The new PLI is cached, too.
+     * @param attributes The attribute set; the PLIs of all its single attributes need to be cached.
+     * @return The PLI of the attribute set.
+     */
+    public PositionListIndex get(long attributes) {
+        Entry entry = this.entries.get(attributes);
+        if (entry != null) {
+            entry.uses++;
+            return entry.pli;
+        }
+        if (Long.bitCount(attributes) < 2)
+            throw new IllegalArgumentException("The PLI of the attribute set " + Long.toBinaryString(attributes) + " must be put into the cache first");
+
+        // The cached sets without one attribute and the PLIs of the missing attributes
+        int numSubsets = 0;
+        for (long remaining = attributes; remaining != 0; remaining &= remaining - 1) {
+            long attribute = Long.lowestOneBit(remaining);
+            Entry subset = this.entries.get(attributes & ~attribute);
+            if (subset != null) {
+                this.subsets[numSubsets] = subset;
+                this.complements[numSubsets++] = this.single(attribute);
+            }
+        }
+
+        // Any two of the subsets cover the set, and so does each subset with its missing attribute
+        Entry probing = null;
+        Entry iterated = null;
+        long bestCost = Long.MAX_VALUE;
+        for (int i = 0; i < numSubsets; i++) {
+            Entry subset = this.subsets[i];
+            for (int j = -1; j < numSubsets; j++) {
+                if (i == j)
+                    continue;
+                Entry other = j < 0 ? this.complements[i] : this.subsets[j];
+                if (probeCost(subset) + other.pli.getNumClusteredRecords() < bestCost) {
+                    bestCost = probeCost(subset) + other.pli.getNumClusteredRecords();
+                    probing = subset;
+                    iterated = other;
+                }
+                if (j < 0 && probeCost(other) + subset.pli.getNumClusteredRecords() < bestCost) {
+                    bestCost = probeCost(other) + subset.pli.getNumClusteredRecords();
+                    probing = other;
+                    iterated = subset;
+                }
+            }
+        }
+        Arrays.fill(this.subsets, 0, numSubsets, null);
+        Arrays.fill(this.complements, 0, numSubsets, null);
+
+        if (probing == null) {
+            long last = Long.highestOneBit(attributes);
+            PositionListIndex prefix = this.get(attributes & ~last);
+            probing = this.entries.get(attributes & ~last);
+            iterated = this.single(last);
+            // The prefix may have been evicted right away if the budget is small
+            if (probing == null)
+                return this.intersect(attributes, prefix, iterated.pli);
+        }
+
+        probing.uses++;
+        iterated.uses++;
+        // Consecutive candidates often share a subset, e.g., the candidates of a block in the UCCProfiler, so the last
+        // probing side keeps its record-to-cluster array and all others are released
+        if (this.lastProbing != probing) {
+            if (this.lastProbing != null)
+                this.updateBytes(this.lastProbing, true);
+            this.lastProbing = probing;
+        }
+        PositionListIndex pli = probing.pli.intersect(iterated.pli);
+        this.updateBytes(probing, false);
+        this.put(attributes, pli);
+        return pli;
+    }
+
+    /**
+     * Updates the used bytes after the record-to-cluster array of the given entry was built or is released.
+     */
+    private void updateBytes(Entry entry, boolean release) {
+        if (release)
+            entry.pli.releaseRecordToCluster();
+        long bytes = entry.pli.estimateMemorySize();
+        this.usedBytes += bytes - entry.bytes;
+        entry.bytes = bytes;
+    }
+
+    private PositionListIndex intersect(long attributes, PositionListIndex probing, PositionListIndex iterated) {
+        PositionListIndex pli = probing.intersect(iterated);
+        probing.releaseRecordToCluster();
+        this.put(attributes, pli);
+        return pli;
+    }
+
+    /**
+     * Estimates the cost of probing the given entry's PLI in an intersection: a pass over the records to build its
+     * record-to-cluster array unless it is built already. Iterating the other side costs one step per clustered record.
+     */
+    private static long probeCost(Entry entry) {
+        return entry.pli.hasRecordToCluster() ? 0 : entry.pli.size();
+    }
+
+    private Entry single(long attribute) {
+        Entry entry = this.entries.get(attribute);
+        if (entry == null)
+            throw new IllegalArgumentException("The PLI of the attribute " + Long.numberOfTrailingZeros(attribute) + " must be put into the cache first");
+        return entry;
+    }
+
+    private void evict() {
+        // The record-to-cluster array is the cheapest to give up, because it is rebuilt in one pass
+        if (this.lastProbing != null) {
+            this.updateBytes(this.lastProbing, true);
+            this.lastProbing = null;
+        }
+
+        long target = (long) (EVICTION_TARGET * this.budget);
+        if (this.usedBytes > this.budget) {
+            List<Entry> evictable = new ArrayList<>();
+            for (Entry entry : this.entries.values())
+                if (Long.bitCount(entry.attributes) > 1)
+                    evictable.add(entry);
+            // The fewest uses per byte first; comparing the cross products avoids divisions
+            evictable.sort((entry1, entry2) -> Double.compare((double) entry1.uses * entry2.bytes, (double) entry2.uses * entry1.bytes));
+            for (int i = 0; i < evictable.size() && this.usedBytes > target; i++) {
+                this.entries.remove(evictable.get(i).attributes);
+                this.usedBytes -= evictable.get(i).bytes;
+            }
+
+            for (Entry entry : this.entries.values())
+                entry.uses = Math.max(1, entry.uses / 2);
+        }
+    }
+
+    /**
+     * A cached PLI together with its estimated size and its use count.
+     */
+    private static class Entry {
+
+        private final long attributes;
+
+        private final PositionListIndex pli;
+
+        // The size of the PLI when it was last estimated
+        private long bytes;
+
+        // The number of uses since the entry was added, counting the addition and halved whenever PLIs are evicted
+        private long uses;
+
+        private Entry(long attributes, PositionListIndex pli) {
+            this.attributes = attributes;
+            this.pli = pli;
+            this.bytes = pli.estimateMemorySize();
+            this.uses = 1;
+        }
+    }
+}
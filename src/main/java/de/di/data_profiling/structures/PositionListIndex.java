@@ -1,82 +1,259 @@
 package de.di.data_profiling.structures;
 
-import it.unimi.dsi.fastutil.ints.IntArrayList;
+import de.di.Column;
 import lombok.Getter;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
-@Getter
+/**
+ * A PositionListIndex (PLI) groups the records of a relation by their values in some attributes. Only clusters of at
+ * least two records are stored, because single records can never violate uniqueness. All clusters share one flat
+ * array of record ids: cluster i holds the records from clusterOffsets[i] to clusterOffsets[i + 1] - 1. The
+ * record-to-cluster array, which covers all records of the relation, is only built when the PLI is probed during an
+ * intersection and can be released afterwards, so that PLIs deep in the lattice take memory in proportion to their
+ * clustered records only.
+ */
 public class PositionListIndex {
 
+    // Rough JVM object layout sizes for the memory estimate, assuming compressed pointers
+    private static final int OBJECT_HEADER_BYTES = 16;
+    private static final int ARRAY_HEADER_BYTES = 16;
+
+    // The scratch arrays for intersections; one set per thread
+    private static final ThreadLocal<IntersectionBuffers> BUFFERS = ThreadLocal.withInitial(IntersectionBuffers::new);
+
+    @Getter
     private final AttributeList attributes;
-    private final List<IntArrayList> valueGroups;
-    private final int[] recordToGroup;
+
+    // The ids of all clustered records, cluster by cluster
+    private final int[] records;
+
+    // The start of every cluster in records, followed by the end of the last cluster
+    private final int[] clusterOffsets;
+
+    // The number of records of the relation, including the records in no cluster
+    private final int numRecords;
+
+    // The cluster of every record or -1 for records in no cluster; built on demand
+    private volatile int[] recordToCluster;
 
     public PositionListIndex(final AttributeList attributes, final String[] columnValues) {
+        this(attributes, Column.encode(columnValues));
+    }
+
+    public PositionListIndex(final AttributeList attributes, final Column column) {
+        int[] codes = column.getCodes();
+        int numDistinct = column.getNumDistinct();
+
+        // Count the occurrences of each dictionary code so that only non-singleton clusters are materialized
+        int[] counts = new int[numDistinct];
+        for (int code : codes)
+            counts[code]++;
+
+        int numClusters = 0;
+        int numClustered = 0;
+        for (int count : counts) {
+            if (count > 1) {
+                numClusters++;
+                numClustered += count;
+            }
+        }
+
+        // Turn the counts into the write positions of the clusters; unclustered codes get -1
+        int[] clusterOffsets = new int[numClusters + 1];
+        int cluster = 0;
+        int offset = 0;
+        for (int code = 0; code < numDistinct; code++) {
+            if (counts[code] > 1) {
+                clusterOffsets[cluster++] = offset;
+                int count = counts[code];
+                counts[code] = offset;
+                offset += count;
+            } else {
+                counts[code] = -1;
+            }
+        }
+        clusterOffsets[numClusters] = offset;
+
+        int[] records = new int[numClustered];
+        for (int record = 0; record < codes.length; record++)
+            if (counts[codes[record]] != -1)
+                records[counts[codes[record]]++] = record;
+
         this.attributes = attributes;
-        this.valueGroups = buildGroups(columnValues);
-        this.recordToGroup = mapRecordsToGroups(this.valueGroups, columnValues.length);
+        this.records = records;
+        this.clusterOffsets = clusterOffsets;
+        this.numRecords = codes.length;
     }
 
-    public PositionListIndex(final AttributeList attributes, final List<IntArrayList> groups, final int totalRecords) {
+    private PositionListIndex(final AttributeList attributes, final int[] records, final int[] clusterOffsets, final int numRecords) {
         this.attributes = attributes;
-        this.valueGroups = groups;
-        this.recordToGroup = mapRecordsToGroups(groups, totalRecords);
+        this.records = records;
+        this.clusterOffsets = clusterOffsets;
+        this.numRecords = numRecords;
     }
 
-    private List<IntArrayList> buildGroups(final String[] values) {
-        Map<String, IntArrayList> buckets = new HashMap<>();
-        for (int i = 0; i < values.length; i++) {
-            buckets.computeIfAbsent(values[i], k -> new IntArrayList()).add(i);
-        }
-        return buckets.values().stream()
-                .filter(group -> group.size() > 1)
-                .collect(Collectors.toList());
+    public boolean isUnique() {
+        return this.getNumClusters() == 0;
     }
 
-    private int[] mapRecordsToGroups(final List<IntArrayList> groups, int totalSize) {
-        int[] mapping = new int[totalSize];
-        Arrays.fill(mapping, -1);
-        for (int groupIndex = 0; groupIndex < groups.size(); groupIndex++) {
-            for (int recordId : groups.get(groupIndex)) {
-                mapping[recordId] = groupIndex;
-            }
+    /**
+     * Returns the number of records of the relation, including the records in no cluster.
+     */
+    public int size() {
+        return this.numRecords;
+    }
+
+    public int getNumClusters() {
+        return this.clusterOffsets.length - 1;
+    }
+
+    /**
+     * Returns the number of records in all clusters.
+     */
+    public int getNumClusteredRecords() {
+        return this.records.length;
+    }
+
+    /**
+     * Returns a copy of the record ids of the given cluster.
+     * @param cluster The index of the cluster.
+     * @return The records of the cluster in ascending order.
+     */
+    public int[] getCluster(int cluster) {
+        return Arrays.copyOfRange(this.records, this.clusterOffsets[cluster], this.clusterOffsets[cluster + 1]);
+    }
+
+    /**
+     * Estimates the heap size of this PLI in bytes, including the record-to-cluster array if it has been built and
+     * excluding the attribute list.
+     */
+    public long estimateMemorySize() {
+        // Four compressed references and one int
+        long bytes = OBJECT_HEADER_BYTES + 5L * Integer.BYTES;
+        bytes += ARRAY_HEADER_BYTES + (long) Integer.BYTES * this.records.length;
+        bytes += ARRAY_HEADER_BYTES + (long) Integer.BYTES * this.clusterOffsets.length;
+        if (this.recordToCluster != null)
+            bytes += ARRAY_HEADER_BYTES + (long) Integer.BYTES * this.numRecords;
+        return bytes;
+    }
+
+    /**
+     * Returns the cluster of every record or -1 for the records in no cluster. The array is built on the first call
+     * and kept until releaseRecordToCluster() is called.
+     */
+    public int[] getRecordToCluster() {
+        int[] mapping = this.recordToCluster;
+        if (mapping == null) {
+            mapping = new int[this.numRecords];
+            Arrays.fill(mapping, -1);
+            for (int cluster = 0; cluster < this.getNumClusters(); cluster++)
+                for (int i = this.clusterOffsets[cluster]; i < this.clusterOffsets[cluster + 1]; i++)
+                    mapping[this.records[i]] = cluster;
+            this.recordToCluster = mapping;
         }
         return mapping;
     }
 
-    public boolean isUnique() {
-        return this.valueGroups.isEmpty();
+    /**
+     * Checks whether the record-to-cluster array is built, i.e., whether probing this PLI needs no extra pass.
+     */
+    public boolean hasRecordToCluster() {
+        return this.recordToCluster != null;
     }
 
-    public int size() {
-        return this.recordToGroup.length;
+    /**
+     * Drops the record-to-cluster array, e.g., when this PLI will not be probed again.
+     */
+    public void releaseRecordToCluster() {
+        this.recordToCluster = null;
     }
 
+    /**
+     * Intersects this PLI with the other one: two records share a cluster of the result iff they share a cluster in
+     * both PLIs. This PLI is the probing side: every cluster of the other PLI is split by looking up the cluster of
+     * each of its records in this PLI's record-to-cluster array, which is built if necessary and kept, so that
+     * intersecting one PLI with many others builds it only once. The records are counted per probed cluster in
+     * reusable scratch arrays, so the intersection allocates nothing but the resulting PLI.
+     * @param other The PLI to intersect with; it needs to cover the same records.
+     * @return The PLI of the union of both attribute lists.
+     */
     public PositionListIndex intersect(PositionListIndex other) {
-        List<IntArrayList> intersectedGroups = findOverlapGroups(this.valueGroups, other.recordToGroup);
+        int[] probe = this.getRecordToCluster();
+        IntersectionBuffers buffers = BUFFERS.get();
+        buffers.ensureCapacity(this.getNumClusters(), other.records.length);
+        int[] counts = buffers.counts;
+        int[] touched = buffers.touched;
+        int[] records = buffers.records;
+        int[] clusterOffsets = buffers.clusterOffsets;
+
+        int numClusters = 0;
+        int numClustered = 0;
+        for (int cluster = 0; cluster < other.getNumClusters(); cluster++) {
+            int from = other.clusterOffsets[cluster];
+            int to = other.clusterOffsets[cluster + 1];
+
+            // Count the records of the cluster per probed cluster
+            int numTouched = 0;
+            for (int i = from; i < to; i++) {
+                int probed = probe[other.records[i]];
+                if (probed != -1 && counts[probed]++ == 0)
+                    touched[numTouched++] = probed;
+            }
+
+            // Only splits with more than one record become clusters; the counts turn into their write positions
+            for (int t = 0; t < numTouched; t++) {
+                int probed = touched[t];
+                if (counts[probed] > 1) {
+                    clusterOffsets[numClusters++] = numClustered;
+                    int count = counts[probed];
+                    counts[probed] = numClustered;
+                    numClustered += count;
+                } else {
+                    counts[probed] = -1;
+                }
+            }
+            for (int i = from; i < to; i++) {
+                int probed = probe[other.records[i]];
+                if (probed != -1 && counts[probed] != -1)
+                    records[counts[probed]++] = other.records[i];
+            }
+
+            for (int t = 0; t < numTouched; t++)
+                counts[touched[t]] = 0;
+        }
+        clusterOffsets[numClusters] = numClustered;
+
         AttributeList mergedAttributes = this.attributes.union(other.getAttributes());
-        return new PositionListIndex(mergedAttributes, intersectedGroups, this.size());
+        return new PositionListIndex(mergedAttributes, Arrays.copyOf(records, numClustered),
+                Arrays.copyOf(clusterOffsets, numClusters + 1), this.numRecords);
     }
 
-    private List<IntArrayList> findOverlapGroups(List<IntArrayList> sourceGroups, int[] otherRecordGroupMap) {
-        Map<String, IntArrayList> groupingMap = new HashMap<>();
+    /**
+     * The scratch arrays of an intersection; counts is indexed by the cluster ids of the probed PLI and all zero
+     * between uses.
+     */
+    private static class IntersectionBuffers {
+
+        // The number of records of the current cluster per probed cluster, then the write position of its split
+        private int[] counts = new int[0];
 
-        for (IntArrayList group : sourceGroups) {
-            for (int record : group) {
-                int otherGroupId = otherRecordGroupMap[record];
-                if (otherGroupId == -1) continue;
+        // The probed clusters that the current cluster's records hit
+        private int[] touched = new int[0];
 
-                // Construct a flat composite key to identify intersections
-                String key = group.hashCode() + "-" + otherGroupId;
-                groupingMap.computeIfAbsent(key, k -> new IntArrayList()).add(record);
+        // The records and the cluster offsets of the result
+        private int[] records = new int[0];
+        private int[] clusterOffsets = new int[1];
+
+        private void ensureCapacity(int numProbedClusters, int numRecords) {
+            if (this.counts.length < numProbedClusters)
+                this.counts = new int[numProbedClusters];
+            if (this.records.length < numRecords) {
+                this.touched = new int[numRecords];
+                this.records = new int[numRecords];
+                // Every cluster has at least two records
+                this.clusterOffsets = new int[numRecords / 2 + 1];
             }
         }
-
-        // Keep only valid (stripped) clusters with size > 1
-        return groupingMap.values().stream()
-                .filter(g -> g.size() > 1)
-                .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,85 @@
+package de.di.duplicate_detection;
+
+import de.di.Relation;
+import de.di.duplicate_detection.structures.Duplicate;
+import de.di.duplicate_detection.structures.PreparedRecords;
+import de.di.similarity_measures.helper.LSHIndex;
+import de.di.similarity_measures.helper.MinHash;
+import de.di.similarity_measures.helper.Tokenizer;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Detects duplicates by comparing only the record pairs that an LSHIndex proposes. Every record is represented by the
+ * token set of its blocking key values; records whose token sets are likely more similar than the blocking threshold
+ * share an LSH bucket and are then compared with the record comparator. Unlike the sorted neighborhood method, this
+ * finds similar records regardless of how far apart their sorting keys are, and unlike the full comparison it does not
+ * compare all pairs.
+ */
+public class LSHBlocking {
+
+    private final Tokenizer tokenizer;
+    private final MinHash minHash;
+
+    // The token set similarity above which record pairs should become candidates
+    private final double blockingThreshold;
+
+    public LSHBlocking(Tokenizer tokenizer, int numHashFunctions, double blockingThreshold) {
+        this.tokenizer = tokenizer;
+        this.minHash = new MinHash(numHashFunctions);
+        this.blockingThreshold = blockingThreshold;
+    }
+
+    /**
+     * Detects the duplicates among the records of the given relation, using the threshold of the record comparator.
+     * @param relation The relation whose records are to be deduplicated.
+     * @param blockingKeys The attributes whose values form the token sets of the records.
+     * @param recordComparator The comparator that verifies the candidate pairs.
+     * @return The verified duplicates.
+     */
+    public Set<Duplicate> detectDuplicates(Relation relation, int[] blockingKeys, RecordComparator recordComparator) {
+        return this.detectDuplicates(relation, blockingKeys, recordComparator, recordComparator.getThreshold());
+    }
+
+    /**
+     * Detects the duplicates among the records of the given relation.
+     * @param relation The relation whose records are to be deduplicated.
+     * @param blockingKeys The attributes whose values form the token sets of the records.
+     * @param recordComparator The comparator that verifies the candidate pairs.
+     * @param threshold The minimum similarity of a duplicate.
+     * @return The verified duplicates.
+     */
+    public Set<Duplicate> detectDuplicates(Relation relation, int[] blockingKeys, RecordComparator recordComparator, double threshold) {
+        String[][] records = relation.getRecords();
+        LSHIndex index = LSHIndex.forThreshold(this.blockingThreshold, this.minHash.getNumHashFunctions());
+
+        LongArrayList codes = new LongArrayList();
+        LongArrayList valueCodes = new LongArrayList();
+        int[] signature = new int[this.minHash.getNumHashFunctions()];
+        for (int record = 0; record < records.length; record++) {
+            codes.clear();
+            for (int key : blockingKeys) {
+                if (key < records[record].length) {
+                    this.tokenizer.tokenize(records[record][key] == null ? "" : records[record][key], valueCodes);
+                    codes.addAll(valueCodes);
+                }
+            }
+            // Records without any tokens have no signature and cannot be blocked
+            if (this.minHash.signature(codes, false, signature))
+                index.add(record, signature);
+        }
+
+        Set<Duplicate> duplicates = new HashSet<>();
+        PreparedRecords preparedRecords = recordComparator.prepare(records);
+        for (long pair : index.candidatePairs()) {
+            int record1 = LSHIndex.firstOf(pair);
+            int record2 = LSHIndex.secondOf(pair);
+            double similarity = recordComparator.compare(preparedRecords, record1, record2, threshold);
+            if (similarity >= threshold)
+                duplicates.add(new Duplicate(record1, record2, similarity, relation));
+        }
+        return duplicates;
+    }
+}
@@ -1,10 +1,13 @@
 package de.di.duplicate_detection;
 
 import de.di.duplicate_detection.structures.AttrSimWeight;
+import de.di.duplicate_detection.structures.PreparedRecords;
+import de.di.similarity_measures.PreparableSimilarityMeasure;
 import de.di.similarity_measures.SimilarityMeasure;
 
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class RecordComparator {
 
@@ -17,6 +20,8 @@ public class RecordComparator {
     // or not. The threshold should fit the attrSimWeights-based similarity scoring of this RecordComparator;
     private double threshold;
 
+    private static final double MIN_SIMILARITY_SLACK = 1e-9;
+
     public RecordComparator(List<AttrSimWeight> attrSimWeights, double threshold) {
         this.attrSimWeights = this.normalize(attrSimWeights);
         this.threshold = threshold;
@@ -71,6 +76,151 @@ public class RecordComparator {
     }
 
 
+    /**
+     * Compares the two provided tuples like compare(tuple1, tuple2), but stops as soon as the tuples cannot reach the
+     * given minimum similarity anymore. Before each attribute is compared, the similarity that this attribute needs at
+     * least is derived from the similarities so far, assuming that all remaining attributes match perfectly, and the
+     * similarity measure is asked to answer only that question.
+     * @param tuple1 The first tuple for the comparison.
+     * @param tuple2 The second tuple for the comparison.
+     * @param minSimilarity The minimum similarity of interest.
+     * @return The exact similarity of the two tuples if it is at least minSimilarity, otherwise
+     * SimilarityMeasure.BELOW_THRESHOLD.
+     */
+    public double compare(String[] tuple1, String[] tuple2, double minSimilarity) {
+        double remainingWeight = 0;
+        for (AttrSimWeight attrSimWeight : attrSimWeights)
+            if (attrSimWeight.getAttribute() < tuple1.length && attrSimWeight.getAttribute() < tuple2.length)
+                remainingWeight += attrSimWeight.getWeight();
+
+        double recordSimilarity = 0;
+
+        for (AttrSimWeight attrSimWeight : attrSimWeights) {
+            int attributeIndex = attrSimWeight.getAttribute();
+            SimilarityMeasure similarityMeasure = attrSimWeight.getSimilarityMeasure();
+            double weight = attrSimWeight.getWeight();
+
+            if (attributeIndex >= tuple1.length || attributeIndex >= tuple2.length) {
+                continue;
+            }
+            remainingWeight -= weight;
+
+            double similarity;
+            if (weight > 0) {
+                // The slack absorbs rounding errors of the weight sums, so that no qualifying pair is cut off
+                double minAttributeSimilarity = (minSimilarity - recordSimilarity - remainingWeight) / weight - MIN_SIMILARITY_SLACK;
+                similarity = similarityMeasure.calculate(tuple1[attributeIndex], tuple2[attributeIndex], minAttributeSimilarity);
+                if (similarity < minAttributeSimilarity)
+                    return SimilarityMeasure.BELOW_THRESHOLD;
+            } else {
+                similarity = similarityMeasure.calculate(tuple1[attributeIndex], tuple2[attributeIndex]);
+            }
+
+            recordSimilarity += similarity * weight;
+        }
+
+        return recordSimilarity >= minSimilarity ? recordSimilarity : SimilarityMeasure.BELOW_THRESHOLD;
+    }
+
+    /**
+     * Creates the cache of prepared values for the given records, which compare(PreparedRecords, int, int, double)
+     * uses instead of preparing the values of a record again for each of its comparisons.
+     * @param records The records that are going to be compared.
+     * @return The (still empty) cache of prepared values.
+     */
+    public PreparedRecords prepare(String[][] records) {
+        return new PreparedRecords(records, this.attrSimWeights);
+    }
+
+    /**
+     * Compares two of the prepared records like compare(tuple1, tuple2, minSimilarity). Attributes whose similarity
+     * measure is a PreparableSimilarityMeasure are compared on their cached prepared values.
+     * @param records The prepared records, created by prepare(String[][]) of this RecordComparator.
+     * @param record1 The index of the first record.
+     * @param record2 The index of the second record.
+     * @param minSimilarity The minimum similarity of interest.
+     * @return The exact similarity of the two records if it is at least minSimilarity, otherwise
+     * SimilarityMeasure.BELOW_THRESHOLD.
+     */
+    @SuppressWarnings("unchecked")
+    public double compare(PreparedRecords records, int record1, int record2, double minSimilarity) {
+        String[] tuple1 = records.getRecords()[record1];
+        String[] tuple2 = records.getRecords()[record2];
+
+        double remainingWeight = 0;
+        for (AttrSimWeight attrSimWeight : attrSimWeights)
+            if (attrSimWeight.getAttribute() < tuple1.length && attrSimWeight.getAttribute() < tuple2.length)
+                remainingWeight += attrSimWeight.getWeight();
+
+        double recordSimilarity = 0;
+
+        for (int i = 0; i < attrSimWeights.size(); i++) {
+            AttrSimWeight attrSimWeight = attrSimWeights.get(i);
+            int attributeIndex = attrSimWeight.getAttribute();
+            double weight = attrSimWeight.getWeight();
+
+            if (attributeIndex >= tuple1.length || attributeIndex >= tuple2.length) {
+                continue;
+            }
+            remainingWeight -= weight;
+
+            double minAttributeSimilarity = weight > 0 ? (minSimilarity - recordSimilarity - remainingWeight) / weight - MIN_SIMILARITY_SLACK : Double.NEGATIVE_INFINITY;
+            double similarity;
+            if (records.isPrepared(i)) {
+                PreparableSimilarityMeasure<Object> similarityMeasure = (PreparableSimilarityMeasure<Object>) attrSimWeight.getSimilarityMeasure();
+                similarity = similarityMeasure.calculatePrepared(records.get(i, record1), records.get(i, record2), minAttributeSimilarity);
+            } else {
+                similarity = attrSimWeight.getSimilarityMeasure().calculate(tuple1[attributeIndex], tuple2[attributeIndex], minAttributeSimilarity);
+            }
+            if (similarity < minAttributeSimilarity)
+                return SimilarityMeasure.BELOW_THRESHOLD;
+
+            recordSimilarity += similarity * weight;
+        }
+
+        return recordSimilarity >= minSimilarity ? recordSimilarity : SimilarityMeasure.BELOW_THRESHOLD;
+    }
+
+    /**
+     * Compares the given tuple with all candidate tuples like compare(tuple1, tuple2). The values of every tuple are
+     * prepared only once, and the candidates are spread over the common fork-join pool.
+     * @param tuple The query tuple.
+     * @param candidates The candidate tuples.
+     * @return The similarity of the query tuple to each candidate tuple.
+     */
+    public double[] compare(String[] tuple, String[][] candidates) {
+        return this.compare(new String[][]{tuple}, candidates)[0];
+    }
+
+    /**
+     * Compares all pairs of tuples of the two arrays like compare(tuple1, tuple2). The values of every tuple are
+     * prepared only once, and the rows are spread over the common fork-join pool.
+     * @param tuples1 The tuples of the rows.
+     * @param tuples2 The tuples of the columns.
+     * @return The matrix whose cell [i][j] holds the similarity of tuples1[i] and tuples2[j].
+     */
+    public double[][] compare(String[][] tuples1, String[][] tuples2) {
+        String[][] tuples = new String[tuples1.length + tuples2.length][];
+        System.arraycopy(tuples1, 0, tuples, 0, tuples1.length);
+        System.arraycopy(tuples2, 0, tuples, tuples1.length, tuples2.length);
+        PreparedRecords records = this.prepare(tuples).prepareAll();
+
+        double[][] similarities = new double[tuples1.length][tuples2.length];
+        IntStream.range(0, tuples1.length).parallel().forEach(i -> {
+            for (int j = 0; j < tuples2.length; j++)
+                similarities[i][j] = this.compare(records, i, tuples1.length + j, Double.NEGATIVE_INFINITY);
+        });
+        return similarities;
+    }
+
+    /**
+     * Returns the similarity threshold of duplicates.
+     * @return The minimum similarity of two duplicate records.
+     */
+    public double getThreshold() {
+        return this.threshold;
+    }
+
     /**
      * Decides if the provided similarity is higher than the internal similarity threshold and, therefore,
      * characterizes a duplicate.
@@ -1,24 +1,23 @@
 package de.di.duplicate_detection;
 
+import de.di.Column;
+import de.di.RecordSource;
 import de.di.Relation;
 import de.di.duplicate_detection.structures.AttrSimWeight;
 import de.di.duplicate_detection.structures.Duplicate;
+import de.di.duplicate_detection.structures.PreparedRecords;
+import de.di.similarity_measures.CachingSimilarityMeasure;
 import de.di.similarity_measures.Jaccard;
 import de.di.similarity_measures.Levenshtein;
 import de.di.similarity_measures.helper.Tokenizer;
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 
 import java.util.*;
 
 public class SortedNeighborhood {
 
-    @Data
-    @AllArgsConstructor
-    private static class Record {
-        private int index;
-        private String[] values;
-    }
+    // The number of value pairs whose Levenshtein similarity the suggested record comparators remember per attribute
+    private static final int SIMILARITY_CACHE_CAPACITY = 1 << 16;
 
     // Original method signature for backward compatibility
     public Set<Duplicate> detectDuplicates(Relation relation, int[] sortingKeys,
@@ -32,28 +31,24 @@ public class SortedNeighborhood {
                                            int windowSize, RecordComparator recordComparator,
                                            double threshold) {
         Set<Duplicate> duplicates = new HashSet<>();
+        String[][] records = relation.getRecords();
 
-        // Create indexable records
-        Record[] records = new Record[relation.getRecords().length];
-        for (int i = 0; i < relation.getRecords().length; i++)
-            records[i] = new Record(i, relation.getRecords()[i]);
+        Column[] keyColumns = new Column[sortingKeys.length];
+        for (int k = 0; k < sortingKeys.length; k++)
+            keyColumns[k] = relation.getColumn(sortingKeys[k]);
 
-        // Process each sorting key
-        for (int sortingKey : sortingKeys) {
-            // Sort by current key
-            Arrays.sort(records, (r1, r2) -> {
-                String val1 = r1.values[sortingKey];
-                String val2 = r2.values[sortingKey];
-                return val1.compareTo(val2);
-            });
+        // Every record is compared up to 2 * windowSize times per pass, but its values are tokenized only once
+        PreparedRecords preparedRecords = recordComparator.prepare(records);
 
+        // Process each sorting key
+        for (int[] order : sortOrders(keyColumns, records.length)) {
             // Compare records within window
-            for (int i = 0; i < records.length; i++) {
-                for (int j = i + 1; j < Math.min(i + windowSize + 1, records.length); j++) {
-                    double similarity = recordComparator.compare(records[i].values, records[j].values);
+            for (int i = 0; i < order.length; i++) {
+                for (int j = i + 1; j < Math.min(i + windowSize + 1, order.length); j++) {
+                    double similarity = recordComparator.compare(preparedRecords, order[i], order[j], threshold);
                     if (similarity >= threshold) {
-                        int minIndex = Math.min(records[i].index, records[j].index);
-                        int maxIndex = Math.max(records[i].index, records[j].index);
+                        int minIndex = Math.min(order[i], order[j]);
+                        int maxIndex = Math.max(order[i], order[j]);
                         duplicates.add(new Duplicate(minIndex, maxIndex, similarity, relation));
                     }
                 }
@@ -63,6 +58,58 @@ public class SortedNeighborhood {
         return duplicates;
     }
 
+    /**
+     * Extracts the sorting keys in a single pass over the given source and returns the record order of every sorting
+     * pass. Only the dictionary-encoded key columns are held in memory, never the records themselves.
+     * @param source The source of the records; it is consumed, but not closed.
+     * @param sortingKeys The attributes to sort by, one sorting pass per attribute.
+     * @return One permutation of record indexes per sorting key.
+     */
+    public static int[][] extractSortOrders(RecordSource source, int[] sortingKeys) {
+        Column[] keyColumns = Column.encode(source, sortingKeys);
+        return sortOrders(keyColumns, keyColumns.length == 0 ? 0 : keyColumns[0].size());
+    }
+
+    /**
+     * Sorts the records by each key column in turn. Every pass sorts stably, starting from the order of the previous
+     * pass, so records with equal keys keep the relative order that the previous pass gave them.
+     * @param keyColumns The dictionary-encoded key columns in sorting order.
+     * @param numRecords The number of records.
+     * @return One permutation of record indexes per key column.
+     */
+    private static int[][] sortOrders(Column[] keyColumns, int numRecords) {
+        int[][] orders = new int[keyColumns.length][];
+        int[] order = new int[numRecords];
+        for (int i = 0; i < numRecords; i++)
+            order[i] = i;
+        for (int k = 0; k < keyColumns.length; k++)
+            orders[k] = order = sortByKey(order, keyColumns[k]);
+        return orders;
+    }
+
+    private static int[] sortByKey(int[] order, Column keyColumn) {
+        // Sort only the distinct key values, then counting-sort the records by the rank of their value
+        String[] dictionary = keyColumn.getDictionary();
+        int[] sortedCodes = new int[dictionary.length];
+        for (int code = 0; code < dictionary.length; code++)
+            sortedCodes[code] = code;
+        IntArrays.quickSort(sortedCodes, (c1, c2) -> dictionary[c1].compareTo(dictionary[c2]));
+        int[] rank = new int[dictionary.length];
+        for (int i = 0; i < sortedCodes.length; i++)
+            rank[sortedCodes[i]] = i;
+
+        int[] codes = keyColumn.getCodes();
+        int[] starts = new int[dictionary.length + 1];
+        for (int record : order)
+            starts[rank[codes[record]] + 1]++;
+        for (int i = 1; i < starts.length; i++)
+            starts[i] += starts[i - 1];
+        int[] sorted = new int[order.length];
+        for (int record : order)
+            sorted[starts[rank[codes[record]]]++] = record;
+        return sorted;
+    }
+
     public static RecordComparator suggestRecordComparatorFor(Relation relation) {
         List<AttrSimWeight> attrSimWeights = new ArrayList<>(relation.getAttributes().length);
         double threshold = 0.85;
@@ -72,7 +119,8 @@ public class SortedNeighborhood {
             double weight = 1.0 / relation.getAttributes().length;
 
             if (attributeName.contains("name") || attributeName.contains("title")) {
-                attrSimWeights.add(new AttrSimWeight(i, new Levenshtein(true), weight));
+                // Names and titles repeat across records and sorting passes, and their edit distances are expensive
+                attrSimWeights.add(new AttrSimWeight(i, new CachingSimilarityMeasure(new Levenshtein(true), SIMILARITY_CACHE_CAPACITY), weight));
             }
             else if (attributeName.contains("address") || attributeName.contains("street")) {
                 attrSimWeights.add(new AttrSimWeight(i, new Jaccard(new Tokenizer(3, true), true), weight));
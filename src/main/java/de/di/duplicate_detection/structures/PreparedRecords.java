@@ -0,0 +1,76 @@
+package de.di.duplicate_detection.structures;
+
+import de.di.similarity_measures.PreparableSimilarityMeasure;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * PreparedRecords cache the prepared values of a set of records, one per record and AttrSimWeight whose similarity
+ * measure is a PreparableSimilarityMeasure. Values are prepared lazily on their first use, so every value is
+ * tokenized at most once, no matter how often its record is compared. The lazy filling is not synchronized, so
+ * PreparedRecords that are shared across threads must be filled with prepareAll() first.
+ */
+public class PreparedRecords {
+
+    @Getter
+    private final String[][] records;
+
+    private final List<AttrSimWeight> attrSimWeights;
+
+    // The prepared values per AttrSimWeight and record; null for measures that cannot prepare their values
+    private final Object[][] preparedValues;
+
+    public PreparedRecords(String[][] records, List<AttrSimWeight> attrSimWeights) {
+        this.records = records;
+        this.attrSimWeights = attrSimWeights;
+        this.preparedValues = new Object[attrSimWeights.size()][];
+        for (int i = 0; i < attrSimWeights.size(); i++)
+            if (attrSimWeights.get(i).getSimilarityMeasure() instanceof PreparableSimilarityMeasure)
+                this.preparedValues[i] = new Object[records.length];
+    }
+
+    /**
+     * Returns true if the values of the given AttrSimWeight are prepared.
+     * @param attrSimWeightIndex The index of the AttrSimWeight.
+     * @return True if get(attrSimWeightIndex, record) returns prepared values.
+     */
+    public boolean isPrepared(int attrSimWeightIndex) {
+        return this.preparedValues[attrSimWeightIndex] != null;
+    }
+
+    /**
+     * Returns the prepared value of the given record for the given AttrSimWeight.
+     * @param attrSimWeightIndex The index of the AttrSimWeight, whose measure must be preparable.
+     * @param record The index of the record.
+     * @return The prepared value.
+     */
+    public Object get(int attrSimWeightIndex, int record) {
+        Object prepared = this.preparedValues[attrSimWeightIndex][record];
+        if (prepared == null) {
+            AttrSimWeight attrSimWeight = this.attrSimWeights.get(attrSimWeightIndex);
+            prepared = ((PreparableSimilarityMeasure<?>) attrSimWeight.getSimilarityMeasure()).prepare(this.records[record][attrSimWeight.getAttribute()]);
+            this.preparedValues[attrSimWeightIndex][record] = prepared;
+        }
+        return prepared;
+    }
+
+    /**
+     * Prepares all values of all records that contain the respective attribute, spreading the records over the common
+     * fork-join pool. Afterwards, get() only reads and can be called from any thread.
+     * @return These PreparedRecords.
+     */
+    public PreparedRecords prepareAll() {
+        for (int i = 0; i < this.preparedValues.length; i++) {
+            if (this.isPrepared(i)) {
+                int attrSimWeightIndex = i;
+                int attribute = this.attrSimWeights.get(i).getAttribute();
+                IntStream.range(0, this.records.length).parallel()
+                        .filter(record -> attribute < this.records[record].length)
+                        .forEach(record -> this.get(attrSimWeightIndex, record));
+            }
+        }
+        return this;
+    }
+}
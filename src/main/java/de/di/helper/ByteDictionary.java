@@ -0,0 +1,147 @@
+package de.di.helper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A ByteDictionary assigns dense integer codes to encoded byte sequences. It is an open-addressing hash table whose
+ * keys live in a single byte arena, so looking up a value that is already known allocates nothing; only the first
+ * occurrence of a value is copied into the arena and decoded into a String.
+ */
+class ByteDictionary {
+
+    private final CharsetDecoder decoder;
+
+    // All distinct keys back to back; the key of code c occupies arena[offsets[c], offsets[c + 1])
+    private byte[] arena = new byte[256];
+    private int[] offsets = new int[17];
+    private int[] hashes = new int[16];
+
+    // The hash table slots; each slot holds code + 1 or 0 if the slot is empty
+    private int[] slots = new int[32];
+
+    private final List<String> values = new ArrayList<>();
+
+    ByteDictionary(CharsetDecoder decoder) {
+        this.decoder = decoder;
+    }
+
+    /**
+     * Returns the number of distinct values in this dictionary.
+     * @return The number of distinct values in this dictionary.
+     */
+    int size() {
+        return this.values.size();
+    }
+
+    /**
+     * Returns the decoded value of the given code.
+     * @param code A code that was handed out by this dictionary.
+     * @return The decoded value of the code.
+     */
+    String getValue(int code) {
+        return this.values.get(code);
+    }
+
+    /**
+     * Returns all decoded values of this dictionary ordered by their codes.
+     * @return All decoded values of this dictionary.
+     */
+    String[] getValues() {
+        return this.values.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the code of the provided byte sequence, adding the sequence to the dictionary if it is new.
+     * @param bytes The buffer holding the encoded value.
+     * @param length The length of the value, which starts at index 0 of the buffer.
+     * @return The dictionary code of the value.
+     * @throws CharacterCodingException If a new value is not a valid byte sequence in the dictionary's charset.
+     */
+    int encode(byte[] bytes, int length) throws CharacterCodingException {
+        return this.encode(bytes, 0, length, hash(bytes, 0, length), null);
+    }
+
+    /**
+     * Adds all values of the other dictionary to this dictionary in the other dictionary's code order. Values are not
+     * decoded again, because the decoded Strings are taken over from the other dictionary.
+     * @param other The dictionary whose values should be added.
+     * @return A translation table that maps every code of the other dictionary to the code in this dictionary.
+     * @throws CharacterCodingException Never, because all values have been decoded by the other dictionary already.
+     */
+    int[] addAll(ByteDictionary other) throws CharacterCodingException {
+        int[] translation = new int[other.size()];
+        for (int code = 0; code < translation.length; code++) {
+            int from = other.offsets[code];
+            int length = other.offsets[code + 1] - from;
+            translation[code] = this.encode(other.arena, from, length, other.hashes[code], other.values.get(code));
+        }
+        return translation;
+    }
+
+    private int encode(byte[] bytes, int from, int length, int hash, String value) throws CharacterCodingException {
+        int mask = this.slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = this.slots[slot];
+            if (entry == 0)
+                return this.insert(slot, hash, bytes, from, length, value);
+            int code = entry - 1;
+            if (this.hashes[code] == hash && this.keyEquals(code, bytes, from, length))
+                return code;
+        }
+    }
+
+    private boolean keyEquals(int code, byte[] bytes, int from, int length) {
+        return Arrays.equals(this.arena, this.offsets[code], this.offsets[code + 1], bytes, from, from + length);
+    }
+
+    private int insert(int slot, int hash, byte[] bytes, int from, int length, String value) throws CharacterCodingException {
+        int code = this.values.size();
+        this.values.add(value != null ? value : this.decoder.decode(ByteBuffer.wrap(bytes, from, length)).toString());
+
+        if (code == this.hashes.length) {
+            this.hashes = Arrays.copyOf(this.hashes, this.hashes.length * 2);
+            this.offsets = Arrays.copyOf(this.offsets, this.hashes.length + 1);
+        }
+        int start = this.offsets[code];
+        if (start + length > this.arena.length)
+            this.arena = Arrays.copyOf(this.arena, Math.max(this.arena.length * 2, start + length));
+        System.arraycopy(bytes, from, this.arena, start, length);
+        this.offsets[code + 1] = start + length;
+        this.hashes[code] = hash;
+        this.slots[slot] = code + 1;
+
+        // Keep the load factor at or below 1/2
+        if (2 * (code + 1) > this.slots.length)
+            this.rehash();
+        return code;
+    }
+
+    private void rehash() {
+        int[] newSlots = new int[this.slots.length * 2];
+        int mask = newSlots.length - 1;
+        for (int code = 0; code < this.values.size(); code++) {
+            int slot = this.hashes[code] & mask;
+            while (newSlots[slot] != 0)
+                slot = (slot + 1) & mask;
+            newSlots[slot] = code + 1;
+        }
+        this.slots = newSlots;
+    }
+
+    private static int hash(byte[] bytes, int from, int length) {
+        int hash = 1;
+        for (int i = from; i < from + length; i++)
+            hash = 31 * hash + bytes[i];
+        // Mix the bits (murmur3 finalizer), because the table is indexed with the low bits only
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,188 @@
+package de.di.helper;
+
+import de.di.Column;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A ColumnarTable collects the fields of parsed CSV records directly as dictionary codes, one dictionary per field
+ * position. Field values arrive as encoded bytes and are decoded into Strings only once per distinct value. The
+ * optional header record is the only record whose fields are decoded individually.
+ */
+public class ColumnarTable {
+
+    private static final byte[] EMPTY_VALUE = new byte[0];
+
+    private final CharsetDecoder decoder;
+
+    // The header fields, if the first record is a header and it has not been completed yet, otherwise null
+    private List<String> pendingHeader;
+    private String[] header;
+
+    // One dictionary and one code list per field position; every code list holds exactly one code per record
+    private final List<ByteDictionary> dictionaries = new ArrayList<>();
+    private final List<IntArrayList> codes = new ArrayList<>();
+
+    // The number of fields of each record; records may be ragged like in the original CSV file
+    private final IntArrayList recordLengths = new IntArrayList();
+
+    private int currentField = 0;
+
+    public ColumnarTable(Charset charset, boolean hasHeader) {
+        this.decoder = charset.newDecoder();
+        this.pendingHeader = hasHeader ? new ArrayList<>() : null;
+    }
+
+    /**
+     * Adds the next field to the current record. Null fields are kept only in the header; in all other records they
+     * are stored as empty strings.
+     * @param bytes The buffer holding the encoded field value.
+     * @param length The length of the field value, which starts at index 0 of the buffer.
+     * @param isNull Flag to indicate whether the field is a null field, i.e., an empty and unquoted field.
+     * @throws CharacterCodingException If the field is not a valid byte sequence in the table's charset.
+     */
+    void addField(byte[] bytes, int length, boolean isNull) throws CharacterCodingException {
+        if (this.pendingHeader != null) {
+            this.pendingHeader.add(isNull ? null : this.decoder.decode(ByteBuffer.wrap(bytes, 0, length)).toString());
+            return;
+        }
+
+        if (this.currentField == this.dictionaries.size())
+            this.addFieldPosition();
+        this.codes.get(this.currentField).add(this.dictionaries.get(this.currentField).encode(bytes, length));
+        this.currentField++;
+    }
+
+    /**
+     * Completes the current record.
+     * @throws CharacterCodingException Never, because the empty value is a valid byte sequence in all charsets.
+     */
+    void endRecord() throws CharacterCodingException {
+        if (this.pendingHeader != null) {
+            this.header = this.pendingHeader.toArray(new String[0]);
+            this.pendingHeader = null;
+            return;
+        }
+
+        this.recordLengths.add(this.currentField);
+        // Field positions that this record does not have are filled with the empty value to keep all code lists aligned
+        for (int field = this.currentField; field < this.dictionaries.size(); field++)
+            this.codes.get(field).add(this.dictionaries.get(field).encode(EMPTY_VALUE, 0));
+        this.currentField = 0;
+    }
+
+    private void addFieldPosition() throws CharacterCodingException {
+        ByteDictionary dictionary = new ByteDictionary(this.decoder.charset().newDecoder());
+        IntArrayList fieldCodes = new IntArrayList(Math.max(16, this.recordLengths.size() + 1));
+        // All previous records did not have this field position
+        if (this.recordLengths.size() > 0) {
+            int emptyCode = dictionary.encode(EMPTY_VALUE, 0);
+            for (int i = 0; i < this.recordLengths.size(); i++)
+                fieldCodes.add(emptyCode);
+        }
+        this.dictionaries.add(dictionary);
+        this.codes.add(fieldCodes);
+    }
+
+    /**
+     * Concatenates the records of the given tables in the given order. The first table provides the header. The
+     * dictionaries of the parts are merged such that the codes of the result are again assigned in order of first
+     * occurrence, i.e., the result equals the table that a single pass over all records would have produced.
+     * @param parts The tables to concatenate; they must use the same charset.
+     * @return The concatenated table.
+     * @throws CharacterCodingException Never, because all values have been decoded by the parts already.
+     */
+    static ColumnarTable concat(List<ColumnarTable> parts) throws CharacterCodingException {
+        ColumnarTable first = parts.get(0);
+        ColumnarTable result = new ColumnarTable(first.decoder.charset(), false);
+        result.header = first.header;
+
+        int numRecords = 0;
+        int numFields = 0;
+        for (ColumnarTable part : parts) {
+            result.recordLengths.addAll(part.recordLengths);
+            numRecords += part.getNumRecords();
+            numFields = Math.max(numFields, part.dictionaries.size());
+        }
+
+        for (int field = 0; field < numFields; field++) {
+            ByteDictionary dictionary = new ByteDictionary(first.decoder.charset().newDecoder());
+            IntArrayList fieldCodes = new IntArrayList(numRecords);
+            for (ColumnarTable part : parts) {
+                if (field < part.dictionaries.size()) {
+                    int[] translation = dictionary.addAll(part.dictionaries.get(field));
+                    IntArrayList partCodes = part.codes.get(field);
+                    for (int i = 0; i < partCodes.size(); i++)
+                        fieldCodes.add(translation[partCodes.getInt(i)]);
+                } else if (part.getNumRecords() > 0) {
+                    int emptyCode = dictionary.encode(EMPTY_VALUE, 0);
+                    for (int i = 0; i < part.getNumRecords(); i++)
+                        fieldCodes.add(emptyCode);
+                }
+            }
+            result.dictionaries.add(dictionary);
+            result.codes.add(fieldCodes);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the header record or null if the table was not read with a header or the input was empty.
+     * @return The header record or null.
+     */
+    public String[] getHeader() {
+        return this.header;
+    }
+
+    /**
+     * Returns the number of (non-header) records in this table.
+     * @return The number of records in this table.
+     */
+    public int getNumRecords() {
+        return this.recordLengths.size();
+    }
+
+    /**
+     * Materializes the records of this table in row-major order. Equal values share the same String instance.
+     * @return The records of this table.
+     */
+    public String[][] buildRecords() {
+        String[][] records = new String[this.recordLengths.size()][];
+        for (int i = 0; i < records.length; i++)
+            records[i] = new String[this.recordLengths.getInt(i)];
+        for (int field = 0; field < this.dictionaries.size(); field++) {
+            String[] values = this.dictionaries.get(field).getValues();
+            int[] fieldCodes = this.codes.get(field).elements();
+            for (int i = 0; i < records.length; i++)
+                if (field < records[i].length)
+                    records[i][field] = values[fieldCodes[i]];
+        }
+        return records;
+    }
+
+    /**
+     * Builds the dictionary-encoded columns for the first numAttributes field positions. Records that are too short
+     * to contain an attribute hold the empty string for that attribute.
+     * @param numAttributes The number of attributes of the relation.
+     * @return The dictionary-encoded columns.
+     */
+    public Column[] buildColumns(int numAttributes) {
+        Column[] columns = new Column[numAttributes];
+        for (int field = 0; field < numAttributes; field++) {
+            if (field < this.dictionaries.size()) {
+                IntArrayList fieldCodes = this.codes.get(field);
+                fieldCodes.trim();
+                columns[field] = new Column(fieldCodes.elements(), this.dictionaries.get(field).getValues());
+            } else {
+                columns[field] = new Column(new int[this.recordLengths.size()], this.recordLengths.isEmpty() ? new String[0] : new String[]{""});
+            }
+        }
+        return columns;
+    }
+}
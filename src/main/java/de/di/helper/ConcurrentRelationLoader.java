@@ -0,0 +1,105 @@
+package de.di.helper;
+
+import de.di.Relation;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * A ConcurrentRelationLoader reads several files in parallel. At most maxInFlightFiles files are loaded at the same
+ * time, and a file is started only if its estimated memory footprint still fits into the memory budget next to the
+ * files that are currently being loaded. A file whose estimate exceeds the entire budget is loaded alone. The
+ * relations are returned in the order of the given files, regardless of the order in which their loading finishes.
+ */
+public class ConcurrentRelationLoader {
+
+    // Loading a relation needs a multiple of the file size: the records, the column dictionaries and the parser state
+    private static final long MEMORY_PER_FILE_BYTE = 4;
+
+    private final int maxInFlightFiles;
+    private final long memoryBudget;
+
+    // The memory that the files in flight have reserved; guarded by this
+    private long reservedMemory = 0;
+
+    public ConcurrentRelationLoader(int maxInFlightFiles, long memoryBudget) {
+        if (maxInFlightFiles < 1)
+            throw new IllegalArgumentException("The number of in-flight files must be positive, but is " + maxInFlightFiles);
+        if (memoryBudget < 1)
+            throw new IllegalArgumentException("The memory budget must be positive, but is " + memoryBudget);
+        this.maxInFlightFiles = maxInFlightFiles;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Loads all given files with the given reader function.
+     * @param files The files to load.
+     * @param reader The function that loads a single file.
+     * @return The loaded relations in the order of the given files.
+     */
+    public List<Relation> load(List<Path> files, Function<Path, Relation> reader) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(this.maxInFlightFiles, Math.max(1, files.size())));
+        try {
+            List<Future<Relation>> futures = new ArrayList<>(files.size());
+            for (Path file : files) {
+                long estimate = this.estimateMemory(file);
+                this.reserve(estimate);
+                try {
+                    futures.add(executor.submit(() -> {
+                        try {
+                            return reader.apply(file);
+                        } finally {
+                            this.release(estimate);
+                        }
+                    }));
+                } catch (RuntimeException e) {
+                    this.release(estimate);
+                    throw e;
+                }
+            }
+
+            List<Relation> relations = new ArrayList<>(files.size());
+            for (Future<Relation> future : futures)
+                relations.add(future.get());
+            return relations;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long estimateMemory(Path file) {
+        try {
+            long size = Files.size(file);
+            // Capping the estimate at the budget lets oversized files run, but only without other files in flight
+            return size > this.memoryBudget / MEMORY_PER_FILE_BYTE ? this.memoryBudget : size * MEMORY_PER_FILE_BYTE;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private synchronized void reserve(long memory) throws InterruptedException {
+        while (this.reservedMemory > 0 && this.reservedMemory + memory > this.memoryBudget)
+            this.wait();
+        this.reservedMemory += memory;
+    }
+
+    private synchronized void release(long memory) {
+        this.reservedMemory -= memory;
+        this.notifyAll();
+    }
+}
@@ -0,0 +1,369 @@
+package de.di.helper;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A MappedCsvReader parses CSV files by memory-mapping them and scanning separators, quotes and escapes directly over
+ * the raw bytes. Field values are handed to a ColumnarTable as bytes, so no String is created for a field unless its
+ * value is new to its column. The parsing semantics mirror the OpenCSV configuration used by the Relation class: '"'
+ * quotes, '\' escapes, no strict quotes, no whitespace trimming, newlines inside quotes become '\n', and lines end at
+ * '\n', '\r' or "\r\n".
+ * Scanning bytes instead of chars is only sound for charsets in which the separator, quote, escape and line break
+ * characters are single bytes that never occur inside multi-byte sequences; see supports(char, Charset).
+ * Large files can be parsed in parallel: the file is split into byte ranges that start behind a line break, the
+ * ranges are parsed speculatively on a fork-join pool, and the results are stitched together in file order. A range
+ * that turns out to start inside a quoted field, i.e., the previous range did not end exactly at its start, is
+ * discarded and re-parsed from the true record boundary, so the result always equals a sequential parse.
+ */
+public class MappedCsvReader {
+
+    private static final byte QUOTE = '"';
+    private static final byte ESCAPE = '\\';
+    private static final byte LF = '\n';
+    private static final byte CR = '\r';
+
+    // OpenCSV copies a quote in the middle of an unquoted field only if the quote is at least this many chars into the
+    // line
+    private static final int EMBEDDED_QUOTE_MIN_POSITION = 3;
+
+    private static final int DEFAULT_WINDOW_SIZE = 1 << 30;
+    private static final int DEFAULT_MAX_RECORD_SIZE = 1 << 26;
+    private static final int DEFAULT_MIN_CHUNK_SIZE = 1 << 22;
+
+    private final byte separator;
+    private final Charset charset;
+    private final boolean singleByteCharset;
+
+    // Files are mapped in windows, because a single mapping cannot exceed 2 GB; every record that starts inside a
+    // window must end within maxRecordSize bytes after the window
+    private final int windowSize;
+    private final int maxRecordSize;
+
+    // Files are not split into byte ranges smaller than this, because tiny ranges do not pay off the stitching
+    private final int minChunkSize;
+
+    public MappedCsvReader(char separator, Charset charset) {
+        this(separator, charset, DEFAULT_WINDOW_SIZE, DEFAULT_MAX_RECORD_SIZE, DEFAULT_MIN_CHUNK_SIZE);
+    }
+
+    MappedCsvReader(char separator, Charset charset, int windowSize, int maxRecordSize, int minChunkSize) {
+        if (!supports(separator, charset))
+            throw new IllegalArgumentException("Byte-level CSV scanning does not support separator '" + separator + "' with charset " + charset + ".");
+        this.separator = (byte) separator;
+        this.charset = charset;
+        this.singleByteCharset = !charset.equals(StandardCharsets.UTF_8);
+        this.windowSize = windowSize;
+        this.maxRecordSize = maxRecordSize;
+        this.minChunkSize = minChunkSize;
+    }
+
+    /**
+     * Checks whether files with the given separator and charset can be scanned on byte level.
+     * @param separator The field separator.
+     * @param charset The charset of the files.
+     * @return true if the separator is an ASCII character and the charset is UTF-8, ISO-8859-1 or US-ASCII.
+     */
+    public static boolean supports(char separator, Charset charset) {
+        return separator < 0x80 && separator != '"' && separator != '\\' && separator != '\n' && separator != '\r'
+                && (charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.ISO_8859_1) || charset.equals(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Reads all records of the given file into a ColumnarTable.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Flag to indicate whether the first record is a header.
+     * @return The parsed records.
+     * @throws IOException If the file cannot be read, is not correctly encoded or ends within a quoted field.
+     */
+    public ColumnarTable read(Path filePath, boolean hasHeader) throws IOException {
+        return this.read(filePath, hasHeader, 1);
+    }
+
+    /**
+     * Reads all records of the given file into a ColumnarTable using up to the given number of threads.
+     * @param filePath The path of the CSV file.
+     * @param hasHeader Flag to indicate whether the first record is a header.
+     * @param threads The maximum number of threads that parse the file in parallel.
+     * @return The parsed records in file order.
+     * @throws IOException If the file cannot be read, is not correctly encoded or ends within a quoted field.
+     */
+    public ColumnarTable read(Path filePath, boolean hasHeader, int threads) throws IOException {
+        try (FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            int numChunks = (int) Math.max(1, Math.min(threads, fileSize / this.minChunkSize));
+            if (numChunks == 1) {
+                ColumnarTable table = new ColumnarTable(this.charset, hasHeader);
+                this.scan(channel, 0, fileSize, table);
+                return table;
+            }
+            return this.readParallel(channel, hasHeader, numChunks);
+        }
+    }
+
+    private ColumnarTable readParallel(FileChannel channel, boolean hasHeader, int numChunks) throws IOException {
+        long fileSize = channel.size();
+
+        // Let every chunk start directly behind the first line break at or after its nominal start
+        List<Long> startList = new ArrayList<>(numChunks);
+        startList.add(0L);
+        for (int k = 1; k < numChunks; k++) {
+            long start = this.nextLineStart(channel, fileSize * k / numChunks);
+            if (start > startList.get(startList.size() - 1) && start < fileSize)
+                startList.add(start);
+        }
+        long[] starts = new long[startList.size() + 1];
+        for (int k = 0; k < startList.size(); k++)
+            starts[k] = startList.get(k);
+        starts[startList.size()] = fileSize;
+        int chunks = startList.size();
+
+        // Parse all chunks speculatively
+        ColumnarTable[] tables = new ColumnarTable[chunks];
+        long[] ends = new long[chunks];
+        IOException[] failures = new IOException[chunks];
+        ForkJoinPool pool = new ForkJoinPool(chunks);
+        try {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(chunks);
+            for (int k = 0; k < chunks; k++) {
+                final int chunk = k;
+                tasks.add(pool.submit(() -> {
+                    tables[chunk] = new ColumnarTable(this.charset, hasHeader && chunk == 0);
+                    try {
+                        ends[chunk] = this.scan(channel, starts[chunk], starts[chunk + 1], tables[chunk]);
+                    } catch (IOException e) {
+                        // A chunk that started inside a quoted field may fail; this is resolved while stitching
+                        failures[chunk] = e;
+                    }
+                }));
+            }
+            for (ForkJoinTask<?> task : tasks)
+                task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IOException(e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        // Stitch the chunks in file order; a chunk is valid only if the records before it end exactly at its start
+        List<ColumnarTable> parts = new ArrayList<>();
+        long position = 0;
+        int k = 0;
+        while (position < fileSize) {
+            while (starts[k] < position)
+                k++;
+            if (starts[k] == position && k < chunks) {
+                if (failures[k] != null)
+                    throw failures[k];
+                parts.add(tables[k]);
+                position = ends[k];
+                k++;
+            } else {
+                // The chunk k started inside a record, so re-parse the records in front of it from the true boundary
+                ColumnarTable repair = new ColumnarTable(this.charset, false);
+                position = this.scan(channel, position, starts[k], repair);
+                parts.add(repair);
+            }
+        }
+        return ColumnarTable.concat(parts);
+    }
+
+    /**
+     * Finds the first position at or behind the given position that directly follows a line break.
+     */
+    private long nextLineStart(FileChannel channel, long position) throws IOException {
+        long fileSize = channel.size();
+        if (position == 0)
+            return 0;
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position - 1, Math.min(fileSize - position + 1, this.maxRecordSize));
+        for (int i = 1; i <= buffer.limit(); i++) {
+            byte previous = buffer.get(i - 1);
+            if (previous == LF || (previous == CR && (i == buffer.limit() || buffer.get(i) != LF)))
+                return position - 1 + i;
+        }
+        return fileSize;
+    }
+
+    /**
+     * Parses all records that start in the byte range [from, to) of the channel. The range must start at a record
+     * boundary; the last record may extend beyond the end of the range.
+     * @param channel The channel of the CSV file.
+     * @param from The start offset of the first record.
+     * @param to The offset before which the last record must start.
+     * @param table The table that receives the parsed records.
+     * @return The offset directly behind the last parsed record.
+     * @throws IOException If the channel cannot be mapped or the records are malformed.
+     */
+    long scan(FileChannel channel, long from, long to, ColumnarTable table) throws IOException {
+        long fileSize = channel.size();
+        Scanner scanner = new Scanner(table);
+        long position = from;
+        while (position < to) {
+            long windowEnd = Math.min(to, position + this.windowSize);
+            long mapEnd = Math.min(fileSize, windowEnd + this.maxRecordSize);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, mapEnd - position);
+            int offset = scanner.scan(buffer, (int) (windowEnd - position), mapEnd == fileSize);
+            position += offset;
+        }
+        return position;
+    }
+
+    /**
+     * The Scanner holds the parsing state and the reusable field buffer.
+     */
+    private class Scanner {
+
+        private final ColumnarTable table;
+
+        private byte[] field = new byte[256];
+        private int fieldLength = 0;
+
+        // OpenCSV's notion of being inside a field; it influences whether escapes and doubled quotes are recognized
+        private boolean inField = false;
+
+        // Flag to indicate whether the current field was opened by a quote; empty fields that were not are null fields
+        private boolean quotedField = false;
+
+        Scanner(ColumnarTable table) {
+            this.table = table;
+        }
+
+        /**
+         * Parses all records of the buffer that start before the given limit.
+         * @param buffer The mapped bytes, starting at a record boundary.
+         * @param limit The buffer position before which the last record must start.
+         * @param endOfInput Flag to indicate whether the end of the buffer is the end of the file.
+         * @return The buffer position directly behind the last parsed record.
+         */
+        int scan(MappedByteBuffer buffer, int limit, boolean endOfInput) throws IOException {
+            int end = buffer.limit();
+            int position = 0;
+            while (position < limit && position < end)
+                position = this.scanRecord(buffer, position, end, endOfInput);
+            return position;
+        }
+
+        private int scanRecord(MappedByteBuffer buffer, int recordStart, int end, boolean endOfInput) throws IOException {
+            boolean inQuotes = false;
+            int lineStart = recordStart;
+            int i = recordStart;
+            while (true) {
+                if (i == end) {
+                    if (!endOfInput)
+                        throw new IOException("A CSV record exceeds the maximum record size of " + maxRecordSize + " bytes.");
+                    if (inQuotes)
+                        throw new IOException("Unterminated quoted field at end of CSV file.");
+                    this.completeRecord();
+                    return i;
+                }
+
+                byte c = buffer.get(i);
+                if (c == LF || c == CR) {
+                    int next = i + 1;
+                    if (c == CR && next < end && buffer.get(next) == LF)
+                        next++;
+                    else if (c == CR && next == end && !endOfInput)
+                        throw new IOException("A CSV record exceeds the maximum record size of " + maxRecordSize + " bytes.");
+                    if (!inQuotes) {
+                        this.completeRecord();
+                        return next;
+                    }
+                    // Continuing a quoted field on the next line
+                    this.append(LF);
+                    if (next == end && !endOfInput)
+                        throw new IOException("A CSV record exceeds the maximum record size of " + maxRecordSize + " bytes.");
+                    i = next;
+                    lineStart = next;
+                    continue;
+                }
+
+                if (c == ESCAPE) {
+                    this.inField = true;
+                    if (i + 1 < end && isEscapable(buffer.get(i + 1))) {
+                        this.append(buffer.get(i + 1));
+                        i++;
+                    }
+                } else if (c == QUOTE) {
+                    if ((inQuotes || this.inField) && i + 1 < end && buffer.get(i + 1) == QUOTE) {
+                        this.append(QUOTE);
+                        i++;
+                    } else {
+                        inQuotes = !inQuotes;
+                        if (this.fieldLength == 0)
+                            this.quotedField = true;
+                        // The tricky case of an embedded quote in the middle of a field: a,bc"d"ef,g
+                        if (i + 1 < end && !isLineBreak(buffer.get(i + 1)) && buffer.get(i + 1) != separator
+                                && this.charsBefore(buffer, lineStart, i) >= EMBEDDED_QUOTE_MIN_POSITION
+                                && buffer.get(i - 1) != separator)
+                            this.append(QUOTE);
+                    }
+                    this.inField = !this.inField;
+                } else if (c == separator && !inQuotes) {
+                    this.completeField();
+                } else {
+                    this.append(c);
+                    this.inField = true;
+                }
+                i++;
+            }
+        }
+
+        private boolean isEscapable(byte c) {
+            return c == QUOTE || c == ESCAPE || c == separator;
+        }
+
+        private boolean isLineBreak(byte c) {
+            return c == LF || c == CR;
+        }
+
+        /**
+         * Counts the chars (UTF-16 code units) in front of the given position in its line, but stops counting as soon
+         * as the count reaches EMBEDDED_QUOTE_MIN_POSITION.
+         */
+        private int charsBefore(MappedByteBuffer buffer, int lineStart, int position) {
+            if (singleByteCharset)
+                return position - lineStart;
+            int chars = 0;
+            for (int i = lineStart; i < position && chars < EMBEDDED_QUOTE_MIN_POSITION; i++) {
+                byte b = buffer.get(i);
+                if ((b & 0xC0) != 0x80)
+                    chars += (b & 0xF8) == 0xF0 ? 2 : 1;
+            }
+            return chars;
+        }
+
+        private void append(byte b) {
+            if (this.fieldLength == this.field.length)
+                this.field = Arrays.copyOf(this.field, this.field.length * 2);
+            this.field[this.fieldLength++] = b;
+        }
+
+        private void completeField() throws IOException {
+            this.table.addField(this.field, this.fieldLength, this.fieldLength == 0 && !this.quotedField);
+            this.fieldLength = 0;
+            this.inField = false;
+            this.quotedField = false;
+        }
+
+        private void completeRecord() throws IOException {
+            this.completeField();
+            this.table.endRecord();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package de.di.helper;
+
+import de.di.Column;
+import de.di.Relation;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * A RelationSnapshot is a binary, columnar copy of a parsed CSV file. It stores the header and, per attribute, the
+ * column dictionary followed by the dictionary codes, which take one, two or four bytes each depending on the
+ * number of distinct values. Loading a snapshot memory-maps the file and copies the code arrays in bulk, which is
+ * much cheaper than parsing the CSV file again.
+ * <p>
+ * A snapshot is keyed by the absolute path, the size and the last-modified time of its source file as well as by
+ * the options the source was parsed with. If any of these differ, the snapshot is stale and will not be loaded.
+ */
+public class RelationSnapshot {
+
+    private static final int MAGIC = 0x44495253;
+    private static final int VERSION = 1;
+
+    private static final String SUFFIX = ".snapshot";
+
+    private final Path snapshotFile;
+
+    // The key of the snapshot; the source file attributes are taken when the snapshot object is created
+    private final String sourcePath;
+    private final long sourceSize;
+    private final long sourceModified;
+    private final boolean hasHeader;
+    private final char separator;
+    private final String charset;
+
+    public RelationSnapshot(Path snapshotFile, Path sourceFile, boolean hasHeader, char separator, Charset charset) {
+        this.snapshotFile = snapshotFile;
+        this.sourcePath = sourceFile.toAbsolutePath().normalize().toString();
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(sourceFile, BasicFileAttributes.class);
+            this.sourceSize = attributes.size();
+            this.sourceModified = attributes.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        this.hasHeader = hasHeader;
+        this.separator = separator;
+        this.charset = charset.name();
+    }
+
+    /**
+     * Returns the snapshot of the given source file within the given cache folder.
+     * @param cacheDir The folder that holds the snapshots.
+     * @param sourceFile The CSV file whose snapshot is requested.
+     * @param hasHeader Flag to indicate whether the first line of the file is a header.
+     * @param separator The field separator.
+     * @param charset The charset of the file.
+     * @return The snapshot of the source file, which may or may not exist yet.
+     */
+    public static RelationSnapshot of(Path cacheDir, Path sourceFile, boolean hasHeader, char separator, Charset charset) {
+        // The hash of the full path distinguishes equally named files in different folders
+        String sourcePath = sourceFile.toAbsolutePath().normalize().toString();
+        String fileName = sourceFile.getFileName() + "." + Integer.toHexString(sourcePath.hashCode()) + SUFFIX;
+        return new RelationSnapshot(cacheDir.resolve(fileName), sourceFile, hasHeader, separator, charset);
+    }
+
+    public Path getSnapshotFile() {
+        return this.snapshotFile;
+    }
+
+    /**
+     * Loads the relation from this snapshot. A truncated or otherwise damaged snapshot is treated like a stale one, so
+     * that the caller parses the source file again and overwrites the snapshot.
+     * @return The relation or null if the snapshot does not exist, is stale or is damaged.
+     */
+    public Relation load() {
+        if (!Files.isRegularFile(this.snapshotFile))
+            return null;
+
+        try (FileChannel channel = FileChannel.open(this.snapshotFile, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                return null;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                return this.decode(buffer);
+            } catch (RuntimeException e) {
+                // Buffer underflows, invalid lengths or codes: the snapshot is only a cache, so it is simply not used
+                return null;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Relation decode(ByteBuffer buffer) {
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION)
+            return null;
+        if (!this.sourcePath.equals(readString(buffer)) || buffer.getLong() != this.sourceSize || buffer.getLong() != this.sourceModified ||
+                (buffer.get() == 1) != this.hasHeader || buffer.getChar() != this.separator || !this.charset.equals(readString(buffer)))
+            return null;
+
+        String name = readString(buffer);
+        int numAttributes = buffer.getInt();
+        String[] attributes = null;
+        if (numAttributes >= 0) {
+            // Every attribute name takes at least its length field
+            checkRemaining(buffer, numAttributes, Integer.BYTES);
+            attributes = new String[numAttributes];
+            for (int i = 0; i < numAttributes; i++)
+                attributes[i] = readString(buffer);
+        }
+        int numRecords = buffer.getInt();
+        checkRemaining(buffer, numRecords, 0);
+
+        Column[] columns = new Column[Math.max(0, numAttributes)];
+        for (int i = 0; i < columns.length; i++) {
+            int numDistinct = buffer.getInt();
+            checkRemaining(buffer, numDistinct, Integer.BYTES);
+            String[] dictionary = new String[numDistinct];
+            for (int code = 0; code < dictionary.length; code++)
+                dictionary[code] = readString(buffer);
+            columns[i] = new Column(readCodes(buffer, numRecords, dictionary.length), dictionary);
+        }
+        return new Relation(name, attributes, columns, numRecords);
+    }
+
+    /**
+     * Writes the given relation into this snapshot, replacing any previous snapshot atomically. Relations with ragged
+     * records cannot be represented as equally long columns and are, therefore, not stored.
+     * @param relation The relation that was parsed from the source file of this snapshot.
+     * @return True if the snapshot was written, false if the relation cannot be stored.
+     */
+    public boolean store(Relation relation) {
+        String[] attributes = relation.getAttributes();
+        int numAttributes = attributes == null ? 0 : attributes.length;
+        for (String[] record : relation.getRecords())
+            if (record.length != numAttributes)
+                return false;
+
+        try {
+            Files.createDirectories(this.snapshotFile.toAbsolutePath().getParent());
+            Path tempFile = Files.createTempFile(this.snapshotFile.toAbsolutePath().getParent(), this.snapshotFile.getFileName().toString(), ".tmp");
+            try {
+                boolean written = this.write(tempFile, relation);
+                if (written && Files.size(tempFile) <= Integer.MAX_VALUE) {
+                    Files.move(tempFile, this.snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    return true;
+                }
+                return false;
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private boolean write(Path file, Relation relation) throws IOException {
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        String[] attributes = relation.getAttributes();
+        int numRecords = relation.getRecords().length;
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, encoder, this.sourcePath);
+            out.writeLong(this.sourceSize);
+            out.writeLong(this.sourceModified);
+            out.writeByte(this.hasHeader ? 1 : 0);
+            out.writeChar(this.separator);
+            writeString(out, encoder, this.charset);
+
+            writeString(out, encoder, relation.getName());
+            out.writeInt(attributes == null ? -1 : attributes.length);
+            if (attributes != null)
+                for (String attribute : attributes)
+                    writeString(out, encoder, attribute);
+            out.writeInt(numRecords);
+
+            for (int i = 0; attributes != null && i < attributes.length; i++) {
+                Column column = relation.getColumn(i);
+                out.writeInt(column.getNumDistinct());
+                for (String value : column.getDictionary())
+                    writeString(out, encoder, value);
+                writeCodes(out, column.getCodes(), codeWidth(column.getNumDistinct()));
+            }
+        } catch (CharacterCodingException e) {
+            // Values that UTF-8 cannot represent, such as unpaired surrogates, would not survive the round trip
+            return false;
+        }
+        return true;
+    }
+
+    private static int codeWidth(int numDistinct) {
+        if (numDistinct <= 1 << 8)
+            return 1;
+        if (numDistinct <= 1 << 16)
+            return 2;
+        return 4;
+    }
+
+    private static void writeCodes(DataOutputStream out, int[] codes, int width) throws IOException {
+        for (int code : codes) {
+            if (width == 1)
+                out.writeByte(code);
+            else if (width == 2)
+                out.writeChar(code);
+            else
+                out.writeInt(code);
+        }
+    }
+
+    private static int[] readCodes(ByteBuffer buffer, int numRecords, int numDistinct) {
+        int width = codeWidth(numDistinct);
+        checkRemaining(buffer, numRecords, width);
+        int[] codes = new int[numRecords];
+        if (width == 1) {
+            byte[] bytes = new byte[numRecords];
+            buffer.get(bytes);
+            for (int i = 0; i < numRecords; i++)
+                codes[i] = bytes[i] & 0xFF;
+        } else if (width == 2) {
+            char[] chars = new char[numRecords];
+            buffer.asCharBuffer().get(chars);
+            buffer.position(buffer.position() + 2 * numRecords);
+            for (int i = 0; i < numRecords; i++)
+                codes[i] = chars[i];
+        } else {
+            buffer.asIntBuffer().get(codes);
+            buffer.position(buffer.position() + 4 * numRecords);
+        }
+        for (int code : codes)
+            if (code < 0 || code >= numDistinct)
+                throw new IllegalStateException("The code must be smaller than " + numDistinct + ", but is " + code);
+        return codes;
+    }
+
+    /**
+     * Checks that a length read from the snapshot is valid and that the buffer holds at least the given number of
+     * bytes per element, so that damaged lengths fail before they allocate anything.
+     */
+    private static void checkRemaining(ByteBuffer buffer, int length, int bytesPerElement) {
+        if (length < 0 || (long) length * bytesPerElement > buffer.remaining())
+            throw new IllegalStateException("The length must fit into the remaining " + buffer.remaining() + " bytes, but is " + length);
+    }
+
+    private static void writeString(DataOutputStream out, CharsetEncoder encoder, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        ByteBuffer bytes = encoder.encode(CharBuffer.wrap(value));
+        out.writeInt(bytes.remaining());
+        out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0)
+            return null;
+        checkRemaining(buffer, length, 1);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
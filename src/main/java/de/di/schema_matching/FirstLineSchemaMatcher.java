@@ -8,13 +8,8 @@ import de.di.similarity_measures.helper.Tokenizer;
 public class FirstLineSchemaMatcher {
 
     public SimilarityMatrix match(Relation relA, Relation relB) {
-        String[][] attrA = relA.getColumns();
-        String[][] attrB = relB.getColumns();
-
-        int lenA = attrA.length;
-        int lenB = attrB.length;
-
-        double[][] similarityScores = new double[lenA][lenB];
+        int lenA = relA.getAttributes().length;
+        int lenB = relB.getAttributes().length;
 
         // Create tokenizer and similarity metric with alternate config values
         int tokenizerMode = 1;               // or some other enum/int if available
@@ -24,17 +19,16 @@ public class FirstLineSchemaMatcher {
         boolean normalize = false;
         Jaccard similarityChecker = new Jaccard(splitter, normalize);
 
-        // Pairwise comparison of attribute columns
-        for (int aIdx = 0; aIdx < lenA; aIdx++) {
-            String[] colA = attrA[aIdx];
-
-            for (int bIdx = 0; bIdx < lenB; bIdx++) {
-                String[] colB = attrB[bIdx];
+        // Pairwise comparison of attribute columns; with set semantics, the column dictionaries hold exactly the
+        // distinct values that the comparison needs. Every column is prepared once, not once per column pair.
+        String[][] columnsA = new String[lenA][];
+        for (int aIdx = 0; aIdx < lenA; aIdx++)
+            columnsA[aIdx] = relA.getColumn(aIdx).getDictionary();
+        String[][] columnsB = new String[lenB][];
+        for (int bIdx = 0; bIdx < lenB; bIdx++)
+            columnsB[bIdx] = relB.getColumn(bIdx).getDictionary();
 
-                double sim = similarityChecker.calculate(colA, colB);
-                similarityScores[aIdx][bIdx] = sim;
-            }
-        }
+        double[][] similarityScores = similarityChecker.calculateTokenMatrix(columnsA, columnsB);
 
         return new SimilarityMatrix(similarityScores, relA, relB);
     }
@@ -0,0 +1,207 @@
+package de.di.similarity_measures;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A CachingSimilarityMeasure memoizes the similarities that another similarity measure calculates for pairs of
+ * strings. Data with many repeated values, such as genres, countries or labels, lets most comparisons be answered from
+ * the cache, and so do repeated passes over the same records. The cache holds at most capacity value pairs; it is
+ * split into independently locked segments, each of which evicts its least recently used pair when it is full.
+ * <p>
+ * Threshold-aware calculations that end below their threshold yield no exact similarity; for them, the cache
+ * remembers the threshold as an upper bound of the similarity, which answers all later calls with a threshold at least
+ * as high. Token lists are not cached, because arrays are compared by identity, not by value.
+ * <p>
+ * For symmetric measures, which are all measures of this package, a value pair and its swapped pair share one entry,
+ * because sorted neighborhood passes over several sorting keys compare the same values in both orders.
+ */
+public class CachingSimilarityMeasure implements SimilarityMeasure {
+
+    private static final int NUM_SEGMENTS = 16;
+
+    // The value of a cache lookup that found no entry; all entries are either similarities or negated upper bounds
+    private static final double ABSENT = Double.NaN;
+
+    private final SimilarityMeasure delegate;
+    private final Segment[] segments;
+
+    // Flag to indicate whether the delegate yields the same similarity for swapped arguments
+    private final boolean symmetric;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingSimilarityMeasure(SimilarityMeasure delegate, int capacity) {
+        this(delegate, capacity, true);
+    }
+
+    /**
+     * @param delegate The similarity measure whose results are cached.
+     * @param capacity The maximum number of cached value pairs.
+     * @param symmetric Flag to indicate whether the delegate is symmetric, so that swapped pairs can share an entry.
+     */
+    public CachingSimilarityMeasure(SimilarityMeasure delegate, int capacity, boolean symmetric) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("The capacity must be positive, but is " + capacity);
+        this.delegate = delegate;
+        this.symmetric = symmetric;
+        this.segments = new Segment[NUM_SEGMENTS];
+        for (int i = 0; i < NUM_SEGMENTS; i++)
+            this.segments[i] = new Segment(Math.max(1, (capacity + NUM_SEGMENTS - 1 - i) / NUM_SEGMENTS));
+    }
+
+    @Override
+    public double calculate(final String string1, final String string2) {
+        return this.calculate(string1, string2, Double.NEGATIVE_INFINITY);
+    }
+
+    @Override
+    public double calculate(final String[] strings1, final String[] strings2) {
+        return this.delegate.calculate(strings1, strings2);
+    }
+
+    @Override
+    public double calculate(final String string1, final String string2, final double minSimilarity) {
+        ValuePair key = this.symmetric && compare(string1, string2) > 0 ? new ValuePair(string2, string1) : new ValuePair(string1, string2);
+        Segment segment = this.segments[key.hash & (NUM_SEGMENTS - 1)];
+
+        double cached = segment.lookup(key);
+        if (!Double.isNaN(cached)) {
+            if (cached >= 0) {
+                this.hits.increment();
+                return cached >= minSimilarity ? cached : BELOW_THRESHOLD;
+            }
+            // A negative entry is the negated threshold that the similarity stayed below
+            if (minSimilarity >= -cached) {
+                this.hits.increment();
+                return BELOW_THRESHOLD;
+            }
+        }
+
+        this.misses.increment();
+        double similarity = this.delegate.calculate(string1, string2, minSimilarity);
+        if (similarity >= 0)
+            segment.store(key, similarity);
+        else if (minSimilarity > 0)
+            segment.store(key, -minSimilarity);
+        return similarity;
+    }
+
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Returns the fraction of calculations that were answered from the cache.
+     * @return The hit rate or 0 if nothing was calculated yet.
+     */
+    public double getHitRate() {
+        long hits = this.getHitCount();
+        long requests = hits + this.getMissCount();
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    /**
+     * Returns the number of value pairs that are currently cached.
+     * @return The number of cache entries.
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : this.segments)
+            size += segment.size();
+        return size;
+    }
+
+    private static int compare(String string1, String string2) {
+        if (string1 == null || string2 == null)
+            return string1 == null ? (string2 == null ? 0 : -1) : 1;
+        return string1.compareTo(string2);
+    }
+
+    @Override
+    public String toString() {
+        return "CachingSimilarityMeasure(" + this.delegate.getClass().getSimpleName() + ", size=" + this.size() + ", hits=" +
+                this.getHitCount() + ", misses=" + this.getMissCount() + ", evictions=" + this.getEvictionCount() + ")";
+    }
+
+    private static final class ValuePair {
+
+        private final String first;
+        private final String second;
+        private final int hash;
+
+        private ValuePair(String first, String second) {
+            this.first = first;
+            this.second = second;
+            int hash = 31 * Objects.hashCode(first) + Objects.hashCode(second);
+            this.hash = hash ^ (hash >>> 16);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof ValuePair))
+                return false;
+            ValuePair other = (ValuePair) o;
+            return this.hash == other.hash && Objects.equals(this.first, other.first) && Objects.equals(this.second, other.second);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    /**
+     * One segment of the cache: an access-ordered map that drops its least recently used entry when it exceeds its
+     * capacity. All accesses hold the segment's lock.
+     */
+    private final class Segment {
+
+        private final Map<ValuePair, Double> entries;
+
+        private Segment(int capacity) {
+            this.entries = new LinkedHashMap<ValuePair, Double>(16, 0.75f, true) {
+
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ValuePair, Double> eldest) {
+                    if (this.size() <= capacity)
+                        return false;
+                    CachingSimilarityMeasure.this.evictions.increment();
+                    return true;
+                }
+            };
+        }
+
+        private synchronized double lookup(ValuePair key) {
+            Double value = this.entries.get(key);
+            return value == null ? ABSENT : value;
+        }
+
+        private synchronized void store(ValuePair key, double value) {
+            // A concurrent calculation may have stored an exact similarity already, which must not become a bound
+            Double previous = this.entries.get(key);
+            if (previous == null || previous < 0)
+                this.entries.put(key, value);
+        }
+
+        private synchronized int size() {
+            return this.entries.size();
+        }
+    }
+}
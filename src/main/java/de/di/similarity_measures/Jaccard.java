@@ -1,41 +1,122 @@
 package de.di.similarity_measures;
 
+import de.di.similarity_measures.helper.TokenSet;
 import de.di.similarity_measures.helper.Tokenizer;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import lombok.AllArgsConstructor;
 
 import java.util.*;
 
 @AllArgsConstructor
-public class Jaccard implements SimilarityMeasure {
+public class Jaccard implements PreparableSimilarityMeasure<TokenSet> {
+
+    // Reusable buffers for the token codes of the two inputs and the code counts; one set per thread
+    private static final ThreadLocal<CodeBuffers> BUFFERS = ThreadLocal.withInitial(CodeBuffers::new);
 
     private final Tokenizer tokenGenerator;
     private final boolean allowDuplicates;
 
     @Override
     public double calculate(String text1, String text2) {
+        return calculate(text1, text2, Double.NEGATIVE_INFINITY);
+    }
+
+    @Override
+    public double calculate(String[] terms1, String[] terms2) {
+        terms1 = terms1 == null ? new String[0] : terms1;
+        terms2 = terms2 == null ? new String[0] : terms2;
+
+        return computeSimilarity(terms1, terms2, Double.NEGATIVE_INFINITY);
+    }
+
+    @Override
+    public double calculate(String text1, String text2, double minSimilarity) {
         text1 = text1 == null ? "" : text1;
         text2 = text2 == null ? "" : text2;
 
-        String[] units1 = tokenGenerator.tokenize(text1);
-        String[] units2 = tokenGenerator.tokenize(text2);
+        // With bag semantics, the token counts alone bound the similarity, so hopeless pairs are not even tokenized
+        if (allowDuplicates && bagBound(tokenGenerator.countTokens(text1), tokenGenerator.countTokens(text2)) < minSimilarity)
+            return BELOW_THRESHOLD;
 
-        return computeSimilarity(units1, units2);
+        // Strings are compared on their primitive token codes, so no token objects are created
+        CodeBuffers buffers = BUFFERS.get();
+        tokenGenerator.tokenize(text1, buffers.codes1);
+        tokenGenerator.tokenize(text2, buffers.codes2);
+        return computeSimilarity(buffers, minSimilarity);
     }
 
     @Override
-    public double calculate(String[] terms1, String[] terms2) {
+    public double calculate(String[] terms1, String[] terms2, double minSimilarity) {
         terms1 = terms1 == null ? new String[0] : terms1;
         terms2 = terms2 == null ? new String[0] : terms2;
 
-        return computeSimilarity(terms1, terms2);
+        return computeSimilarity(terms1, terms2, minSimilarity);
     }
 
-    private double computeSimilarity(String[] firstTokens, String[] secondTokens) {
-        if (firstTokens.length == 0 && secondTokens.length == 0) {
+    @Override
+    public TokenSet prepare(String text) {
+        LongArrayList codes = BUFFERS.get().codes1;
+        tokenGenerator.tokenize(text == null ? "" : text, codes);
+        return TokenSet.of(codes);
+    }
+
+    @Override
+    public TokenSet prepareTokens(String[] terms) {
+        LongArrayList codes = BUFFERS.get().codes1;
+        codes.clear();
+        if (terms != null)
+            for (String term : terms)
+                codes.add(Tokenizer.code(term == null ? "" : term));
+        return TokenSet.of(codes);
+    }
+
+    @Override
+    public double calculatePrepared(TokenSet tokens1, TokenSet tokens2, double minSimilarity) {
+        if (tokens1.getNumTokens() == 0 && tokens2.getNumTokens() == 0) {
+            return atLeast(1.0, minSimilarity);
+        }
+
+        if (allowDuplicates) {
+            if (bagBound(tokens1.getNumTokens(), tokens2.getNumTokens()) < minSimilarity)
+                return BELOW_THRESHOLD;
+
+            int overlap = tokens1.countOverlap(tokens2);
+            return atLeast((double) overlap / (tokens1.getNumTokens() + tokens2.getNumTokens()), minSimilarity);
+
+        } else {
+            int size1 = tokens1.getNumDistinct();
+            int size2 = tokens2.getNumDistinct();
+            if ((double) Math.min(size1, size2) / Math.max(size1, size2) < minSimilarity)
+                return BELOW_THRESHOLD;
+
+            int shared = tokens1.countSharedTokens(tokens2);
+            return atLeast((double) shared / (size1 + size2 - shared), minSimilarity);
+        }
+    }
+
+    /**
+     * Returns the largest bag Jaccard similarity that two token bags of the given sizes can have: all tokens of the
+     * smaller bag are shared, and the union of two bags counts the tokens of both.
+     * @param size1 The number of tokens in the first bag.
+     * @param size2 The number of tokens in the second bag.
+     * @return The upper bound for the bag Jaccard similarity.
+     */
+    private static double bagBound(int size1, int size2) {
+        if (size1 == 0 && size2 == 0)
             return 1.0;
+        return (double) Math.min(size1, size2) / (size1 + size2);
+    }
+
+    private double computeSimilarity(String[] firstTokens, String[] secondTokens, double minSimilarity) {
+        if (firstTokens.length == 0 && secondTokens.length == 0) {
+            return atLeast(1.0, minSimilarity);
         }
 
         if (allowDuplicates) {
+            if (bagBound(firstTokens.length, secondTokens.length) < minSimilarity)
+                return BELOW_THRESHOLD;
+
             // Multiset (bag) semantics
             Map<String, Integer> map1 = countTokens(firstTokens);
             Map<String, Integer> map2 = countTokens(secondTokens);
@@ -55,23 +136,76 @@ public class Jaccard implements SimilarityMeasure {
                 total += freq1 + freq2;
             }
 
-            return total == 0 ? 0.0 : (double) overlap / total;
+            return atLeast(total == 0 ? 0.0 : (double) overlap / total, minSimilarity);
 
         } else {
             // Set semantics
             Set<String> setA = new HashSet<>(Arrays.asList(firstTokens));
             Set<String> setB = new HashSet<>(Arrays.asList(secondTokens));
 
+            // The intersection is at most as large as the smaller set and the union at least as large as the larger one
+            if ((double) Math.min(setA.size(), setB.size()) / Math.max(setA.size(), setB.size()) < minSimilarity)
+                return BELOW_THRESHOLD;
+
             Set<String> shared = new HashSet<>(setA);
             shared.retainAll(setB);
 
             Set<String> combined = new HashSet<>(setA);
             combined.addAll(setB);
 
-            return combined.isEmpty() ? 0.0 : (double) shared.size() / combined.size();
+            return atLeast(combined.isEmpty() ? 0.0 : (double) shared.size() / combined.size(), minSimilarity);
         }
     }
 
+    private double computeSimilarity(CodeBuffers buffers, double minSimilarity) {
+        LongArrayList codes1 = buffers.codes1;
+        LongArrayList codes2 = buffers.codes2;
+        if (codes1.isEmpty() && codes2.isEmpty()) {
+            return atLeast(1.0, minSimilarity);
+        }
+
+        Long2IntOpenHashMap counts = buffers.counts();
+        if (allowDuplicates) {
+            if (bagBound(codes1.size(), codes2.size()) < minSimilarity)
+                return BELOW_THRESHOLD;
+
+            // Multiset (bag) semantics: every token of the second bag consumes one equal token of the first bag
+            for (int i = 0; i < codes1.size(); i++)
+                counts.addTo(codes1.getLong(i), 1);
+            int overlap = 0;
+            for (int i = 0; i < codes2.size(); i++) {
+                if (counts.get(codes2.getLong(i)) > 0) {
+                    counts.addTo(codes2.getLong(i), -1);
+                    overlap++;
+                }
+            }
+            return atLeast((double) overlap / (codes1.size() + codes2.size()), minSimilarity);
+
+        } else {
+            // Set semantics: bit 1 marks codes of the first set, bit 2 codes of the second set
+            for (int i = 0; i < codes1.size(); i++)
+                counts.put(codes1.getLong(i), 1);
+            int size1 = counts.size();
+            int size2 = 0;
+            int shared = 0;
+            for (int i = 0; i < codes2.size(); i++) {
+                int flags = counts.get(codes2.getLong(i));
+                if ((flags & 2) == 0) {
+                    counts.put(codes2.getLong(i), flags | 2);
+                    size2++;
+                    if (flags == 1)
+                        shared++;
+                }
+            }
+            int combined = size1 + size2 - shared;
+            return atLeast(combined == 0 ? 0.0 : (double) shared / combined, minSimilarity);
+        }
+    }
+
+    private static double atLeast(double similarity, double minSimilarity) {
+        return similarity >= minSimilarity ? similarity : BELOW_THRESHOLD;
+    }
+
     private Map<String, Integer> countTokens(String[] tokens) {
         Map<String, Integer> countMap = new HashMap<>();
         for (String token : tokens) {
@@ -79,4 +213,22 @@ public class Jaccard implements SimilarityMeasure {
         }
         return countMap;
     }
-}
\ No newline at end of file
+
+    private static class CodeBuffers {
+
+        // Tables that grew larger than this for an unusually long input are not kept for later calls
+        private static final int MAX_RETAINED_SIZE = 1 << 12;
+
+        private final LongArrayList codes1 = new LongArrayList();
+        private final LongArrayList codes2 = new LongArrayList();
+        private Long2IntOpenHashMap counts = new Long2IntOpenHashMap();
+
+        private Long2IntOpenHashMap counts() {
+            if (this.counts.size() > MAX_RETAINED_SIZE)
+                this.counts = new Long2IntOpenHashMap();
+            else
+                this.counts.clear();
+            return this.counts;
+        }
+    }
+}
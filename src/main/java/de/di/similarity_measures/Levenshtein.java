@@ -1,13 +1,28 @@
 package de.di.similarity_measures;
 
-import java.util.Arrays;
+import de.di.similarity_measures.helper.EditDistance;
+import de.di.similarity_measures.helper.EditDistanceFilter;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 
 public class Levenshtein implements SimilarityMeasure {
 
     private final boolean useDamerau;
 
+    // Rejects the pairs of threshold calculations that cannot reach the minimum similarity before the distance is
+    // computed
+    private final EditDistanceFilter filter;
+
     public Levenshtein(boolean useDamerau) {
         this.useDamerau = useDamerau;
+        this.filter = new EditDistanceFilter(useDamerau);
+    }
+
+    /**
+     * Returns the filter cascade of the threshold calculations, whose counters tell how many pairs each stage rejected.
+     * @return The filter of this measure.
+     */
+    public EditDistanceFilter getFilter() {
+        return this.filter;
     }
 
     @Override
@@ -15,10 +30,9 @@ public class Levenshtein implements SimilarityMeasure {
         input1 = input1 == null ? "" : input1;
         input2 = input2 == null ? "" : input2;
 
-        String[] tokensA = input1.split("");
-        String[] tokensB = input2.split("");
-
-        return computeNormalizedDistance(tokensA, tokensB);
+        // Comparing the chars directly equals comparing the single-char tokens of input.split("")
+        int distance = EditDistance.distance(input1, input2, this.useDamerau);
+        return normalize(distance, Math.max(input1.length(), input2.length()));
     }
 
     @Override
@@ -26,7 +40,89 @@ public class Levenshtein implements SimilarityMeasure {
         if (tokensA == null) tokensA = new String[0];
         if (tokensB == null) tokensB = new String[0];
 
-        return computeNormalizedDistance(tokensA, tokensB);
+        // Every distinct token becomes one char, so the token lists can be compared as strings
+        Object2IntOpenHashMap<String> tokenToSymbol = new Object2IntOpenHashMap<>();
+        String symbolsA = toSymbols(tokensA, tokenToSymbol);
+        String symbolsB = toSymbols(tokensB, tokenToSymbol);
+        if (tokenToSymbol.size() > Character.MAX_VALUE + 1)
+            return computeNormalizedDistance(tokensA, tokensB);
+
+        int distance = EditDistance.distance(symbolsA, symbolsB, this.useDamerau);
+        return normalize(distance, Math.max(tokensA.length, tokensB.length));
+    }
+
+    @Override
+    public double calculate(String input1, String input2, double minSimilarity) {
+        input1 = input1 == null ? "" : input1;
+        input2 = input2 == null ? "" : input2;
+
+        int maxLength = Math.max(input1.length(), input2.length());
+        int maxDistance = maxDistance(maxLength, minSimilarity);
+        if (maxDistance < 0)
+            return BELOW_THRESHOLD;
+
+        if (!this.filter.accepts(input1, input2, maxDistance))
+            return BELOW_THRESHOLD;
+
+        int distance = EditDistance.distance(input1, input2, this.useDamerau, maxDistance);
+        return distance > maxDistance ? BELOW_THRESHOLD : normalize(distance, maxLength);
+    }
+
+    @Override
+    public double calculate(String[] tokensA, String[] tokensB, double minSimilarity) {
+        if (tokensA == null) tokensA = new String[0];
+        if (tokensB == null) tokensB = new String[0];
+
+        int maxLength = Math.max(tokensA.length, tokensB.length);
+        int maxDistance = maxDistance(maxLength, minSimilarity);
+        if (maxDistance < 0)
+            return BELOW_THRESHOLD;
+
+        Object2IntOpenHashMap<String> tokenToSymbol = new Object2IntOpenHashMap<>();
+        String symbolsA = toSymbols(tokensA, tokenToSymbol);
+        String symbolsB = toSymbols(tokensB, tokenToSymbol);
+        if (tokenToSymbol.size() > Character.MAX_VALUE + 1) {
+            double similarity = computeNormalizedDistance(tokensA, tokensB);
+            return similarity >= minSimilarity ? similarity : BELOW_THRESHOLD;
+        }
+
+        if (!this.filter.accepts(symbolsA, symbolsB, maxDistance))
+            return BELOW_THRESHOLD;
+
+        int distance = EditDistance.distance(symbolsA, symbolsB, this.useDamerau, maxDistance);
+        return distance > maxDistance ? BELOW_THRESHOLD : normalize(distance, maxLength);
+    }
+
+    /**
+     * Returns the largest distance whose normalized similarity still reaches the given minimum similarity. The bound
+     * is derived from the normalization itself, so that it agrees with calculate() also under floating-point rounding.
+     * @param maxLength The length of the longer input.
+     * @param minSimilarity The minimum similarity of interest.
+     * @return The largest admissible distance or -1 if no distance reaches the minimum similarity.
+     */
+    private static int maxDistance(int maxLength, double minSimilarity) {
+        if (minSimilarity > 1)
+            return -1;
+        if (maxLength == 0 || minSimilarity <= 0)
+            return maxLength;
+
+        int maxDistance = (int) Math.min(maxLength, Math.floor(maxLength * (1 - minSimilarity)));
+        while (maxDistance < maxLength && normalize(maxDistance + 1, maxLength) >= minSimilarity)
+            maxDistance++;
+        while (maxDistance >= 0 && normalize(maxDistance, maxLength) < minSimilarity)
+            maxDistance--;
+        return maxDistance;
+    }
+
+    private static String toSymbols(String[] tokens, Object2IntOpenHashMap<String> tokenToSymbol) {
+        char[] symbols = new char[tokens.length];
+        for (int i = 0; i < tokens.length; i++)
+            symbols[i] = (char) tokenToSymbol.computeIfAbsent(tokens[i], token -> tokenToSymbol.size());
+        return new String(symbols);
+    }
+
+    private static double normalize(int distance, int maxLength) {
+        return maxLength == 0 ? 1.0 : 1.0 - ((double) distance / maxLength);
     }
 
     private double computeNormalizedDistance(String[] tokensA, String[] tokensB) {
@@ -61,10 +157,6 @@ public class Levenshtein implements SimilarityMeasure {
             }
         }
 
-        int rawDistance = distance[lenA][lenB];
-        int maxLength = Math.max(lenA, lenB);
-
-        return maxLength == 0 ? 1.0 : 1.0 - ((double) rawDistance / maxLength);
+        return normalize(distance[lenA][lenB], Math.max(lenA, lenB));
     }
 }
-
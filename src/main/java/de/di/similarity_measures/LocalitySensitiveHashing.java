@@ -1,63 +1,168 @@
 package de.di.similarity_measures;
 
+import de.di.similarity_measures.helper.BBitSignature;
 import de.di.similarity_measures.helper.MinHash;
 import de.di.similarity_measures.helper.Tokenizer;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
-
-public class LocalitySensitiveHashing implements SimilarityMeasure {
+/**
+ * Estimates the Jaccard similarity of two strings or token lists from their MinHash signatures. With set semantics,
+ * the estimate is the fraction of agreeing signature entries. With bag semantics, the signatures estimate the bag
+ * similarity J = sum(min) / sum(max), which is converted into the bag Jaccard similarity of the Jaccard class, i.e.,
+ * sum(min) / (|A| + |B|) = J / (1 + J). Signatures can be prepared once per value and are then compared in
+ * O(numHashFunctions).
+ * <p>
+ * In compact mode, only the lowest bitsPerHash bits of every MinHash value are compared, and the estimate is corrected
+ * for the random agreements of these bits (see BBitSignature). sketch(...) packs such signatures into 64-bit words for
+ * storing very many of them, e.g., one per column and record; all calculate methods then return the same estimates
+ * as calculateSketches(...).
+ */
+public class LocalitySensitiveHashing implements PreparableSimilarityMeasure<int[]> {
 
     private final Tokenizer chunker;
     private final boolean countDuplicates;
-    private final List<MinHash> hashTools;
+    private final MinHash minHash;
+
+    // The number of low-order bits compared per MinHash value; 32 compares the full values
+    private final int bitsPerHash;
+
+    // Reusable buffers for the token codes and the signatures of the two inputs; one set per thread
+    private final ThreadLocal<SignatureBuffers> buffers;
 
     public LocalitySensitiveHashing(final Tokenizer tokenizer, final boolean bagMode, final int hashCount) {
-        if (tokenizer.getTokenSize() < hashCount) {
-            throw new IllegalArgumentException("Tokenizer must support at least as many hash functions.");
-        }
+        this(tokenizer, bagMode, hashCount, Integer.SIZE);
+    }
 
+    public LocalitySensitiveHashing(final Tokenizer tokenizer, final boolean bagMode, final int hashCount, final int bitsPerHash) {
+        BBitSignature.checkBitsPerHash(bitsPerHash);
         this.chunker = tokenizer;
         this.countDuplicates = bagMode;
-        this.hashTools = new ArrayList<>();
-        for (int i = 0; i < hashCount; i++) {
-            hashTools.add(new MinHash(i));
-        }
+        this.minHash = new MinHash(hashCount);
+        this.bitsPerHash = bitsPerHash;
+        this.buffers = ThreadLocal.withInitial(() -> new SignatureBuffers(hashCount));
     }
 
     @Override
     public double calculate(final String input1, final String input2) {
-        String[] tokens1 = chunker.tokenize(input1 == null ? "" : input1);
-        String[] tokens2 = chunker.tokenize(input2 == null ? "" : input2);
-        return calculate(tokens1, tokens2);
+        SignatureBuffers buffers = this.buffers.get();
+        chunker.tokenize(input1 == null ? "" : input1, buffers.codes1);
+        chunker.tokenize(input2 == null ? "" : input2, buffers.codes2);
+        return this.calculate(buffers);
     }
 
     @Override
     public double calculate(final String[] tokens1, final String[] tokens2) {
-        String[] sig1 = new String[hashTools.size()];
-        String[] sig2 = new String[hashTools.size()];
+        SignatureBuffers buffers = this.buffers.get();
+        encode(tokens1, buffers.codes1);
+        encode(tokens2, buffers.codes2);
+        return this.calculate(buffers);
+    }
 
-        for (int i = 0; i < hashTools.size(); i++) {
-            sig1[i] = hashTools.get(i).hash(tokens1);
-            sig2[i] = hashTools.get(i).hash(tokens2);
-        }
+    @Override
+    public int[] prepare(final String input) {
+        LongArrayList codes = this.buffers.get().codes1;
+        chunker.tokenize(input == null ? "" : input, codes);
+        return minHash.signature(codes, countDuplicates);
+    }
 
-        int matches = 0;
-        for (int i = 0; i < sig1.length; i++) {
-            if (Objects.equals(sig1[i], sig2[i])) {
-                matches++;
-            }
-        }
+    @Override
+    public int[] prepareTokens(final String[] tokens) {
+        LongArrayList codes = this.buffers.get().codes1;
+        encode(tokens, codes);
+        return minHash.signature(codes, countDuplicates);
+    }
+
+    @Override
+    public double calculatePrepared(final int[] signature1, final int[] signature2, final double minSimilarity) {
+        double similarity;
+        if (signature1.length == 0 || signature2.length == 0)
+            similarity = signature1.length == signature2.length ? 1.0 : 0.0;
+        else
+            similarity = this.similarity(MinHash.countMatches(signature1, signature2, minHash.getNumHashFunctions(), bitsPerHash));
+        return similarity >= minSimilarity ? similarity : BELOW_THRESHOLD;
+    }
+
+    /**
+     * Returns the compact signature of the given input, which keeps bitsPerHash bits per hash function.
+     * @param input The input string; null counts as the empty string.
+     * @return The packed signature.
+     */
+    public BBitSignature sketch(final String input) {
+        SignatureBuffers buffers = this.buffers.get();
+        chunker.tokenize(input == null ? "" : input, buffers.codes1);
+        return this.sketch(buffers);
+    }
+
+    /**
+     * Returns the compact signature of the given tokens, which keeps bitsPerHash bits per hash function.
+     * @param tokens The tokens; null counts as no tokens.
+     * @return The packed signature.
+     */
+    public BBitSignature sketchTokens(final String[] tokens) {
+        SignatureBuffers buffers = this.buffers.get();
+        encode(tokens, buffers.codes1);
+        return this.sketch(buffers);
+    }
+
+    /**
+     * Calculates the similarity of two compact signatures created by sketch(...) or sketchTokens(...).
+     * @param sketch1 The first signature.
+     * @param sketch2 The second signature.
+     * @param minSimilarity The similarity threshold.
+     * @return The estimated similarity or BELOW_THRESHOLD if it is smaller than minSimilarity.
+     */
+    public double calculateSketches(final BBitSignature sketch1, final BBitSignature sketch2, final double minSimilarity) {
+        double similarity;
+        if (sketch1.isEmpty() || sketch2.isEmpty())
+            similarity = sketch1.isEmpty() == sketch2.isEmpty() ? 1.0 : 0.0;
+        else
+            similarity = this.similarity(sketch1.countMatches(sketch2));
+        return similarity >= minSimilarity ? similarity : BELOW_THRESHOLD;
+    }
 
+    private BBitSignature sketch(SignatureBuffers buffers) {
+        boolean hasTokens = minHash.signature(buffers.codes1, countDuplicates, buffers.signature1);
+        return BBitSignature.of(buffers.signature1, hasTokens ? minHash.getNumHashFunctions() : 0, bitsPerHash);
+    }
+
+    private double calculate(SignatureBuffers buffers) {
+        boolean hasTokens1 = minHash.signature(buffers.codes1, countDuplicates, buffers.signature1);
+        boolean hasTokens2 = minHash.signature(buffers.codes2, countDuplicates, buffers.signature2);
+
+        // Inputs without tokens are equal to each other, but share nothing with any other input
+        if (!hasTokens1 || !hasTokens2)
+            return hasTokens1 == hasTokens2 ? 1.0 : 0.0;
+        return this.similarity(MinHash.countMatches(buffers.signature1, buffers.signature2, minHash.getNumHashFunctions(), bitsPerHash));
+    }
+
+    private double similarity(int matches) {
+        double estimate = BBitSignature.estimate(matches, minHash.getNumHashFunctions(), bitsPerHash);
         if (countDuplicates) {
-            // Bag mode: union = both signature lengths combined
-            return (double) matches / (sig1.length + sig2.length);
+            // Bag mode: the union counts the tokens of both bags
+            return estimate / (1 + estimate);
         } else {
-            // Set mode: union = signature length (since no duplicates)
-            int unionSize = sig1.length;
-            int effectiveUnion = unionSize == matches ? unionSize : unionSize + (sig1.length - matches);
-            return (double) matches / effectiveUnion;
+            // Set mode: the (bias-corrected) fraction of agreeing entries estimates the Jaccard similarity directly
+            return estimate;
+        }
+    }
+
+    private static void encode(String[] tokens, LongArrayList codes) {
+        codes.clear();
+        if (tokens != null)
+            for (String token : tokens)
+                codes.add(Tokenizer.code(token == null ? "" : token));
+    }
+
+    private static class SignatureBuffers {
+
+        private final LongArrayList codes1 = new LongArrayList();
+        private final LongArrayList codes2 = new LongArrayList();
+        private final int[] signature1;
+        private final int[] signature2;
+
+        private SignatureBuffers(int numHashFunctions) {
+            this.signature1 = new int[numHashFunctions];
+            this.signature2 = new int[numHashFunctions];
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,73 @@
+package de.di.similarity_measures;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * A similarity measure that can convert values into a prepared form once and then compare the prepared forms
+ * repeatedly. Callers that compare the same value many times, such as the window of the sorted neighborhood method,
+ * should prepare every value only once and reuse it for all of its comparisons. The batch calculations do so
+ * automatically: every input is prepared once, not once per pair.
+ * @param <T> The type of the prepared values.
+ */
+public interface PreparableSimilarityMeasure<T> extends SimilarityMeasure {
+
+    /**
+     * Converts the given value into its prepared form. Prepared values are immutable and can be shared across threads.
+     * @param value The value to prepare; null is treated like the empty string.
+     * @return The prepared value.
+     */
+    T prepare(final String value);
+
+    /**
+     * Converts the given token list into its prepared form.
+     * @param tokens The token list to prepare; null is treated like an empty list.
+     * @return The prepared token list.
+     */
+    T prepareTokens(final String[] tokens);
+
+    /**
+     * Calculates the similarity of the two prepared values like calculate(String, String, double) for their
+     * original values.
+     * @param value1 The first prepared value.
+     * @param value2 The second prepared value.
+     * @param minSimilarity The minimum similarity of interest.
+     * @return The exact similarity if it is at least minSimilarity, otherwise BELOW_THRESHOLD.
+     */
+    double calculatePrepared(final T value1, final T value2, final double minSimilarity);
+
+    @Override
+    default double[] calculateAll(final String query, final String[] candidates) {
+        T preparedQuery = this.prepare(query);
+        double[] similarities = new double[candidates.length];
+        IntStream.range(0, candidates.length).parallel()
+                .forEach(j -> similarities[j] = this.calculatePrepared(preparedQuery, this.prepare(candidates[j]), Double.NEGATIVE_INFINITY));
+        return similarities;
+    }
+
+    @Override
+    default double[][] calculateMatrix(final String[] strings1, final String[] strings2) {
+        return this.calculatePreparedMatrix(prepareAll(strings1, this::prepare), prepareAll(strings2, this::prepare));
+    }
+
+    @Override
+    default double[][] calculateTokenMatrix(final String[][] tokenLists1, final String[][] tokenLists2) {
+        return this.calculatePreparedMatrix(prepareAll(tokenLists1, this::prepareTokens), prepareAll(tokenLists2, this::prepareTokens));
+    }
+
+    private double[][] calculatePreparedMatrix(final List<T> prepared1, final List<T> prepared2) {
+        double[][] similarities = new double[prepared1.size()][prepared2.size()];
+        IntStream.range(0, prepared1.size()).parallel().forEach(i -> {
+            for (int j = 0; j < prepared2.size(); j++)
+                similarities[i][j] = this.calculatePrepared(prepared1.get(i), prepared2.get(j), Double.NEGATIVE_INFINITY);
+        });
+        return similarities;
+    }
+
+    private static <V, T> List<T> prepareAll(final V[] values, final Function<V, T> preparation) {
+        return Stream.of(values).parallel().map(preparation).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,341 @@
+package de.di.similarity_measures;
+
+import de.di.Column;
+import de.di.Relation;
+import de.di.similarity_measures.helper.SimilarityKernels;
+import de.di.similarity_measures.helper.Tokenizer;
+import de.di.similarity_measures.structures.SimilarPair;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds all pairs of values whose Jaccard similarity, as calculated by a Jaccard object with the same tokenizer and
+ * semantics, reaches a threshold. The join follows PPJoin: all tokens are ordered globally by ascending frequency,
+ * so that every value starts with its rarest tokens. Two values can only reach the threshold if they share a token
+ * within their prefixes, whose lengths follow from the threshold, so only the prefixes are probed, and only the even
+ * shorter prefixes that suffice for larger partners are indexed.
+ * Values are processed in ascending order of their token counts; the length filter skips indexed values that are too
+ * short, and the positional filter drops candidates whose overlap cannot reach the threshold given the positions of
+ * their shared prefix tokens. The surviving candidates are verified with a merge of their token arrays.
+ * <p>
+ * With bag semantics, the i-th occurrence of a token becomes a token of its own, so bags are joined as sets whose
+ * overlap is the bag overlap.
+ */
+public class SimilarityJoin {
+
+    // Protects the filters against rounding errors; filters may only be too loose, never too strict
+    private static final double EPSILON = 1e-9;
+
+    private static final int PRUNED = -1;
+
+    private static final SimilarityKernels KERNELS = SimilarityKernels.get();
+
+    private final Tokenizer tokenizer;
+    private final boolean allowDuplicates;
+    private final double threshold;
+
+    public SimilarityJoin(Tokenizer tokenizer, boolean allowDuplicates, double threshold) {
+        if (threshold <= 0 || threshold > 1)
+            throw new IllegalArgumentException("The threshold must be in (0, 1], but is " + threshold);
+        this.tokenizer = tokenizer;
+        this.allowDuplicates = allowDuplicates;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Returns all pairs of values of the two collections whose similarity reaches the threshold.
+     * @param values1 The first collection; null values are treated as empty strings.
+     * @param values2 The second collection; null values are treated as empty strings.
+     * @return The qualifying pairs, ordered by their indexes, with index1 in values1 and index2 in values2.
+     */
+    public List<SimilarPair> join(String[] values1, String[] values2) {
+        String[] values = new String[values1.length + values2.length];
+        System.arraycopy(values1, 0, values, 0, values1.length);
+        System.arraycopy(values2, 0, values, values1.length, values2.length);
+        return this.run(this.encode(values), values1.length, false);
+    }
+
+    /**
+     * Returns all pairs of distinct positions of the collection whose values' similarity reaches the threshold.
+     * @param values The collection; null values are treated as empty strings.
+     * @return The qualifying pairs, ordered by their indexes, with index1 < index2.
+     */
+    public List<SimilarPair> selfJoin(String[] values) {
+        return this.run(this.encode(values), values.length, true);
+    }
+
+    /**
+     * Returns all pairs of records of the two relations whose values of the given attributes reach the threshold.
+     * Only the distinct values of the two columns are joined; the value pairs are then expanded to record pairs.
+     * @param relation1 The first relation.
+     * @param attribute1 The attribute of the first relation.
+     * @param relation2 The second relation.
+     * @param attribute2 The attribute of the second relation.
+     * @return The qualifying pairs, ordered by their indexes, with index1 a record of relation1 and index2 a record of
+     * relation2.
+     */
+    public List<SimilarPair> join(Relation relation1, int attribute1, Relation relation2, int attribute2) {
+        Column column1 = relation1.getColumn(attribute1);
+        Column column2 = relation2.getColumn(attribute2);
+        List<SimilarPair> valuePairs = this.join(column1.getDictionary(), column2.getDictionary());
+
+        IntArrayList[] records1 = recordsPerCode(column1);
+        IntArrayList[] records2 = recordsPerCode(column2);
+        List<SimilarPair> recordPairs = new ArrayList<>(valuePairs.size());
+        for (SimilarPair valuePair : valuePairs)
+            for (int record1 : records1[valuePair.getIndex1()])
+                for (int record2 : records2[valuePair.getIndex2()])
+                    recordPairs.add(new SimilarPair(record1, record2, valuePair.getSimilarity()));
+        Collections.sort(recordPairs);
+        return recordPairs;
+    }
+
+    private static IntArrayList[] recordsPerCode(Column column) {
+        IntArrayList[] records = new IntArrayList[column.getNumDistinct()];
+        for (int code = 0; code < records.length; code++)
+            records[code] = new IntArrayList(1);
+        int[] codes = column.getCodes();
+        for (int record = 0; record < codes.length; record++)
+            records[codes[record]].add(record);
+        return records;
+    }
+
+    /**
+     * Converts every value into the ascending array of the global ranks of its tokens, where rare tokens have low
+     * ranks.
+     */
+    private int[][] encode(String[] values) {
+        Long2IntOpenHashMap codeIds = new Long2IntOpenHashMap();
+        codeIds.defaultReturnValue(-1);
+        Long2IntOpenHashMap tokenIds = new Long2IntOpenHashMap();
+        tokenIds.defaultReturnValue(-1);
+        IntArrayList frequencies = new IntArrayList();
+
+        int[][] sets = new int[values.length][];
+        LongArrayList codes = new LongArrayList();
+        IntArrayList tokens = new IntArrayList();
+        for (int v = 0; v < values.length; v++) {
+            this.tokenizer.tokenize(values[v] == null ? "" : values[v], codes);
+            long[] elements = codes.elements();
+            LongArrays.quickSort(elements, 0, codes.size());
+
+            tokens.clear();
+            int occurrence = 0;
+            for (int i = 0; i < codes.size(); i++) {
+                boolean repeated = i > 0 && elements[i] == elements[i - 1];
+                if (repeated && !this.allowDuplicates)
+                    continue;
+                occurrence = repeated ? occurrence + 1 : 0;
+
+                int codeId = codeIds.get(elements[i]);
+                if (codeId == -1) {
+                    codeId = codeIds.size();
+                    codeIds.put(elements[i], codeId);
+                }
+                long key = ((long) occurrence << 32) | codeId;
+                int tokenId = tokenIds.get(key);
+                if (tokenId == -1) {
+                    tokenId = tokenIds.size();
+                    tokenIds.put(key, tokenId);
+                    frequencies.add(0);
+                }
+                frequencies.set(tokenId, frequencies.getInt(tokenId) + 1);
+                tokens.add(tokenId);
+            }
+            sets[v] = tokens.toIntArray();
+        }
+
+        int[] tokensByFrequency = new int[frequencies.size()];
+        for (int token = 0; token < tokensByFrequency.length; token++)
+            tokensByFrequency[token] = token;
+        int[] frequency = frequencies.elements();
+        IntArrays.quickSort(tokensByFrequency, (t1, t2) -> frequency[t1] != frequency[t2]
+                ? Integer.compare(frequency[t1], frequency[t2]) : Integer.compare(t1, t2));
+        int[] rank = new int[tokensByFrequency.length];
+        for (int i = 0; i < tokensByFrequency.length; i++)
+            rank[tokensByFrequency[i]] = i;
+
+        for (int[] set : sets) {
+            for (int i = 0; i < set.length; i++)
+                set[i] = rank[set[i]];
+            Arrays.sort(set);
+        }
+        return sets;
+    }
+
+    /**
+     * Joins the first numLeft sets with the remaining ones or, for a self-join, all sets with each other.
+     */
+    private List<SimilarPair> run(int[][] sets, int numLeft, boolean self) {
+        int numSets = sets.length;
+        int numTokens = 0;
+        for (int[] set : sets)
+            for (int token : set)
+                numTokens = Math.max(numTokens, token + 1);
+
+        // Process the sets in ascending order of their sizes
+        int[] order = new int[numSets];
+        for (int s = 0; s < numSets; s++)
+            order[s] = s;
+        IntArrays.stableSort(order, (s1, s2) -> Integer.compare(sets[s1].length, sets[s2].length));
+
+        // One prefix index per side; a self-join uses only the first. Entries are (set, position) pairs.
+        TokenIndex[] indexes = new TokenIndex[]{new TokenIndex(numTokens), self ? null : new TokenIndex(numTokens)};
+        int[] overlaps = new int[numSets];
+        IntArrayList candidates = new IntArrayList();
+        IntArrayList emptySets = new IntArrayList();
+        List<SimilarPair> pairs = new ArrayList<>();
+
+        for (int x : order) {
+            int[] setX = sets[x];
+            int sideX = self || x < numLeft ? 0 : 1;
+            int lengthX = setX.length;
+
+            // Empty sets are equal to each other, but share no token with any other set
+            if (lengthX == 0) {
+                for (int e = 0; e < emptySets.size(); e++) {
+                    int y = emptySets.getInt(e);
+                    if (self || (y < numLeft) != (x < numLeft))
+                        pairs.add(this.pairOf(x, y, 1.0, numLeft, self));
+                }
+                emptySets.add(x);
+                continue;
+            }
+
+            int prefixLength = this.prefixLength(lengthX);
+            int minLength = this.minLength(lengthX);
+            TokenIndex probed = indexes[self ? 0 : 1 - sideX];
+
+            for (int i = 0; i < prefixLength; i++) {
+                int token = setX[i];
+                IntArrayList entries = probed.entries[token];
+                if (entries == null)
+                    continue;
+
+                // Earlier sets are never longer, so sets that are too short now stay too short for all later sets
+                int start = probed.starts[token];
+                while (start < entries.size() && sets[entries.getInt(start)].length < minLength)
+                    start += 2;
+                probed.starts[token] = start;
+
+                for (int e = start; e < entries.size(); e += 2) {
+                    int y = entries.getInt(e);
+                    if (overlaps[y] == PRUNED)
+                        continue;
+                    int j = entries.getInt(e + 1);
+                    int lengthY = sets[y].length;
+
+                    if (overlaps[y] == 0)
+                        candidates.add(y);
+                    int maxOverlap = overlaps[y] + 1 + Math.min(lengthX - i - 1, lengthY - j - 1);
+                    if (maxOverlap >= this.requiredOverlap(lengthX, lengthY))
+                        overlaps[y]++;
+                    else
+                        overlaps[y] = PRUNED;
+                }
+            }
+
+            for (int c = 0; c < candidates.size(); c++) {
+                int y = candidates.getInt(c);
+                if (overlaps[y] != PRUNED) {
+                    double similarity = this.similarity(setX, sets[y], (int) this.requiredOverlap(lengthX, sets[y].length));
+                    if (similarity >= this.threshold)
+                        pairs.add(this.pairOf(x, y, similarity, numLeft, self));
+                }
+                overlaps[y] = 0;
+            }
+            candidates.clear();
+
+            TokenIndex own = indexes[sideX];
+            int indexPrefixLength = this.indexPrefixLength(lengthX);
+            for (int i = 0; i < indexPrefixLength; i++)
+                own.add(setX[i], x, i);
+        }
+
+        Collections.sort(pairs);
+        return pairs;
+    }
+
+    private SimilarPair pairOf(int x, int y, double similarity, int numLeft, boolean self) {
+        if (self)
+            return new SimilarPair(Math.min(x, y), Math.max(x, y), similarity);
+        return x < numLeft ? new SimilarPair(x, y - numLeft, similarity) : new SimilarPair(y, x - numLeft, similarity);
+    }
+
+    /**
+     * Returns the number of leading tokens of a set of the given size that must be indexed and probed: a set shares at
+     * least requiredOverlap tokens with any qualifying partner, so it shares a token within this prefix.
+     */
+    private int prefixLength(int length) {
+        double minOverlap = this.allowDuplicates ?
+                (this.threshold >= 1 ? Double.POSITIVE_INFINITY : this.threshold / (1 - this.threshold) * length) :
+                this.threshold * length;
+        return (int) Math.max(0, Math.min(length, length - Math.ceil(minOverlap - EPSILON) + 1));
+    }
+
+    /**
+     * Returns the number of leading tokens of a set of the given size that must be indexed. All sets that probe the
+     * index later are at least as large, which raises the required overlap and, hence, shortens the prefix.
+     */
+    private int indexPrefixLength(int length) {
+        double minOverlap = this.requiredOverlap(length, length);
+        return (int) Math.max(0, Math.min(length, length - minOverlap + 1));
+    }
+
+    // Returns the smallest size that a not larger set needs to reach the threshold with a set of the given size
+    private int minLength(int length) {
+        if (this.allowDuplicates)
+            return this.threshold >= 1 ? Integer.MAX_VALUE : (int) Math.ceil(this.threshold / (1 - this.threshold) * length - EPSILON);
+        return (int) Math.ceil(this.threshold * length - EPSILON);
+    }
+
+    // Returns the smallest overlap with which two sets of the given sizes reach the threshold
+    private double requiredOverlap(int length1, int length2) {
+        if (this.allowDuplicates)
+            return Math.ceil(this.threshold * (length1 + length2) - EPSILON);
+        return Math.ceil(this.threshold / (1 + this.threshold) * (length1 + length2) - EPSILON);
+    }
+
+    // Calculates the similarity exactly like Jaccard does for the original values or returns -1 as soon as the overlap
+    // cannot reach the required overlap anymore
+    private double similarity(int[] set1, int[] set2, int requiredOverlap) {
+        int overlap = KERNELS.countShared(set1, set2, requiredOverlap);
+        if (overlap < 0)
+            return -1;
+        if (this.allowDuplicates)
+            return (double) overlap / (set1.length + set2.length);
+        return (double) overlap / (set1.length + set2.length - overlap);
+    }
+
+    /**
+     * The inverted index of the indexed prefixes: per token, the sets whose prefix contains it together with the
+     * token's position in the set.
+     */
+    private static class TokenIndex {
+
+        private final IntArrayList[] entries;
+
+        // Per token, the first entry whose set is still long enough for the sets that are yet to be probed
+        private final int[] starts;
+
+        private TokenIndex(int numTokens) {
+            this.entries = new IntArrayList[numTokens];
+            this.starts = new int[numTokens];
+        }
+
+        private void add(int token, int set, int position) {
+            if (this.entries[token] == null)
+                this.entries[token] = new IntArrayList(4);
+            this.entries[token].add(set);
+            this.entries[token].add(position);
+        }
+    }
+}
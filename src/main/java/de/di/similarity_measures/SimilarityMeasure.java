@@ -1,11 +1,86 @@
 package de.di.similarity_measures;
 
+import java.util.stream.IntStream;
+
 public interface SimilarityMeasure {
 
+    // The value that threshold-aware calculations return for pairs that do not reach the threshold; it is smaller
+    // than every valid similarity.
+    double BELOW_THRESHOLD = -1.0;
+
     double calculate(final String string1, final String string2);
 
     double calculate(final String[] strings1, final String[] strings2);
-}
 
+    /**
+     * Calculates the similarity of the two strings, but only if it reaches the given minimum similarity. Callers that
+     * only need to know whether a pair clears a threshold should prefer this method, because implementations may
+     * stop as soon as they can tell that the similarity stays below the threshold.
+     * @param string1 The first string.
+     * @param string2 The second string.
+     * @param minSimilarity The minimum similarity of interest.
+     * @return The exact similarity if it is at least minSimilarity, otherwise BELOW_THRESHOLD.
+     */
+    default double calculate(final String string1, final String string2, final double minSimilarity) {
+        double similarity = this.calculate(string1, string2);
+        return similarity >= minSimilarity ? similarity : BELOW_THRESHOLD;
+    }
 
+    /**
+     * Calculates the similarity of the two token lists, but only if it reaches the given minimum similarity.
+     * @param strings1 The first token list.
+     * @param strings2 The second token list.
+     * @param minSimilarity The minimum similarity of interest.
+     * @return The exact similarity if it is at least minSimilarity, otherwise BELOW_THRESHOLD.
+     */
+    default double calculate(final String[] strings1, final String[] strings2, final double minSimilarity) {
+        double similarity = this.calculate(strings1, strings2);
+        return similarity >= minSimilarity ? similarity : BELOW_THRESHOLD;
+    }
 
+    /**
+     * Calculates the similarities of the query to all candidates. The candidates are spread over the common fork-join
+     * pool, so implementations must be thread-safe.
+     * @param query The query string.
+     * @param candidates The candidate strings.
+     * @return The similarity of the query to each candidate.
+     */
+    default double[] calculateAll(final String query, final String[] candidates) {
+        double[] similarities = new double[candidates.length];
+        IntStream.range(0, candidates.length).parallel()
+                .forEach(j -> similarities[j] = this.calculate(query, candidates[j]));
+        return similarities;
+    }
+
+    /**
+     * Calculates the similarities of all pairs of strings of the two arrays. The rows are spread over the common
+     * fork-join pool, so implementations must be thread-safe.
+     * @param strings1 The strings of the rows.
+     * @param strings2 The strings of the columns.
+     * @return The matrix whose cell [i][j] holds the similarity of strings1[i] and strings2[j].
+     */
+    default double[][] calculateMatrix(final String[] strings1, final String[] strings2) {
+        double[][] similarities = new double[strings1.length][strings2.length];
+        IntStream.range(0, strings1.length).parallel().forEach(i -> {
+            for (int j = 0; j < strings2.length; j++)
+                similarities[i][j] = this.calculate(strings1[i], strings2[j]);
+        });
+        return similarities;
+    }
+
+    /**
+     * Calculates the similarities of all pairs of token lists of the two arrays like calculateMatrix(String[],
+     * String[]) does for strings.
+     * @param tokenLists1 The token lists of the rows.
+     * @param tokenLists2 The token lists of the columns.
+     * @return The matrix whose cell [i][j] holds the similarity of tokenLists1[i] and tokenLists2[j].
+     */
+    default double[][] calculateTokenMatrix(final String[][] tokenLists1, final String[][] tokenLists2) {
+        double[][] similarities = new double[tokenLists1.length][tokenLists2.length];
+        IntStream.range(0, tokenLists1.length).parallel().forEach(i -> {
+            for (int j = 0; j < tokenLists2.length; j++)
+                similarities[i][j] = this.calculate(tokenLists1[i], tokenLists2[j]);
+        });
+        return similarities;
+    }
+}
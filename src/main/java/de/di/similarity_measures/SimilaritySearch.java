@@ -0,0 +1,500 @@
+package de.di.similarity_measures;
+
+import de.di.similarity_measures.helper.TokenSet;
+import de.di.similarity_measures.helper.Tokenizer;
+import de.di.similarity_measures.structures.SimilarityMatch;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * A SimilaritySearch answers top-k queries over a collection of values: it returns the k values that are most
+ * similar to a query string, either by Jaccard or by Levenshtein similarity. The values are indexed in a q-gram
+ * inverted index built with a Tokenizer, whose posting lists hold the values that contain a token ordered by their
+ * length.
+ * <p>
+ * A query proceeds in stages with a decreasing similarity threshold t. In every stage, the length filter restricts
+ * each posting list to the range of lengths that can reach t, and the count filter bounds the number of tokens that
+ * a value must share with the query to reach t: the overlap for Jaccard and the q-gram count lemma for Levenshtein.
+ * Only the rarest query tokens up to the point where the remaining tokens could no longer provide that overlap open
+ * candidates; the other tokens merely count the overlaps of the open candidates. Only candidates whose overlap can
+ * reach t are verified with the similarity measure. The search terminates early as soon as the k-th best verified
+ * similarity reaches t, because all unverified values are less similar than t.
+ * <p>
+ * Only values with a positive similarity are returned. For Levenshtein, a positive similarity does not require a
+ * shared q-gram, so a query that finds fewer than k values above the count filter's reach ends with a scan.
+ */
+public class SimilaritySearch {
+
+    // Protects the filters against rounding errors; filters may only be too loose, never too strict
+    private static final double EPSILON = 1e-9;
+
+    // The threshold of the second stage is this much lower than the first; every further step is twice the previous
+    // one, so that the total cost of all stages stays close to the cost of the last one
+    private static final double FIRST_THRESHOLD_STEP = 0.1;
+
+    // The candidates are verified in this many buckets of descending similarity bounds
+    private static final int NUM_BOUND_BUCKETS = 64;
+
+    private enum Mode { JACCARD_SET, JACCARD_BAG, LEVENSHTEIN }
+
+    private final String[] values;
+    private final Tokenizer tokenizer;
+    private final Mode mode;
+    private final SimilarityMeasure measure;
+
+    // The number of q-grams that one edit can change at most; a transposition changes one more than the others
+    private final int tokensPerEdit;
+
+    // The length of each value: its number of distinct tokens, of tokens or of chars, depending on the mode
+    private final int[] lengths;
+
+    // The value indexes ordered by length and index
+    private final int[] lengthOrder;
+
+    // The posting list of each token: the indexes of the values that contain the token, ordered by length and index
+    private final Long2ObjectOpenHashMap<int[]> postings;
+
+    // The per-value counters of the queries; they are reused per thread
+    private final ThreadLocal<SearchBuffers> buffers;
+
+    @Getter
+    private final int maxLength;
+
+    private SimilaritySearch(String[] values, Tokenizer tokenizer, Mode mode, SimilarityMeasure measure, int tokensPerEdit) {
+        this.values = values;
+        this.tokenizer = tokenizer;
+        this.mode = mode;
+        this.measure = measure;
+        this.tokensPerEdit = tokensPerEdit;
+        this.buffers = ThreadLocal.withInitial(() -> new SearchBuffers(values.length));
+
+        long[][] tokens = new long[values.length][];
+        this.lengths = new int[values.length];
+        LongArrayList codes = new LongArrayList();
+        int maxLength = 0;
+        for (int i = 0; i < values.length; i++) {
+            TokenSet tokenSet = this.tokenize(valueOf(values, i), codes);
+            tokens[i] = tokenSet.getTokens();
+            this.lengths[i] = this.lengthOf(valueOf(values, i), tokenSet);
+            maxLength = Math.max(maxLength, this.lengths[i]);
+        }
+        this.maxLength = maxLength;
+
+        this.lengthOrder = IntStream.range(0, values.length).toArray();
+        IntArrays.parallelQuickSort(this.lengthOrder, (a, b) -> this.lengths[a] != this.lengths[b] ?
+                Integer.compare(this.lengths[a], this.lengths[b]) : Integer.compare(a, b));
+
+        // Adding the values in length order sorts every posting list by length
+        Long2ObjectOpenHashMap<IntArrayList> lists = new Long2ObjectOpenHashMap<>();
+        for (int index : this.lengthOrder)
+            for (long token : tokens[index])
+                lists.computeIfAbsent(token, t -> new IntArrayList(1)).add(index);
+        this.postings = new Long2ObjectOpenHashMap<>(lists.size());
+        lists.long2ObjectEntrySet().fastForEach(entry -> {
+            entry.getValue().trim();
+            this.postings.put(entry.getLongKey(), entry.getValue().elements());
+        });
+    }
+
+    /**
+     * Indexes the given values for top-k queries by Jaccard similarity, as calculated by a Jaccard object with the
+     * same tokenizer and semantics.
+     * @param values The values to index, e.g., the dictionary of a column; null values are treated as empty strings.
+     * @param tokenizer The tokenizer that splits the values into tokens.
+     * @param allowDuplicates Flag to indicate whether the Jaccard similarity uses bag semantics.
+     * @return The search over the values.
+     */
+    public static SimilaritySearch jaccard(String[] values, Tokenizer tokenizer, boolean allowDuplicates) {
+        Mode mode = allowDuplicates ? Mode.JACCARD_BAG : Mode.JACCARD_SET;
+        return new SimilaritySearch(values, tokenizer, mode, new Jaccard(tokenizer, allowDuplicates), 0);
+    }
+
+    /**
+     * Indexes the given values for top-k queries by Levenshtein similarity, as calculated by a Levenshtein object.
+     * The values are indexed by their padded q-grams, which serve only the count filter.
+     * @param values The values to index, e.g., the dictionary of a column; null values are treated as empty strings.
+     * @param q The length of the q-grams; short q-grams keep the count filter effective for lower thresholds.
+     * @param useDamerau Flag to indicate whether adjacent transpositions count as a single edit.
+     * @return The search over the values.
+     */
+    public static SimilaritySearch levenshtein(String[] values, int q, boolean useDamerau) {
+        if (q < 1)
+            throw new IllegalArgumentException("The q-gram length must be positive, but is " + q);
+        return new SimilaritySearch(values, new Tokenizer(q, true), Mode.LEVENSHTEIN, new Levenshtein(useDamerau), useDamerau ? q + 1 : q);
+    }
+
+    /**
+     * Returns the value with the given index.
+     * @param index The index of a value, e.g., of a search result.
+     * @return The value with that index.
+     */
+    public String getValue(int index) {
+        return this.values[index];
+    }
+
+    /**
+     * Finds the k values that are most similar to the query.
+     * @param query The string to search for; null is searched as the empty string.
+     * @param k The maximum number of results.
+     * @return At most k matches with positive similarity, best first, i.e., ordered by descending similarity and, on
+     * equal similarities, by ascending index.
+     */
+    public List<SimilarityMatch> topK(String query, int k) {
+        if (k < 1)
+            throw new IllegalArgumentException("The number of results must be positive, but is " + k);
+        query = query == null ? "" : query;
+
+        Query state = new Query(query, this.tokenize(query, new LongArrayList()), k, this.buffers.get().next());
+        if (this.mode != Mode.LEVENSHTEIN && state.tokens.getNumDistinct() == 0) {
+            // An empty token set is similar only to other empty token sets, which are the shortest values
+            for (int i = 0; i < this.lengthOrder.length && this.lengths[this.lengthOrder[i]] == 0 && state.best.size() < k; i++)
+                state.best.add(new SimilarityMatch(this.lengthOrder[i], 1.0));
+            return state.results();
+        }
+
+        double threshold = 1.0;
+        double step = FIRST_THRESHOLD_STEP;
+        while (true) {
+            this.probe(state, threshold);
+            if (state.best.size() == k && state.best.peek().getSimilarity() >= threshold)
+                break;
+            if (threshold <= 0)
+                break;
+            double next = threshold - step;
+            step *= 2;
+            if (state.best.size() == k)
+                next = Math.max(next, state.best.peek().getSimilarity());
+            threshold = next < EPSILON ? 0 : next;
+        }
+        return state.results();
+    }
+
+    /**
+     * Finds, for every query, the k values that are most similar to it. The queries are searched in parallel.
+     * @param queries The strings to search for.
+     * @param k The maximum number of results per query.
+     * @return The matches of every query in the order of the queries.
+     */
+    public List<List<SimilarityMatch>> topKAll(String[] queries, int k) {
+        return IntStream.range(0, queries.length).parallel()
+                .mapToObj(i -> this.topK(queries[i], k))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Verifies all values that can reach the given threshold and have not been verified yet.
+     */
+    private void probe(Query state, double threshold) {
+        int queryLength = this.lengthOf(state.query, state.tokens);
+        int minLength;
+        int maxLength;
+        int minOverlap;
+        if (this.mode == Mode.JACCARD_BAG) {
+            // The bag similarity is at most 0.5 and reaches t only if both bags are long enough for each other
+            if (threshold > 0.5 + EPSILON)
+                return;
+            minLength = (int) Math.ceil(threshold * queryLength / (1 - threshold) - EPSILON);
+            maxLength = threshold <= 0 ? this.maxLength : (int) Math.floor(queryLength * (1 - threshold) / threshold + EPSILON);
+            minOverlap = Math.max(1, (int) Math.ceil(threshold * queryLength - EPSILON));
+        } else {
+            minLength = (int) Math.ceil(threshold * queryLength - EPSILON);
+            maxLength = threshold <= 0 ? this.maxLength : (int) Math.floor(queryLength / threshold + EPSILON);
+            minOverlap = this.mode == Mode.JACCARD_SET ? Math.max(1, minLength) : 0;
+        }
+        maxLength = Math.min(maxLength, this.maxLength);
+        if (minLength > maxLength)
+            return;
+
+        if (this.mode == Mode.LEVENSHTEIN) {
+            // The q-gram count lemma for the most permissive length in the range
+            int queryTokens = this.tokenizer.countTokens(queryLength);
+            minOverlap = Integer.MAX_VALUE;
+            for (int length = minLength; length <= maxLength; length++) {
+                int longer = Math.max(queryLength, length);
+                int maxDistance = (int) Math.floor((1 - threshold) * longer + EPSILON);
+                int overlap = Math.max(queryTokens, this.tokenizer.countTokens(length)) - maxDistance * this.tokensPerEdit;
+                minOverlap = Math.min(minOverlap, overlap);
+            }
+            // If the count filter cannot prune, all tokens open candidates, and the values without any shared token
+            // are considered after them
+            minOverlap = Math.max(0, minOverlap);
+        }
+
+        // A value that shares none of the prefix tokens shares at most the weight of the remaining ones, so only the
+        // prefix tokens open candidates; the other tokens merely add to the overlaps of the open candidates
+        SearchBuffers buffers = state.buffers;
+        int[] overlaps = buffers.overlaps;
+        IntArrayList candidates = buffers.candidates;
+        int remaining = state.totalWeight;
+        for (int i = 0; i < state.order.length; i++) {
+            int token = state.order[i];
+            boolean prefix = remaining >= minOverlap;
+            remaining -= state.weights[token];
+            if (!prefix && candidates.isEmpty())
+                break;
+            int[] posting = this.postings.get(state.tokens.getTokens()[token]);
+            if (posting == null)
+                continue;
+            int from = this.firstWithLength(posting, 0, posting.length, minLength, 0);
+            int to = this.firstWithLength(posting, from, posting.length, maxLength + 1, 0);
+
+            if (!prefix && (long) candidates.size() * (32 - Integer.numberOfLeadingZeros(to - from)) < to - from) {
+                // Looking the few open candidates up is cheaper than scanning the posting list
+                for (int c = 0; c < candidates.size(); c++) {
+                    int index = candidates.getInt(c);
+                    int position = this.firstWithLength(posting, from, to, this.lengths[index], index);
+                    if (position < to && posting[position] == index)
+                        overlaps[index] += state.weights[token];
+                }
+                continue;
+            }
+            for (int p = from; p < to; p++) {
+                int index = posting[p];
+                if (overlaps[index] == 0) {
+                    if (!prefix || buffers.verified[index] == buffers.stamp)
+                        continue;
+                    candidates.add(index);
+                }
+                overlaps[index] += state.weights[token];
+            }
+        }
+
+        // The overlaps count the query's occurrences of every shared token, so they bound the similarities from above;
+        // the candidates are verified in descending buckets of their bounds to raise the k-th best similarity quickly
+        int[] bucketStarts = buffers.bucketStarts;
+        Arrays.fill(bucketStarts, 0);
+        for (int c = 0; c < candidates.size(); c++) {
+            int index = candidates.getInt(c);
+            double bound = this.similarityBound(queryLength, this.lengths[index], overlaps[index]);
+            if (bound >= threshold - EPSILON)
+                bucketStarts[bucketOf(bound) + 1]++;
+        }
+        for (int bucket = 1; bucket <= NUM_BOUND_BUCKETS; bucket++)
+            bucketStarts[bucket] += bucketStarts[bucket - 1];
+        int[] promising = buffers.promising(bucketStarts[NUM_BOUND_BUCKETS]);
+        int[] positions = buffers.bucketPositions;
+        System.arraycopy(bucketStarts, 0, positions, 0, NUM_BOUND_BUCKETS);
+        for (int c = 0; c < candidates.size(); c++) {
+            int index = candidates.getInt(c);
+            double bound = this.similarityBound(queryLength, this.lengths[index], overlaps[index]);
+            if (bound >= threshold - EPSILON)
+                promising[positions[bucketOf(bound)]++] = index;
+        }
+        for (int bucket = NUM_BOUND_BUCKETS - 1; bucket >= 0; bucket--) {
+            // All bounds of a bucket lie below its upper edge
+            if (state.best.size() == state.k && (double) (bucket + 1) / NUM_BOUND_BUCKETS < state.best.peek().getSimilarity() - EPSILON)
+                break;
+            for (int c = bucketStarts[bucket]; c < bucketStarts[bucket + 1]; c++) {
+                int index = promising[c];
+                double bound = this.similarityBound(queryLength, this.lengths[index], overlaps[index]);
+                if (state.best.size() < state.k || bound >= state.best.peek().getSimilarity() - EPSILON)
+                    this.verify(state, index);
+            }
+        }
+
+        if (minOverlap == 0)
+            this.verifyUnshared(state, queryLength, minLength, maxLength, threshold);
+
+        for (int c = 0; c < candidates.size(); c++)
+            overlaps[candidates.getInt(c)] = 0;
+        candidates.clear();
+    }
+
+    private static int bucketOf(double bound) {
+        return Math.min(NUM_BOUND_BUCKETS - 1, Math.max(0, (int) (bound * NUM_BOUND_BUCKETS)));
+    }
+
+    /**
+     * Verifies the values of admissible length that share no token with the query, length by length, as long as their
+     * similarity bound, which depends only on their length, can reach the threshold and the k-th best similarity.
+     */
+    private void verifyUnshared(Query state, int queryLength, int minLength, int maxLength, double threshold) {
+        int[] overlaps = state.buffers.overlaps;
+        int from = this.firstWithLength(this.lengthOrder, 0, this.lengthOrder.length, minLength, 0);
+        for (int length = minLength; length <= maxLength; length++) {
+            int to = this.firstWithLength(this.lengthOrder, from, this.lengthOrder.length, length + 1, 0);
+            double bound = this.similarityBound(queryLength, length, 0);
+            for (int i = from; i < to && bound >= threshold - EPSILON; i++) {
+                if (state.best.size() == state.k && bound < state.best.peek().getSimilarity() - EPSILON)
+                    break;
+                if (overlaps[this.lengthOrder[i]] == 0)
+                    this.verify(state, this.lengthOrder[i]);
+            }
+            from = to;
+        }
+    }
+
+    /**
+     * Returns an upper bound for the similarity between the query and a value of the given length that shares at
+     * most the given overlap with the query.
+     */
+    private double similarityBound(int queryLength, int length, int overlap) {
+        switch (this.mode) {
+            case JACCARD_SET:
+                return (double) overlap / (queryLength + length - overlap);
+            case JACCARD_BAG:
+                return (double) Math.min(overlap, length) / (queryLength + length);
+            default:
+                // Every edit changes at most tokensPerEdit q-grams, and every unshared q-gram needs a change
+                int unshared = Math.max(this.tokenizer.countTokens(queryLength), this.tokenizer.countTokens(length)) - overlap;
+                int minDistance = Math.max(Math.abs(queryLength - length), (unshared + this.tokensPerEdit - 1) / this.tokensPerEdit);
+                int longer = Math.max(queryLength, length);
+                return longer == 0 ? 1.0 : 1.0 - (double) minDistance / longer;
+        }
+    }
+
+    private void verify(Query state, int index) {
+        SearchBuffers buffers = state.buffers;
+        if (buffers.verified[index] == buffers.stamp)
+            return;
+        buffers.verified[index] = buffers.stamp;
+
+        boolean full = state.best.size() == state.k;
+        double minSimilarity = full ? state.best.peek().getSimilarity() : 0;
+        double similarity = this.measure.calculate(state.query, valueOf(this.values, index), minSimilarity);
+        if (similarity <= 0)
+            return;
+
+        SimilarityMatch match = new SimilarityMatch(index, similarity);
+        if (!full) {
+            state.best.add(match);
+        } else if (match.compareTo(state.best.peek()) < 0) {
+            state.best.poll();
+            state.best.add(match);
+        }
+    }
+
+    private TokenSet tokenize(String value, LongArrayList codes) {
+        this.tokenizer.tokenize(value, codes);
+        return TokenSet.of(codes);
+    }
+
+    private int lengthOf(String value, TokenSet tokenSet) {
+        switch (this.mode) {
+            case JACCARD_SET:
+                return tokenSet.getNumDistinct();
+            case JACCARD_BAG:
+                return tokenSet.getNumTokens();
+            default:
+                return value.length();
+        }
+    }
+
+    /**
+     * Returns the first position within [from, to) of the indexes, which are ordered by length and index, whose value
+     * is not shorter than the given length or, if it has exactly that length, has at least the given index.
+     */
+    private int firstWithLength(int[] indexes, int from, int to, int length, int index) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            int middleLength = this.lengths[indexes[middle]];
+            if (middleLength < length || (middleLength == length && indexes[middle] < index))
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    private static String valueOf(String[] values, int index) {
+        return values[index] == null ? "" : values[index];
+    }
+
+    /**
+     * The state of one top-k query: its tokens in probing order and the best matches so far.
+     */
+    private class Query {
+
+        private final String query;
+        private final TokenSet tokens;
+        private final int k;
+
+        // The positions of the query's distinct tokens ordered by ascending posting list length
+        private final int[] order;
+
+        // The weight of each distinct token: its number of occurrences, or 1 under set semantics
+        private final int[] weights;
+        private final int totalWeight;
+
+        // The best matches with the worst one at the head
+        private final PriorityQueue<SimilarityMatch> best;
+        private final SearchBuffers buffers;
+
+        private Query(String query, TokenSet tokens, int k, SearchBuffers buffers) {
+            this.query = query;
+            this.tokens = tokens;
+            this.k = k;
+            this.buffers = buffers;
+            this.best = new PriorityQueue<>(k, Comparator.reverseOrder());
+
+            int numDistinct = tokens.getNumDistinct();
+            int[] postingLengths = new int[numDistinct];
+            this.weights = new int[numDistinct];
+            int totalWeight = 0;
+            for (int i = 0; i < numDistinct; i++) {
+                int[] posting = SimilaritySearch.this.postings.get(tokens.getTokens()[i]);
+                postingLengths[i] = posting == null ? 0 : posting.length;
+                this.weights[i] = SimilaritySearch.this.mode == Mode.JACCARD_SET ? 1 : tokens.getCounts()[i];
+                totalWeight += this.weights[i];
+            }
+            this.totalWeight = totalWeight;
+            this.order = IntStream.range(0, numDistinct).toArray();
+            IntArrays.quickSort(this.order, (a, b) -> Integer.compare(postingLengths[a], postingLengths[b]));
+        }
+
+        private List<SimilarityMatch> results() {
+            List<SimilarityMatch> results = new ArrayList<>(this.best);
+            Collections.sort(results);
+            return results;
+        }
+    }
+
+    /**
+     * The per-value counters of the queries of one thread. The overlaps are zero outside of a stage, and a value has
+     * been verified by the current query iff its verification stamp equals the stamp of the query.
+     */
+    private static class SearchBuffers {
+
+        private final int[] overlaps;
+        private final int[] verified;
+        private int stamp = 0;
+
+        private final IntArrayList candidates = new IntArrayList();
+        private int[] promising = new int[0];
+        private final int[] bucketStarts = new int[NUM_BOUND_BUCKETS + 1];
+        private final int[] bucketPositions = new int[NUM_BOUND_BUCKETS];
+
+        private SearchBuffers(int numValues) {
+            this.overlaps = new int[numValues];
+            this.verified = new int[numValues];
+        }
+
+        private int[] promising(int size) {
+            if (this.promising.length < size)
+                this.promising = new int[Math.max(size, 2 * this.promising.length)];
+            return this.promising;
+        }
+
+        private SearchBuffers next() {
+            if (++this.stamp == 0) {
+                Arrays.fill(this.verified, 0);
+                this.stamp = 1;
+            }
+            return this;
+        }
+    }
+}
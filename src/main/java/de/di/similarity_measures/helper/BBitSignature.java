@@ -0,0 +1,203 @@
+package de.di.similarity_measures.helper;
+
+import lombok.Getter;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A BBitSignature is a compact MinHash signature that keeps only the lowest bitsPerHash bits of every MinHash value
+ * and packs them into 64-bit words, i.e., 64 / bitsPerHash values per word. With 128 hash functions and one bit per
+ * hash, a signature takes two words instead of 128 integers.
+ * <p>
+ * Two packed signatures are compared word by word: the XOR of two words is zero exactly in the fields whose values
+ * agree, so folding every field onto its lowest bit and counting the set bits yields the number of disagreeing
+ * fields. Because two unrelated MinHash values agree on their lowest b bits with a probability of 2^-b, the fraction
+ * of agreeing fields overestimates the Jaccard similarity; estimate(...) corrects this bias.
+ * <p>
+ * Signatures of inputs without tokens have no hash values and no words. The binary format written by toBytes() is the
+ * number of bits per hash (1 byte), the number of hash functions (4 bytes) and the words (8 bytes each).
+ */
+@Getter
+public class BBitSignature implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // The number of low-order bits kept per MinHash value; a power of two up to 32, so that fields never span words
+    private final int bitsPerHash;
+
+    // The number of packed MinHash values; zero for inputs without tokens
+    private final int numHashFunctions;
+
+    // The packed values; value i occupies the bits [(i % valuesPerWord) * bitsPerHash, ...) of word i / valuesPerWord
+    private final long[] words;
+
+    private BBitSignature(int bitsPerHash, int numHashFunctions, long[] words) {
+        this.bitsPerHash = bitsPerHash;
+        this.numHashFunctions = numHashFunctions;
+        this.words = words;
+    }
+
+    /**
+     * Packs the lowest bits of the given MinHash signature.
+     * @param signature The MinHash signature as returned by MinHash.signature(...); empty for inputs without tokens.
+     * @param bitsPerHash The number of bits to keep per value; one of 1, 2, 4, 8, 16 or 32.
+     * @return The packed signature.
+     */
+    public static BBitSignature of(final int[] signature, final int bitsPerHash) {
+        return of(signature, signature.length, bitsPerHash);
+    }
+
+    /**
+     * Packs the lowest bits of the first numHashFunctions values of the given MinHash signature.
+     * @param signature The MinHash signature, e.g., a reused buffer.
+     * @param numHashFunctions The number of values to pack; zero for inputs without tokens.
+     * @param bitsPerHash The number of bits to keep per value; one of 1, 2, 4, 8, 16 or 32.
+     * @return The packed signature.
+     */
+    public static BBitSignature of(final int[] signature, final int numHashFunctions, final int bitsPerHash) {
+        checkBitsPerHash(bitsPerHash);
+
+        int valuesPerWord = Long.SIZE / bitsPerHash;
+        long mask = -1L >>> (Long.SIZE - bitsPerHash);
+        long[] words = new long[(numHashFunctions + valuesPerWord - 1) / valuesPerWord];
+        for (int i = 0; i < numHashFunctions; i++)
+            words[i / valuesPerWord] |= (signature[i] & mask) << ((i % valuesPerWord) * bitsPerHash);
+        return new BBitSignature(bitsPerHash, numHashFunctions, words);
+    }
+
+    /**
+     * Checks that the given number of bits per hash is supported, i.e., a power of two between 1 and 32.
+     * @param bitsPerHash The number of bits per hash.
+     */
+    public static void checkBitsPerHash(final int bitsPerHash) {
+        if (bitsPerHash < 1 || bitsPerHash > Integer.SIZE || Integer.bitCount(bitsPerHash) != 1)
+            throw new IllegalArgumentException("The number of bits per hash must be a power of two up to 32, but is " + bitsPerHash);
+    }
+
+    public boolean isEmpty() {
+        return this.numHashFunctions == 0;
+    }
+
+    /**
+     * Returns the number of fields in which this and the other signature agree.
+     * @param other A non-empty signature with the same number of bits per hash and hash functions.
+     * @return The number of agreeing fields.
+     */
+    public int countMatches(final BBitSignature other) {
+        if (this.bitsPerHash != other.getBitsPerHash() || this.numHashFunctions != other.getNumHashFunctions())
+            throw new IllegalArgumentException("The signatures must have the same layout, but have " + this.bitsPerHash + "x" +
+                    this.numHashFunctions + " and " + other.getBitsPerHash() + "x" + other.getNumHashFunctions() + " bits");
+
+        // One bit at the lowest position of every field, e.g., 0x5555... for two bits per hash
+        long lowBits = Long.divideUnsigned(-1L, -1L >>> (Long.SIZE - this.bitsPerHash));
+        long[] otherWords = other.getWords();
+
+        // The padding fields of the last word are zero in both signatures, so they never count as mismatches
+        int mismatches = 0;
+        for (int w = 0; w < this.words.length; w++) {
+            long difference = this.words[w] ^ otherWords[w];
+            for (int shift = 1; shift < this.bitsPerHash; shift <<= 1)
+                difference |= difference >>> shift;
+            mismatches += Long.bitCount(difference & lowBits);
+        }
+        return this.numHashFunctions - mismatches;
+    }
+
+    /**
+     * Estimates the Jaccard similarity of the two underlying token sets. The fraction of agreeing fields P is
+     * corrected for random agreements of the lowest bits, i.e., J = (P - 2^-b) / (1 - 2^-b), which is the b-bit
+     * minwise hashing estimator for sets that are small compared to the 2^32 hash values.
+     * @param other A signature with the same number of bits per hash and hash functions.
+     * @return The estimated Jaccard similarity; 1 if both signatures are empty and 0 if only one is.
+     */
+    public double estimate(final BBitSignature other) {
+        if (this.isEmpty() || other.isEmpty())
+            return this.isEmpty() == other.isEmpty() ? 1.0 : 0.0;
+        return estimate(this.countMatches(other), this.numHashFunctions, this.bitsPerHash);
+    }
+
+    /**
+     * Estimates the Jaccard similarity from the number of fields in which two b-bit signatures agree.
+     * @param matches The number of agreeing fields.
+     * @param numHashFunctions The number of fields.
+     * @param bitsPerHash The number of bits per field; with 32 bits, no correction is applied.
+     * @return The bias-corrected estimate in [0, 1].
+     */
+    public static double estimate(final int matches, final int numHashFunctions, final int bitsPerHash) {
+        double fraction = (double) matches / numHashFunctions;
+        if (bitsPerHash >= Integer.SIZE)
+            return fraction;
+        double randomAgreement = 1.0 / (1L << bitsPerHash);
+        return Math.max(0.0, (fraction - randomAgreement) / (1 - randomAgreement));
+    }
+
+    /**
+     * Returns the number of bytes that toBytes() and write(ByteBuffer) produce for this signature.
+     */
+    public int getSerializedSize() {
+        return 1 + Integer.BYTES + this.words.length * Long.BYTES;
+    }
+
+    public byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(this.getSerializedSize());
+        this.write(buffer);
+        return buffer.array();
+    }
+
+    public static BBitSignature fromBytes(final byte[] bytes) {
+        return read(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Writes this signature at the current position of the given buffer, e.g., to store many signatures in one block.
+     * @param buffer The buffer with at least getSerializedSize() remaining bytes.
+     */
+    public void write(final ByteBuffer buffer) {
+        buffer.put((byte) this.bitsPerHash);
+        buffer.putInt(this.numHashFunctions);
+        for (long word : this.words)
+            buffer.putLong(word);
+    }
+
+    /**
+     * Reads a signature from the current position of the given buffer.
+     * @param buffer The buffer that holds a signature written by write(ByteBuffer).
+     * @return The signature.
+     */
+    public static BBitSignature read(final ByteBuffer buffer) {
+        int bitsPerHash = buffer.get();
+        checkBitsPerHash(bitsPerHash);
+        int numHashFunctions = buffer.getInt();
+        if (numHashFunctions < 0)
+            throw new IllegalArgumentException("The number of hash functions must not be negative, but is " + numHashFunctions);
+
+        int valuesPerWord = Long.SIZE / bitsPerHash;
+        long[] words = new long[(numHashFunctions + valuesPerWord - 1) / valuesPerWord];
+        for (int w = 0; w < words.length; w++)
+            words[w] = buffer.getLong();
+        return new BBitSignature(bitsPerHash, numHashFunctions, words);
+    }
+
+    @Override
+    public String toString() {
+        return "BBitSignature(" + this.bitsPerHash + "x" + this.numHashFunctions + ")";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || this.getClass() != o.getClass())
+            return false;
+        BBitSignature signature = (BBitSignature) o;
+        return this.bitsPerHash == signature.getBitsPerHash() && this.numHashFunctions == signature.getNumHashFunctions() &&
+                Arrays.equals(this.words, signature.getWords());
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * this.bitsPerHash + this.numHashFunctions) + Arrays.hashCode(this.words);
+    }
+}
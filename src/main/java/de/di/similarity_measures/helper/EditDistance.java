@@ -0,0 +1,268 @@
+package de.di.similarity_measures.helper;
+
+import it.unimi.dsi.fastutil.chars.Char2IntOpenHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Computes edit distances with the bit-parallel algorithm of Myers in the formulation of Hyyrö. The shorter string is
+ * the pattern; every pattern position is one bit of a bit-vector, and each character of the longer string updates
+ * the whole column of the dynamic-programming matrix with a handful of word operations. Patterns of up to 64
+ * characters fit into a single long; longer patterns are split into blocks of 64 characters that are processed as one
+ * wide integer, i.e., with carries for the addition and the shifts between the blocks.
+ * <p>
+ * The Damerau variant computes the optimal string alignment distance, i.e., adjacent transpositions count as one
+ * edit, but no substring is edited more than once. This is Hyyrö's extension of the algorithm by a transposition
+ * vector. All distances are measured in chars, i.e., UTF-16 code units.
+ */
+public class EditDistance {
+
+    private static final int LATIN1_SIZE = 256;
+
+    // The match masks are reused per thread; they are cleared after every computation
+    private static final ThreadLocal<PatternMasks> MASKS = ThreadLocal.withInitial(PatternMasks::new);
+
+    /**
+     * Returns the Levenshtein distance or, if withTranspositions is set, the optimal string alignment distance
+     * between the two strings.
+     * @param string1 The first string.
+     * @param string2 The second string.
+     * @param withTranspositions Flag to indicate whether adjacent transpositions count as a single edit.
+     * @return The edit distance between the two strings.
+     */
+    public static int distance(final String string1, final String string2, final boolean withTranspositions) {
+        return distance(string1, string2, withTranspositions, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the edit distance between the two strings if it does not exceed maxDistance. The computation stops as
+     * soon as the distance is known to exceed maxDistance: pairs whose lengths differ by more than maxDistance are
+     * rejected without any computation, and the remaining columns of the matrix bound the final distance from below
+     * while it is being computed. Long patterns with a small maxDistance are computed in a band of width
+     * 2 * maxDistance + 1 around the diagonal (Ukkonen's cutoff) instead of bit-parallel.
+     * @param string1 The first string.
+     * @param string2 The second string.
+     * @param withTranspositions Flag to indicate whether adjacent transpositions count as a single edit.
+     * @param maxDistance The largest distance that is of interest.
+     * @return The edit distance between the two strings or maxDistance + 1 if the distance exceeds maxDistance.
+     */
+    public static int distance(final String string1, final String string2, final boolean withTranspositions, final int maxDistance) {
+        String pattern = string1.length() <= string2.length() ? string1 : string2;
+        String text = pattern == string1 ? string2 : string1;
+        if (text.length() - pattern.length() > maxDistance)
+            return maxDistance + 1;
+        if (pattern.isEmpty())
+            return text.length();
+
+        int numBlocks = (pattern.length() + 63) >>> 6;
+        if (numBlocks > 1 && maxDistance < 32)
+            return bandedDistance(pattern, text, withTranspositions, maxDistance);
+
+        PatternMasks masks = MASKS.get();
+        masks.build(pattern, numBlocks);
+        try {
+            if (numBlocks == 1)
+                return singleBlockDistance(masks, pattern.length(), text, withTranspositions, maxDistance);
+            return multiBlockDistance(masks, pattern.length(), numBlocks, text, withTranspositions, maxDistance);
+        } finally {
+            masks.clear(pattern, numBlocks);
+        }
+    }
+
+    private static int singleBlockDistance(PatternMasks masks, int m, String text, boolean withTranspositions, int maxDistance) {
+        long lastBit = 1L << (m - 1);
+        long vp = -1L;
+        long vn = 0L;
+        long previousD0 = 0L;
+        long previousEq = 0L;
+        int score = m;
+
+        for (int j = 0; j < text.length(); j++) {
+            long eq = masks.get(text.charAt(j), 0);
+            long d0 = (((eq & vp) + vp) ^ vp) | eq | vn;
+            if (withTranspositions) {
+                d0 |= ((~previousD0 & eq) << 1) & previousEq;
+                previousD0 = d0;
+                previousEq = eq;
+            }
+            long hp = vn | ~(d0 | vp);
+            long hn = vp & d0;
+
+            if ((hp & lastBit) != 0)
+                score++;
+            else if ((hn & lastBit) != 0)
+                score--;
+
+            // Every remaining column can lower the distance by at most one
+            if (score - (text.length() - 1 - j) > maxDistance)
+                return maxDistance + 1;
+
+            hp = (hp << 1) | 1L;
+            hn = hn << 1;
+            vp = hn | ~(d0 | hp);
+            vn = hp & d0;
+        }
+        return score;
+    }
+
+    private static int multiBlockDistance(PatternMasks masks, int m, int numBlocks, String text, boolean withTranspositions, int maxDistance) {
+        long lastBit = 1L << ((m - 1) & 63);
+        long[] vp = new long[numBlocks];
+        long[] vn = new long[numBlocks];
+        long[] previousD0 = withTranspositions ? new long[numBlocks] : null;
+        Arrays.fill(vp, -1L);
+        int score = m;
+
+        char previousChar = 0;
+        for (int j = 0; j < text.length(); j++) {
+            char c = text.charAt(j);
+            // Carries from the lower into the upper blocks; the horizontal delta of the first row is always +1
+            long sumCarry = 0L;
+            long hpCarry = 1L;
+            long hnCarry = 0L;
+            long transpositionCarry = 0L;
+
+            for (int b = 0; b < numBlocks; b++) {
+                long eq = masks.get(c, b);
+                long x = eq & vp[b];
+                long sum = x + vp[b] + sumCarry;
+                sumCarry = ((x & vp[b]) | ((x | vp[b]) & ~sum)) >>> 63;
+                long d0 = (sum ^ vp[b]) | eq | vn[b];
+
+                if (withTranspositions) {
+                    long transpositions = ~previousD0[b] & eq;
+                    // Nothing can be transposed with the (non-existent) character before the first one
+                    long previousEq = j == 0 ? 0L : masks.get(previousChar, b);
+                    d0 |= ((transpositions << 1) | transpositionCarry) & previousEq;
+                    transpositionCarry = transpositions >>> 63;
+                    previousD0[b] = d0;
+                }
+
+                long hp = vn[b] | ~(d0 | vp[b]);
+                long hn = vp[b] & d0;
+
+                if (b == numBlocks - 1) {
+                    if ((hp & lastBit) != 0)
+                        score++;
+                    else if ((hn & lastBit) != 0)
+                        score--;
+                }
+
+                long shiftedHp = (hp << 1) | hpCarry;
+                long shiftedHn = (hn << 1) | hnCarry;
+                hpCarry = hp >>> 63;
+                hnCarry = hn >>> 63;
+                vp[b] = shiftedHn | ~(d0 | shiftedHp);
+                vn[b] = shiftedHp & d0;
+            }
+            previousChar = c;
+
+            // Every remaining column can lower the distance by at most one
+            if (score - (text.length() - 1 - j) > maxDistance)
+                return maxDistance + 1;
+        }
+        return score;
+    }
+
+    private static int bandedDistance(String pattern, String text, boolean withTranspositions, int maxDistance) {
+        // All cells outside the band hold the value maxDistance + 1, which stands for any distance above maxDistance
+        int outside = maxDistance + 1;
+        int n = text.length();
+        int[] previousPrevious = new int[n + 1];
+        int[] previous = new int[n + 1];
+        int[] current = new int[n + 1];
+        Arrays.fill(previousPrevious, outside);
+        Arrays.fill(current, outside);
+        for (int j = 0; j <= n; j++)
+            previous[j] = j <= maxDistance ? j : outside;
+
+        for (int i = 1; i <= pattern.length(); i++) {
+            char c = pattern.charAt(i - 1);
+            int from = Math.max(1, i - maxDistance);
+            int to = Math.min(n, i + maxDistance);
+            current[0] = i <= maxDistance ? i : outside;
+            current[from - 1] = from == 1 ? current[0] : outside;
+            int rowMinimum = current[from - 1];
+
+            for (int j = from; j <= to; j++) {
+                int cost = c == text.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (withTranspositions && i > 1 && j > 1 && c == text.charAt(j - 2) && pattern.charAt(i - 2) == text.charAt(j - 1))
+                    value = Math.min(value, previousPrevious[j - 2] + cost);
+                current[j] = Math.min(value, outside);
+                rowMinimum = Math.min(rowMinimum, current[j]);
+            }
+            if (to < n)
+                current[to + 1] = outside;
+            if (rowMinimum > maxDistance)
+                return outside;
+
+            int[] rotated = previousPrevious;
+            previousPrevious = previous;
+            previous = current;
+            current = rotated;
+        }
+        return previous[n];
+    }
+
+    /**
+     * The match masks of a pattern: bit i of the mask of character c in block b is set iff the pattern holds c at
+     * position 64 * b + i. Latin-1 characters are looked up in a flat table; all other characters map to a row of a
+     * second table.
+     */
+    private static class PatternMasks {
+
+        private long[] latin1 = new long[LATIN1_SIZE];
+        private long[] others = new long[0];
+        private final Char2IntOpenHashMap otherRows = new Char2IntOpenHashMap();
+        private int numBlocks = 1;
+
+        private PatternMasks() {
+            this.otherRows.defaultReturnValue(-1);
+        }
+
+        private void build(String pattern, int numBlocks) {
+            this.numBlocks = numBlocks;
+            if (this.latin1.length < LATIN1_SIZE * numBlocks)
+                this.latin1 = new long[LATIN1_SIZE * numBlocks];
+
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                long bit = 1L << i;
+                int block = i >>> 6;
+                if (c < LATIN1_SIZE) {
+                    this.latin1[c * numBlocks + block] |= bit;
+                    continue;
+                }
+
+                int row = this.otherRows.get(c);
+                if (row == -1) {
+                    row = this.otherRows.size();
+                    this.otherRows.put(c, row);
+                    if (this.others.length < (row + 1) * numBlocks)
+                        this.others = Arrays.copyOf(this.others, Math.max(2 * this.others.length, (row + 1) * numBlocks));
+                }
+                this.others[row * numBlocks + block] |= bit;
+            }
+        }
+
+        private long get(char c, int block) {
+            if (c < LATIN1_SIZE)
+                return this.latin1[c * this.numBlocks + block];
+            int row = this.otherRows.get(c);
+            return row == -1 ? 0L : this.others[row * this.numBlocks + block];
+        }
+
+        private void clear(String pattern, int numBlocks) {
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c < LATIN1_SIZE)
+                    this.latin1[c * numBlocks + (i >>> 6)] = 0L;
+            }
+            if (!this.otherRows.isEmpty()) {
+                Arrays.fill(this.others, 0, this.otherRows.size() * numBlocks, 0L);
+                this.otherRows.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package de.di.similarity_measures.helper;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An EditDistanceFilter is a cascade of cheap lower bounds on the edit distance that rejects string pairs whose
+ * distance certainly exceeds a maximum distance k, so that only the remaining pairs need to be verified with the
+ * dynamic program. The stages are applied in this order:
+ * <ol>
+ *     <li>Length: every edit changes the length by at most one, so the lengths must not differ by more than k.</li>
+ *     <li>Q-gram count: an edit destroys at most q of the q-grams of the longer string (q + 1 for a transposition),
+ *     so both strings must share at least max(|s1|, |s2|) - q + 1 - k * q q-grams (counted as bags); the bound is
+ *     skipped if it is not positive.</li>
+ *     <li>Character histogram: an edit removes at most one char from and adds at most one char to the histogram of
+ *     a string (a transposition none), so neither string may hold more than k chars in excess of the other.</li>
+ * </ol>
+ * All bounds hold for the Levenshtein and for the optimal string alignment distance. The filter counts, per stage,
+ * how many pairs it rejected; the counters are safe to update from multiple threads.
+ */
+public class EditDistanceFilter {
+
+    // The length of the q-grams of the q-gram count stage
+    public static final int Q = 2;
+
+    // The q-grams are counted in this many hash buckets; colliding q-grams can only raise the shared count, so the
+    // count remains an upper bound and the filter never rejects a pair that it should accept
+    private static final int Q_GRAM_BUCKET_BITS = 12;
+
+    // The histogram folds all chars into this many buckets; folding never increases the bound, so it stays valid
+    private static final int HISTOGRAM_SIZE = 256;
+
+    // The q-gram and histogram buffers are reused per thread
+    private static final ThreadLocal<FilterBuffers> BUFFERS = ThreadLocal.withInitial(FilterBuffers::new);
+
+    private final boolean withTranspositions;
+
+    private final LongAdder lengthRejections = new LongAdder();
+    private final LongAdder qGramRejections = new LongAdder();
+    private final LongAdder histogramRejections = new LongAdder();
+    private final LongAdder verifications = new LongAdder();
+
+    public EditDistanceFilter(boolean withTranspositions) {
+        this.withTranspositions = withTranspositions;
+    }
+
+    /**
+     * Checks whether the edit distance between the two strings may not exceed maxDistance. A pair that passes all
+     * stages counts as a verification, because its distance must then be computed.
+     * @param string1 The first string.
+     * @param string2 The second string.
+     * @param maxDistance The largest distance that is of interest.
+     * @return False if the distance certainly exceeds maxDistance, true otherwise.
+     */
+    public boolean accepts(final String string1, final String string2, final int maxDistance) {
+        int maxLength = Math.max(string1.length(), string2.length());
+        if (maxDistance >= maxLength)
+            return true;
+
+        if (Math.abs(string1.length() - string2.length()) > maxDistance) {
+            this.lengthRejections.increment();
+            return false;
+        }
+
+        FilterBuffers buffers = BUFFERS.get();
+        int minSharedQGrams = maxLength - Q + 1 - maxDistance * (this.withTranspositions ? Q + 1 : Q);
+        if (minSharedQGrams > 0 && countSharedQGrams(string1, string2, buffers) < minSharedQGrams) {
+            this.qGramRejections.increment();
+            return false;
+        }
+
+        if (histogramDistance(string1, string2, buffers.histogram) > maxDistance) {
+            this.histogramRejections.increment();
+            return false;
+        }
+
+        this.verifications.increment();
+        return true;
+    }
+
+    /**
+     * Counts the q-grams that the two strings share, where a q-gram that occurs several times in both strings is
+     * shared as often as it occurs in the string with fewer occurrences. The q-grams are counted in hash buckets, so
+     * the result may exceed the exact count when distinct q-grams collide, but it never falls below it.
+     * @param string1 The first string.
+     * @param string2 The second string.
+     * @return An upper bound on the size of the bag intersection of the q-grams of the two strings.
+     */
+    public static int countSharedQGrams(final String string1, final String string2) {
+        return countSharedQGrams(string1, string2, BUFFERS.get());
+    }
+
+    /**
+     * Returns the larger of the numbers of chars that one string holds in excess of the other, which is a lower
+     * bound on the edit distance between the two strings.
+     * @param string1 The first string.
+     * @param string2 The second string.
+     * @return The histogram lower bound on the edit distance.
+     */
+    public static int histogramDistance(final String string1, final String string2) {
+        return histogramDistance(string1, string2, BUFFERS.get().histogram);
+    }
+
+    private static int countSharedQGrams(String string1, String string2, FilterBuffers buffers) {
+        int numQGrams1 = string1.length() - Q + 1;
+        int numQGrams2 = string2.length() - Q + 1;
+        if (numQGrams1 <= 0 || numQGrams2 <= 0)
+            return 0;
+
+        int[] counts = buffers.qGramCounts;
+        for (int i = 0; i < numQGrams1; i++)
+            counts[bucketOf(string1, i)]++;
+        int shared = 0;
+        for (int i = 0; i < numQGrams2; i++) {
+            int bucket = bucketOf(string2, i);
+            if (counts[bucket] > 0) {
+                counts[bucket]--;
+                shared++;
+            }
+        }
+        for (int i = 0; i < numQGrams1; i++)
+            counts[bucketOf(string1, i)] = 0;
+        return shared;
+    }
+
+    private static int bucketOf(String string, int position) {
+        int qGram = (string.charAt(position) << 16) | string.charAt(position + 1);
+        return (qGram * 0x9E3779B1) >>> (32 - Q_GRAM_BUCKET_BITS);
+    }
+
+    private static int histogramDistance(String string1, String string2, int[] histogram) {
+        for (int i = 0; i < string1.length(); i++)
+            histogram[string1.charAt(i) & (HISTOGRAM_SIZE - 1)]++;
+        for (int i = 0; i < string2.length(); i++)
+            histogram[string2.charAt(i) & (HISTOGRAM_SIZE - 1)]--;
+
+        // Every bucket is read and reset by the first char that maps to it, so the histogram is clean afterwards
+        int excess1 = 0;
+        int excess2 = 0;
+        for (int i = 0; i < string1.length(); i++) {
+            int bucket = string1.charAt(i) & (HISTOGRAM_SIZE - 1);
+            if (histogram[bucket] > 0) excess1 += histogram[bucket];
+            else excess2 -= histogram[bucket];
+            histogram[bucket] = 0;
+        }
+        for (int i = 0; i < string2.length(); i++) {
+            int bucket = string2.charAt(i) & (HISTOGRAM_SIZE - 1);
+            if (histogram[bucket] > 0) excess1 += histogram[bucket];
+            else excess2 -= histogram[bucket];
+            histogram[bucket] = 0;
+        }
+        return Math.max(excess1, excess2);
+    }
+
+    public long getLengthRejections() {
+        return this.lengthRejections.sum();
+    }
+
+    public long getQGramRejections() {
+        return this.qGramRejections.sum();
+    }
+
+    public long getHistogramRejections() {
+        return this.histogramRejections.sum();
+    }
+
+    public long getVerifications() {
+        return this.verifications.sum();
+    }
+
+    /**
+     * Returns the number of pairs that any stage rejected.
+     * @return The number of rejected pairs.
+     */
+    public long getRejections() {
+        return this.getLengthRejections() + this.getQGramRejections() + this.getHistogramRejections();
+    }
+
+    @Override
+    public String toString() {
+        return "EditDistanceFilter(length=" + this.getLengthRejections() + ", qGram=" + this.getQGramRejections() +
+                ", histogram=" + this.getHistogramRejections() + ", verified=" + this.getVerifications() + ")";
+    }
+
+    private static class FilterBuffers {
+
+        private final int[] qGramCounts = new int[1 << Q_GRAM_BUCKET_BITS];
+        private final int[] histogram = new int[HISTOGRAM_SIZE];
+    }
+}
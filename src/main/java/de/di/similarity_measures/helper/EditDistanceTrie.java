@@ -0,0 +1,231 @@
+package de.di.similarity_measures.helper;
+
+import de.di.Relation;
+import de.di.similarity_measures.structures.DistanceMatch;
+import it.unimi.dsi.fastutil.chars.CharArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * An EditDistanceTrie finds all values of a collection whose edit distance to a query does not exceed a maximum
+ * distance k. The values are stored in a trie, and a search walks the trie depth-first while it computes one row of
+ * the dynamic-programming matrix per node from the row of the parent node. Values with a common prefix therefore
+ * share the rows of that prefix, and a subtree is skipped entirely as soon as the minimum of a row exceeds k, because
+ * no row below it can be smaller.
+ * <p>
+ * The trie is stored in flat arrays in depth-first order: the subtree of a node occupies the positions from the node
+ * to its subtree end, its first child is the next node, and the next sibling of a child starts at the subtree end of
+ * that child. Node 0 is the root, which stands for the empty prefix. Distances are measured in chars, i.e., UTF-16
+ * code units, like those of EditDistance.
+ */
+public class EditDistanceTrie {
+
+    private static final int NO_VALUE = -1;
+
+    private static final SimilarityKernels KERNELS = SimilarityKernels.get();
+
+    private final String[] values;
+
+    private final boolean withTranspositions;
+
+    // The char that leads from the parent of a node to the node; undefined for the root
+    private final char[] labels;
+
+    // The position after the last node of the subtree of a node
+    private final int[] subtreeEnds;
+
+    // The index of the value that ends in a node or NO_VALUE if no value ends there
+    private final int[] valueIndexes;
+
+    // The length of the longest value, i.e., the depth of the trie
+    @Getter
+    private final int maxLength;
+
+    /**
+     * Builds the trie over the given values. Null values are indexed as the empty string; of several equal values, only
+     * the one with the smallest index is reported by searches.
+     * @param values The values to index; their positions are the indexes of the search results.
+     * @param withTranspositions Flag to indicate whether adjacent transpositions count as a single edit, i.e.,
+     *                           whether searches use the optimal string alignment distance.
+     */
+    public EditDistanceTrie(String[] values, boolean withTranspositions) {
+        this.values = values;
+        this.withTranspositions = withTranspositions;
+
+        int[] order = IntStream.range(0, values.length).toArray();
+        IntArrays.parallelQuickSort(order, (a, b) -> {
+            int comparison = valueOf(values, a).compareTo(valueOf(values, b));
+            return comparison != 0 ? comparison : Integer.compare(a, b);
+        });
+
+        CharArrayList labels = new CharArrayList();
+        IntArrayList subtreeEnds = new IntArrayList();
+        IntArrayList valueIndexes = new IntArrayList();
+        labels.add((char) 0);
+        subtreeEnds.add(0);
+        valueIndexes.add(NO_VALUE);
+
+        // The nodes on the path to the previous value, by depth
+        int[] path = new int[16];
+        String previous = "";
+        int maxLength = 0;
+        for (int index : order) {
+            String value = valueOf(values, index);
+            int commonPrefix = 0;
+            int prefixLimit = Math.min(previous.length(), value.length());
+            while (commonPrefix < prefixLimit && previous.charAt(commonPrefix) == value.charAt(commonPrefix))
+                commonPrefix++;
+            if (commonPrefix == value.length() && commonPrefix == previous.length() && valueIndexes.getInt(path[commonPrefix]) != NO_VALUE)
+                continue;
+
+            // The subtrees below the common prefix are complete, because the values arrive in sorted order
+            for (int depth = previous.length(); depth > commonPrefix; depth--)
+                subtreeEnds.set(path[depth], labels.size());
+
+            if (path.length <= value.length())
+                path = Arrays.copyOf(path, Math.max(2 * path.length, value.length() + 1));
+            for (int depth = commonPrefix + 1; depth <= value.length(); depth++) {
+                path[depth] = labels.size();
+                labels.add(value.charAt(depth - 1));
+                subtreeEnds.add(0);
+                valueIndexes.add(NO_VALUE);
+            }
+            valueIndexes.set(path[value.length()], index);
+            maxLength = Math.max(maxLength, value.length());
+            previous = value;
+        }
+        for (int depth = previous.length(); depth >= 0; depth--)
+            subtreeEnds.set(path[depth], labels.size());
+
+        labels.trim();
+        subtreeEnds.trim();
+        valueIndexes.trim();
+        this.labels = labels.elements();
+        this.subtreeEnds = subtreeEnds.elements();
+        this.valueIndexes = valueIndexes.elements();
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Builds the trie over the distinct values of an attribute of the given relation.
+     * @param relation The relation whose values should be indexed.
+     * @param attribute The index of the attribute.
+     * @param withTranspositions Flag to indicate whether adjacent transpositions count as a single edit.
+     * @return The trie whose search results are the dictionary codes of the attribute's column.
+     */
+    public static EditDistanceTrie of(Relation relation, int attribute, boolean withTranspositions) {
+        return new EditDistanceTrie(relation.getColumn(attribute).getDictionary(), withTranspositions);
+    }
+
+    /**
+     * Returns the number of nodes of the trie, including the root.
+     * @return The number of nodes.
+     */
+    public int getNumNodes() {
+        return this.labels.length;
+    }
+
+    /**
+     * Returns the value with the given index.
+     * @param index The index of a value, e.g., of a search result.
+     * @return The value with that index.
+     */
+    public String getValue(int index) {
+        return this.values[index];
+    }
+
+    /**
+     * Finds all values whose edit distance to the query does not exceed maxDistance.
+     * @param query The string to search for; null is searched as the empty string.
+     * @param maxDistance The largest distance of interest.
+     * @return The matching values ordered by distance and index.
+     */
+    public List<DistanceMatch> search(String query, int maxDistance) {
+        if (maxDistance < 0)
+            throw new IllegalArgumentException("The maximum distance must not be negative, but is " + maxDistance);
+        query = query == null ? "" : query;
+
+        List<DistanceMatch> matches = new ArrayList<>();
+        int m = query.length();
+        int[] queryChars = query.chars().toArray();
+        // No row below depth m + maxDistance can hold a value of at most maxDistance
+        int maxDepth = Math.min(this.maxLength, m + maxDistance);
+        int[][] rows = new int[maxDepth + 1][m + 1];
+        char[] pathLabels = new char[maxDepth + 1];
+        int[] pathEnds = new int[maxDepth + 1];
+
+        for (int j = 0; j <= m; j++)
+            rows[0][j] = j;
+        if (this.valueIndexes[0] != NO_VALUE && m <= maxDistance)
+            matches.add(new DistanceMatch(this.valueIndexes[0], m));
+
+        int depth = 0;
+        int node = maxDepth == 0 ? this.labels.length : 1;
+        while (node < this.labels.length) {
+            // Leave the subtrees that end before this node
+            while (depth > 0 && node >= pathEnds[depth])
+                depth--;
+            depth++;
+
+            char label = this.labels[node];
+            pathLabels[depth] = label;
+            int[] row = rows[depth];
+            int[] parentRow = rows[depth - 1];
+            int[] grandparentRow = depth > 1 ? rows[depth - 2] : null;
+            row[0] = depth;
+            int rowMinimum = depth;
+            if (!this.withTranspositions || depth == 1) {
+                rowMinimum = KERNELS.levenshteinRow(queryChars, m, label, parentRow, row);
+            } else {
+                for (int j = 1; j <= m; j++) {
+                    int cost = label == queryChars[j - 1] ? 0 : 1;
+                    int value = Math.min(Math.min(parentRow[j] + 1, row[j - 1] + 1), parentRow[j - 1] + cost);
+                    if (j > 1 && label == queryChars[j - 2] && pathLabels[depth - 1] == queryChars[j - 1])
+                        value = Math.min(value, grandparentRow[j - 2] + cost);
+                    row[j] = value;
+                    rowMinimum = Math.min(rowMinimum, value);
+                }
+            }
+
+            if (this.valueIndexes[node] != NO_VALUE && row[m] <= maxDistance)
+                matches.add(new DistanceMatch(this.valueIndexes[node], row[m]));
+
+            if (rowMinimum > maxDistance || depth == maxDepth) {
+                // Every row below this one is at least as large as its minimum
+                node = this.subtreeEnds[node];
+                depth--;
+                continue;
+            }
+            pathEnds[depth] = this.subtreeEnds[node];
+            node++;
+        }
+
+        Collections.sort(matches);
+        return matches;
+    }
+
+    /**
+     * Finds, for every query, all values whose edit distance to that query does not exceed maxDistance. The queries
+     * are searched in parallel.
+     * @param queries The strings to search for.
+     * @param maxDistance The largest distance of interest.
+     * @return The matches of every query in the order of the queries.
+     */
+    public List<List<DistanceMatch>> searchAll(String[] queries, int maxDistance) {
+        return IntStream.range(0, queries.length).parallel()
+                .mapToObj(i -> this.search(queries[i], maxDistance))
+                .collect(Collectors.toList());
+    }
+
+    private static String valueOf(String[] values, int index) {
+        return values[index] == null ? "" : values[index];
+    }
+}
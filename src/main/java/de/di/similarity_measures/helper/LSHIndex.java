@@ -0,0 +1,163 @@
+package de.di.similarity_measures.helper;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import lombok.Getter;
+
+/**
+ * An LSHIndex finds the MinHash signatures that are likely similar to each other without comparing all pairs. Every
+ * signature is split into numBands bands of rowsPerBand entries, and each band is hashed into a bucket of its own
+ * bucket table. Two signatures become candidates if they share the bucket of at least one band. For two sets with
+ * Jaccard similarity s, this happens with probability 1 - (1 - s^r)^b, an S-curve that rises steeply around
+ * (1 / b)^(1 / r). Candidates are not verified, so callers should check their actual similarity.
+ */
+public class LSHIndex {
+
+    // The number of steps of the numerical integration in forThreshold()
+    private static final int INTEGRATION_STEPS = 100;
+
+    @Getter
+    private final int numBands;
+
+    @Getter
+    private final int rowsPerBand;
+
+    // One bucket table per band, which maps the hash of a band to the ids of the signatures in that bucket
+    private final Long2ObjectOpenHashMap<IntArrayList>[] buckets;
+
+    @Getter
+    private int size = 0;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public LSHIndex(int numBands, int rowsPerBand) {
+        if (numBands < 1 || rowsPerBand < 1)
+            throw new IllegalArgumentException("The number of bands and rows per band must be positive, but are " + numBands + " and " + rowsPerBand);
+
+        this.numBands = numBands;
+        this.rowsPerBand = rowsPerBand;
+        this.buckets = new Long2ObjectOpenHashMap[numBands];
+        for (int band = 0; band < numBands; band++)
+            this.buckets[band] = new Long2ObjectOpenHashMap<>();
+    }
+
+    /**
+     * Creates an index whose bands and rows suit the given similarity threshold. Among all configurations with
+     * numBands * rowsPerBand <= numHashFunctions, the one is chosen that minimizes the sum of the false positive
+     * probability below the threshold and the false negative probability above it, both integrated over the
+     * similarity.
+     * @param threshold The Jaccard similarity above which pairs should become candidates.
+     * @param numHashFunctions The number of entries of the indexed signatures.
+     * @return An empty index for the threshold.
+     */
+    public static LSHIndex forThreshold(double threshold, int numHashFunctions) {
+        if (threshold <= 0 || threshold > 1)
+            throw new IllegalArgumentException("The threshold must be in (0, 1], but is " + threshold);
+
+        int bestBands = 1;
+        int bestRows = numHashFunctions;
+        double bestError = Double.POSITIVE_INFINITY;
+        for (int bands = 1; bands <= numHashFunctions; bands++) {
+            for (int rows = 1; bands * rows <= numHashFunctions; rows++) {
+                double error = integrate(0, threshold, bands, rows, false) + integrate(threshold, 1, bands, rows, true);
+                if (error < bestError) {
+                    bestError = error;
+                    bestBands = bands;
+                    bestRows = rows;
+                }
+            }
+        }
+        return new LSHIndex(bestBands, bestRows);
+    }
+
+    private static double integrate(double from, double to, int bands, int rows, boolean missProbability) {
+        double step = (to - from) / INTEGRATION_STEPS;
+        double area = 0;
+        for (int i = 0; i < INTEGRATION_STEPS; i++) {
+            double similarity = from + (i + 0.5) * step;
+            double candidateProbability = 1 - Math.pow(1 - Math.pow(similarity, rows), bands);
+            area += (missProbability ? 1 - candidateProbability : candidateProbability) * step;
+        }
+        return area;
+    }
+
+    /**
+     * Returns the number of signature entries that this index uses; the signatures may be longer.
+     * @return numBands * rowsPerBand.
+     */
+    public int getSignatureLength() {
+        return this.numBands * this.rowsPerBand;
+    }
+
+    /**
+     * Adds the given signature under the given id.
+     * @param id The id of the signature, e.g., a record index.
+     * @param signature The MinHash signature with at least getSignatureLength() entries.
+     */
+    public void add(int id, int[] signature) {
+        for (int band = 0; band < this.numBands; band++)
+            this.buckets[band].computeIfAbsent(this.bandHash(signature, band), hash -> new IntArrayList(2)).add(id);
+        this.size++;
+    }
+
+    /**
+     * Returns the ids of all indexed signatures that share at least one band with the given signature.
+     * @param signature The MinHash signature with at least getSignatureLength() entries.
+     * @return The distinct candidate ids.
+     */
+    public int[] query(int[] signature) {
+        IntOpenHashSet candidates = new IntOpenHashSet();
+        for (int band = 0; band < this.numBands; band++) {
+            IntArrayList bucket = this.buckets[band].get(this.bandHash(signature, band));
+            if (bucket != null)
+                candidates.addAll(bucket);
+        }
+        return candidates.toIntArray();
+    }
+
+    /**
+     * Returns all pairs of indexed signatures that share at least one band. Each pair is packed into a long with the
+     * smaller id in the upper and the larger id in the lower 32 bits; see firstOf() and secondOf().
+     * @return The distinct candidate pairs in ascending order.
+     */
+    public long[] candidatePairs() {
+        LongOpenHashSet pairs = new LongOpenHashSet();
+        for (Long2ObjectOpenHashMap<IntArrayList> bandBuckets : this.buckets) {
+            for (IntArrayList bucket : bandBuckets.values()) {
+                for (int i = 0; i < bucket.size(); i++) {
+                    for (int j = i + 1; j < bucket.size(); j++) {
+                        int id1 = bucket.getInt(i);
+                        int id2 = bucket.getInt(j);
+                        if (id1 != id2)
+                            pairs.add(pairOf(id1, id2));
+                    }
+                }
+            }
+        }
+        long[] sortedPairs = pairs.toLongArray();
+        LongArrays.radixSort(sortedPairs);
+        return sortedPairs;
+    }
+
+    public static long pairOf(int id1, int id2) {
+        return ((long) Math.min(id1, id2) << 32) | (Math.max(id1, id2) & 0xFFFFFFFFL);
+    }
+
+    public static int firstOf(long pair) {
+        return (int) (pair >>> 32);
+    }
+
+    public static int secondOf(long pair) {
+        return (int) pair;
+    }
+
+    private long bandHash(int[] signature, int band) {
+        // Buckets of different bands live in different tables, so equal hashes of different bands do not collide
+        long hash = 0;
+        for (int row = band * this.rowsPerBand; row < (band + 1) * this.rowsPerBand; row++)
+            hash = (hash + (signature[row] & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+}
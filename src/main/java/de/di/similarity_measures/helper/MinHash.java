@@ -1,42 +1,131 @@
 package de.di.similarity_measures.helper;
 
-import java.util.Comparator;
-import java.util.stream.Stream;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import lombok.Getter;
 
+import java.util.SplittableRandom;
+
+/**
+ * A MinHash object computes MinHash signatures of token sets. Each of its numHashFunctions seeded hash functions
+ * h(x) = (a * mix(x) + b) >>> 32, with a random odd multiplier a and a random offset b, orders the tokens randomly,
+ * and the signature stores the minimal hash value of every function. The probability that two sets agree on an entry
+ * of their signatures equals their Jaccard similarity, so the fraction of agreeing entries estimates the similarity
+ * with a standard error of about 1 / sqrt(numHashFunctions).
+ * <p>
+ * Tokens are 64-bit codes as produced by Tokenizer.tokenize(String, LongArrayList). With bag semantics, the i-th
+ * occurrence of a token is hashed as a token of its own, which turns the bag into a set whose Jaccard similarity is
+ * the bag similarity sum(min(count1, count2)) / sum(max(count1, count2)).
+ */
 public class MinHash {
 
-    // The comparator for the MinHashing; the comparator defines the sortation for this token-based minhash function
-    private final Comparator<String> comparator;
+    public static final long DEFAULT_SEED = 0x5DEECE66DL;
+
+    private static final long OCCURRENCE_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private static final SimilarityKernels KERNELS = SimilarityKernels.get();
+
+    @Getter
+    private final int numHashFunctions;
+
+    // The odd multipliers and the offsets of the hash functions
+    private final long[] multipliers;
+    private final long[] offsets;
 
-    public MinHash(int sortByPosition) {
-        this.comparator = this.createComparatorFor(sortByPosition);
+    public MinHash(int numHashFunctions) {
+        this(numHashFunctions, DEFAULT_SEED);
     }
 
-    public String hash(final String[] strings) {
-        if (strings.length == 0)
-            return "";
+    public MinHash(int numHashFunctions, long seed) {
+        if (numHashFunctions < 1)
+            throw new IllegalArgumentException("The number of hash functions must be positive, but is " + numHashFunctions);
 
-        return Stream.of(strings)
-                .min(this.comparator)
-                .orElseThrow();
+        this.numHashFunctions = numHashFunctions;
+        this.multipliers = new long[numHashFunctions];
+        this.offsets = new long[numHashFunctions];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < numHashFunctions; i++) {
+            this.multipliers[i] = random.nextLong() | 1L;
+            this.offsets[i] = random.nextLong();
+        }
     }
 
-    private Comparator<String> createComparatorFor(int sortByPosition) {
-        return (o1, o2) -> {
-            int i = sortByPosition;
-            int charComparison = 0;
-            while (true) {
-                if ((o1.length() < i + 1) && (o2.length() < i + 1))
-                    return o1.compareTo(o2);
-                if (o1.length() < i + 1)
-                    return -1;
-                if (o2.length() < i + 1)
-                    return 1;
-                charComparison = Character.compare(o1.charAt(i), o2.charAt(i));
-                if (charComparison != 0)
-                    return charComparison;
-                i++;
+    /**
+     * Returns the signature of the given token codes.
+     * @param codes The token codes; with bag semantics, the list gets sorted.
+     * @param bagSemantics Flag to indicate whether repeated tokens count repeatedly.
+     * @return The signature with numHashFunctions entries or an empty array if there are no tokens.
+     */
+    public int[] signature(final LongArrayList codes, final boolean bagSemantics) {
+        if (codes.isEmpty())
+            return new int[0];
+        int[] signature = new int[this.numHashFunctions];
+        this.signature(codes, bagSemantics, signature);
+        return signature;
+    }
+
+    /**
+     * Writes the signature of the given token codes into the given array, which can be reused across calls.
+     * @param codes The token codes; with bag semantics, the list gets sorted.
+     * @param bagSemantics Flag to indicate whether repeated tokens count repeatedly.
+     * @param signature The array that receives the signature; it needs at least numHashFunctions entries.
+     * @return False if there are no tokens, in which case the signature is undefined.
+     */
+    public boolean signature(final LongArrayList codes, final boolean bagSemantics, final int[] signature) {
+        if (codes.isEmpty())
+            return false;
+
+        for (int i = 0; i < this.numHashFunctions; i++)
+            signature[i] = -1;
+
+        long[] elements = codes.elements();
+        if (bagSemantics)
+            LongArrays.quickSort(elements, 0, codes.size());
+
+        int occurrence = 0;
+        for (int t = 0; t < codes.size(); t++) {
+            long token = mix(elements[t]);
+            if (bagSemantics) {
+                occurrence = t > 0 && elements[t] == elements[t - 1] ? occurrence + 1 : 0;
+                token = mix(token + occurrence * OCCURRENCE_MULTIPLIER);
+            }
+            for (int i = 0; i < this.numHashFunctions; i++) {
+                int hash = (int) ((this.multipliers[i] * token + this.offsets[i]) >>> 32);
+                if (Integer.compareUnsigned(hash, signature[i]) < 0)
+                    signature[i] = hash;
             }
-        };
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of entries in which the two signatures agree.
+     * @param signature1 The first signature.
+     * @param signature2 The second signature.
+     * @param length The number of entries to compare.
+     * @return The number of agreeing entries.
+     */
+    public static int countMatches(final int[] signature1, final int[] signature2, final int length) {
+        return KERNELS.countMatches(signature1, signature2, length, Integer.SIZE);
+    }
+
+    /**
+     * Returns the number of entries in which the lowest bitsPerHash bits of the two signatures agree, i.e., the
+     * number of matches of their BBitSignatures.
+     * @param signature1 The first signature.
+     * @param signature2 The second signature.
+     * @param length The number of entries to compare.
+     * @param bitsPerHash The number of low-order bits to compare per entry; between 1 and 32.
+     * @return The number of agreeing entries.
+     */
+    public static int countMatches(final int[] signature1, final int[] signature2, final int length, final int bitsPerHash) {
+        return KERNELS.countMatches(signature1, signature2, length, bitsPerHash);
+    }
+
+    // The finalizer of SplitMix64; it spreads the structured token codes over all 64 bits
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+        return x ^ (x >>> 31);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package de.di.similarity_measures.helper;
+
+/**
+ * The portable SimilarityKernels, which run on every JVM.
+ */
+public class ScalarKernels extends SimilarityKernels {
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public int countMatches(final int[] signature1, final int[] signature2, final int length, final int bitsPerHash) {
+        int mask = -1 >>> (Integer.SIZE - bitsPerHash);
+        int matches = 0;
+        for (int i = 0; i < length; i++)
+            if (((signature1[i] ^ signature2[i]) & mask) == 0)
+                matches++;
+        return matches;
+    }
+
+    @Override
+    public int countShared(final int[] set1, final int[] set2, final int minShared) {
+        return countShared(set1, 0, set2, 0, 0, minShared);
+    }
+
+    /**
+     * Continues a count of shared ids at the given positions; the vector kernels finish their counts with it.
+     */
+    static int countShared(int[] set1, int i, int[] set2, int j, int shared, int minShared) {
+        while (i < set1.length && j < set2.length) {
+            if (shared + Math.min(set1.length - i, set2.length - j) < minShared)
+                return -1;
+            if (set1[i] < set2[j]) {
+                i++;
+            } else if (set1[i] > set2[j]) {
+                j++;
+            } else {
+                shared++;
+                i++;
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    @Override
+    public int levenshteinRow(final int[] query, final int length, final int label, final int[] parentRow, final int[] row) {
+        int rowMinimum = row[0];
+        for (int j = 1; j <= length; j++) {
+            int cost = label == query[j - 1] ? 0 : 1;
+            int value = Math.min(Math.min(parentRow[j] + 1, row[j - 1] + 1), parentRow[j - 1] + cost);
+            row[j] = value;
+            rowMinimum = Math.min(rowMinimum, value);
+        }
+        return rowMinimum;
+    }
+}
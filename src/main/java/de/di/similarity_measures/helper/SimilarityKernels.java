@@ -0,0 +1,72 @@
+package de.di.similarity_measures.helper;
+
+/**
+ * SimilarityKernels are the innermost loops of the similarity measures: the comparison of MinHash signatures, the
+ * intersection of sorted token-id arrays and the rows of the edit distance matrix. The default build only contains
+ * the scalar kernels. Building with the Maven profile "vector" on JDK 17 or later adds VectorKernels, which implement
+ * the same loops with the incubating Java Vector API; they are picked at runtime if the JVM was started with
+ * --add-modules jdk.incubator.vector. Setting the system property de.di.kernels=scalar forces the scalar kernels.
+ * All kernels return identical results.
+ */
+public abstract class SimilarityKernels {
+
+    private static final String VECTOR_KERNELS = "de.di.similarity_measures.helper.VectorKernels";
+
+    private static final SimilarityKernels INSTANCE = load();
+
+    /**
+     * Returns the fastest kernels that are available in this JVM.
+     */
+    public static SimilarityKernels get() {
+        return INSTANCE;
+    }
+
+    private static SimilarityKernels load() {
+        if ("scalar".equals(System.getProperty("de.di.kernels")))
+            return new ScalarKernels();
+        try {
+            return (SimilarityKernels) Class.forName(VECTOR_KERNELS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Not built with the vector profile, an older JVM, or the incubator module is not enabled
+            return new ScalarKernels();
+        }
+    }
+
+    /**
+     * Returns a short name of these kernels, e.g., for logging which kernels are in use.
+     */
+    public abstract String getName();
+
+    /**
+     * Returns the number of entries in which the lowest bitsPerHash bits of the two signatures agree.
+     * @param signature1 The first signature.
+     * @param signature2 The second signature.
+     * @param length The number of entries to compare.
+     * @param bitsPerHash The number of low-order bits to compare per entry; between 1 and 32.
+     * @return The number of agreeing entries.
+     */
+    public abstract int countMatches(int[] signature1, int[] signature2, int length, int bitsPerHash);
+
+    /**
+     * Returns the number of ids that both sorted arrays of distinct ids contain. The count stops early if the
+     * remaining ids cannot lift it to minShared anymore.
+     * @param set1 The first array of distinct ids in ascending order.
+     * @param set2 The second array of distinct ids in ascending order.
+     * @param minShared The number of shared ids that is of interest; 0 for the exact count in any case.
+     * @return The number of shared ids or -1 if it is known to be smaller than minShared.
+     */
+    public abstract int countShared(int[] set1, int[] set2, int minShared);
+
+    /**
+     * Calculates one row of the Levenshtein matrix from the row above it: row[j] is the distance between the first
+     * j characters of the query and a string that ends with label and whose shorter prefix has the distances
+     * parentRow. The caller sets row[0].
+     * @param query The characters of the query; at least length entries.
+     * @param length The number of query characters, i.e., the row has length + 1 entries.
+     * @param label The last character of the other string.
+     * @param parentRow The row of the other string without its last character.
+     * @param row The row to fill; row[0] must already be set.
+     * @return The minimum of the row.
+     */
+    public abstract int levenshteinRow(int[] query, int length, int label, int[] parentRow, int[] row);
+}
@@ -0,0 +1,104 @@
+package de.di.similarity_measures.helper;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import lombok.Getter;
+
+/**
+ * A TokenSet is the pre-tokenized form of a value: its distinct token codes in ascending order together with the
+ * number of occurrences of every code. Two TokenSets are compared with a single linear merge over their code arrays,
+ * which needs neither hashing nor any temporary collection. The counts serve bag semantics; set semantics use the
+ * distinct codes only.
+ */
+@Getter
+public class TokenSet {
+
+    // The distinct token codes in ascending order
+    private final long[] tokens;
+
+    // The number of occurrences of each token code in tokens
+    private final int[] counts;
+
+    // The total number of tokens, i.e., the sum of all counts
+    private final int numTokens;
+
+    private TokenSet(long[] tokens, int[] counts, int numTokens) {
+        this.tokens = tokens;
+        this.counts = counts;
+        this.numTokens = numTokens;
+    }
+
+    /**
+     * Creates the TokenSet of the given token codes.
+     * @param codes The token codes, e.g., from Tokenizer.tokenize(String, LongArrayList); the list gets sorted.
+     * @return The TokenSet of the codes.
+     */
+    public static TokenSet of(LongArrayList codes) {
+        long[] elements = codes.elements();
+        int size = codes.size();
+        LongArrays.quickSort(elements, 0, size);
+
+        int numDistinct = 0;
+        for (int i = 0; i < size; i++)
+            if (i == 0 || elements[i] != elements[i - 1])
+                numDistinct++;
+
+        long[] tokens = new long[numDistinct];
+        int[] counts = new int[numDistinct];
+        int distinct = -1;
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || elements[i] != elements[i - 1])
+                tokens[++distinct] = elements[i];
+            counts[distinct]++;
+        }
+        return new TokenSet(tokens, counts, size);
+    }
+
+    public int getNumDistinct() {
+        return this.tokens.length;
+    }
+
+    /**
+     * Returns the number of distinct tokens that both TokenSets contain.
+     * @param other The other TokenSet.
+     * @return The size of the set intersection.
+     */
+    public int countSharedTokens(TokenSet other) {
+        int shared = 0;
+        int i = 0, j = 0;
+        while (i < this.tokens.length && j < other.tokens.length) {
+            if (this.tokens[i] < other.tokens[j]) {
+                i++;
+            } else if (this.tokens[i] > other.tokens[j]) {
+                j++;
+            } else {
+                shared++;
+                i++;
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Returns the number of tokens that both TokenSets contain, counting every token as often as it occurs in both.
+     * @param other The other TokenSet.
+     * @return The size of the bag intersection.
+     */
+    public int countOverlap(TokenSet other) {
+        int overlap = 0;
+        int i = 0, j = 0;
+        while (i < this.tokens.length && j < other.tokens.length) {
+            if (this.tokens[i] < other.tokens[j]) {
+                i++;
+            } else if (this.tokens[i] > other.tokens[j]) {
+                j++;
+            } else {
+                overlap += Math.min(this.counts[i], other.counts[j]);
+                i++;
+                j++;
+            }
+        }
+        return overlap;
+    }
+}
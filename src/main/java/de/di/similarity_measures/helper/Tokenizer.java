@@ -1,5 +1,7 @@
 package de.di.similarity_measures.helper;
 
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 @Getter
@@ -14,9 +16,24 @@ public class Tokenizer {
     // The choice of whether padding should be used for the tokenization
     private final boolean usePadding;
 
+    // Tokens of up to this many chars are packed losslessly into one long, 16 bits per char
+    public static final int MAX_PACKED_TOKEN_SIZE = 4;
+
+    // The multiplier of the rolling hash for tokens that are too long to be packed
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    // HASH_MULTIPLIER^(tokenSize - 1), i.e., the weight of the char that leaves the rolling hash window
+    @Getter(AccessLevel.NONE)
+    private final long leavingCharWeight;
+
     public Tokenizer(final int tokenSize, final boolean usePadding) {
         this.tokenSize = tokenSize;
         this.usePadding = usePadding;
+
+        long weight = 1;
+        for (int i = 1; i < tokenSize; i++)
+            weight *= HASH_MULTIPLIER;
+        this.leavingCharWeight = weight;
     }
 
     /**
@@ -41,4 +58,104 @@ public class Tokenizer {
             tokens[i] = s.substring(i, i + this.tokenSize);
         return tokens;
     }
+
+    /**
+     * Returns the number of tokens that tokenize() would produce for the input string without creating them.
+     * @param string The string argument that should be tokenized.
+     * @return The number of tokens of the argument.
+     */
+    public int countTokens(final String string) {
+        return this.countTokens(string.length());
+    }
+
+    /**
+     * Returns the number of tokens that tokenize() would produce for any string of the given length.
+     * @param length The length of a string.
+     * @return The number of tokens of a string of that length.
+     */
+    public int countTokens(int length) {
+        if (this.usePadding)
+            length += 2 * paddingSymbol.length() * Math.max(0, this.tokenSize - 1);
+        return Math.max(0, length - (this.tokenSize - 1));
+    }
+
+    /**
+     * Returns true if tokenize(String, LongArrayList) packs tokens losslessly, i.e., if two tokens are equal exactly if
+     * their codes are equal. Otherwise, the codes are 64-bit hashes, which collide only with negligible probability.
+     * @return True if the token codes are lossless.
+     */
+    public boolean isPacked() {
+        return this.tokenSize >= 0 && this.tokenSize <= MAX_PACKED_TOKEN_SIZE;
+    }
+
+    /**
+     * Tokenizes the input string like tokenize(String), but emits every token as a 64-bit code into the given list
+     * instead of creating token strings. Tokens of up to MAX_PACKED_TOKEN_SIZE chars are packed with their first char
+     * in the most significant position, so that unsigned code order equals the lexicographic token order; longer
+     * tokens are encoded with a rolling polynomial hash. Neither the padded string nor any token object is created.
+     * @param string The string argument that should be tokenized.
+     * @param codes The list that receives the token codes; it is cleared first and can be reused across calls.
+     * @return The number of tokens, i.e., the size of the list.
+     */
+    public int tokenize(final String string, final LongArrayList codes) {
+        codes.clear();
+        int numTokens = this.countTokens(string);
+        if (numTokens == 0)
+            return 0;
+        codes.ensureCapacity(numTokens);
+
+        int paddingLength = this.usePadding ? paddingSymbol.length() * Math.max(0, this.tokenSize - 1) : 0;
+        if (this.tokenSize == 0) {
+            // All tokens are empty strings
+            codes.size(numTokens);
+        } else if (this.isPacked()) {
+            long mask = this.tokenSize == MAX_PACKED_TOKEN_SIZE ? -1L : (1L << (16 * this.tokenSize)) - 1;
+            long code = 0;
+            for (int i = 0; i < numTokens + this.tokenSize - 1; i++) {
+                code = ((code << 16) | charAt(string, paddingLength, i)) & mask;
+                if (i >= this.tokenSize - 1)
+                    codes.add(code);
+            }
+        } else {
+            long hash = 0;
+            for (int i = 0; i < numTokens + this.tokenSize - 1; i++) {
+                if (i >= this.tokenSize)
+                    hash -= charAt(string, paddingLength, i - this.tokenSize) * this.leavingCharWeight;
+                hash = hash * HASH_MULTIPLIER + charAt(string, paddingLength, i);
+                if (i >= this.tokenSize - 1)
+                    codes.add(hash);
+            }
+        }
+        return numTokens;
+    }
+
+    /**
+     * Returns the code that tokenize(String, LongArrayList) emits for the given token, so that externally tokenized
+     * strings can be encoded like internally tokenized ones. Tokens that differ only in leading '\0' chars share a
+     * packed code.
+     * @param token The token.
+     * @return The packed code of the token or, if it is longer than MAX_PACKED_TOKEN_SIZE chars, its hash.
+     */
+    public static long code(final String token) {
+        long code = 0;
+        if (token.length() <= MAX_PACKED_TOKEN_SIZE) {
+            for (int i = 0; i < token.length(); i++)
+                code = (code << 16) | token.charAt(i);
+        } else {
+            // The polynomial hash equals the rolling hash of a window over the same chars
+            for (int i = 0; i < token.length(); i++)
+                code = code * HASH_MULTIPLIER + token.charAt(i);
+        }
+        return code;
+    }
+
+    // Returns the char at the given position of the padded string without materializing the padded string
+    private static char charAt(String string, int paddingLength, int position) {
+        if (position < paddingLength)
+            return paddingSymbol.charAt(position % paddingSymbol.length());
+        position -= paddingLength;
+        if (position < string.length())
+            return string.charAt(position);
+        return paddingSymbol.charAt((position - string.length()) % paddingSymbol.length());
+    }
 }
@@ -0,0 +1,42 @@
+package de.di.similarity_measures.structures;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class DistanceMatch implements Comparable<DistanceMatch> {
+
+    // The index of the matching value in the searched collection.
+    private final int index;
+
+    // The edit distance between the query and the matching value.
+    private final int distance;
+
+    @Override
+    public String toString() {
+        return "DistanceMatch(" + this.distance + ": " + this.index + ')';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || this.getClass() != o.getClass())
+            return false;
+        DistanceMatch match = (DistanceMatch) o;
+        return this.index == match.getIndex() && this.distance == match.getDistance();
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.index + this.distance;
+    }
+
+    @Override
+    public int compareTo(DistanceMatch o) {
+        if (this.distance != o.getDistance())
+            return Integer.compare(this.distance, o.getDistance());
+        return Integer.compare(this.index, o.getIndex());
+    }
+}
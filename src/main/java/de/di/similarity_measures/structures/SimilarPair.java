@@ -0,0 +1,47 @@
+package de.di.similarity_measures.structures;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Objects;
+
+@Getter
+@AllArgsConstructor
+public class SimilarPair implements Comparable<SimilarPair> {
+
+    // The index of the first element of the pair in the first (or only) input collection.
+    private final int index1;
+
+    // The index of the second element of the pair in the second (or only) input collection.
+    private final int index2;
+
+    // The similarity of the two elements.
+    private final double similarity;
+
+    @Override
+    public String toString() {
+        return "SimilarPair(" + String.format("%1.6f", this.similarity) + ": " + this.index1 + ", " + this.index2 + ')';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || this.getClass() != o.getClass())
+            return false;
+        SimilarPair pair = (SimilarPair) o;
+        return this.index1 == pair.getIndex1() && this.index2 == pair.getIndex2();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.index1, this.index2);
+    }
+
+    @Override
+    public int compareTo(SimilarPair o) {
+        if (this.index1 != o.getIndex1())
+            return Integer.compare(this.index1, o.getIndex1());
+        return Integer.compare(this.index2, o.getIndex2());
+    }
+}
@@ -0,0 +1,46 @@
+package de.di.similarity_measures.structures;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class SimilarityMatch implements Comparable<SimilarityMatch> {
+
+    // The index of the matching value in the searched collection.
+    private final int index;
+
+    // The similarity between the query and the matching value.
+    private final double similarity;
+
+    @Override
+    public String toString() {
+        return "SimilarityMatch(" + String.format("%1.6f", this.similarity) + ": " + this.index + ')';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || this.getClass() != o.getClass())
+            return false;
+        SimilarityMatch match = (SimilarityMatch) o;
+        return this.index == match.getIndex() && Double.compare(this.similarity, match.getSimilarity()) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * this.index + Double.hashCode(this.similarity);
+    }
+
+    /**
+     * Orders the better match first, i.e., the match with the higher similarity or, on equal similarities, the match
+     * with the smaller index.
+     */
+    @Override
+    public int compareTo(SimilarityMatch o) {
+        if (this.similarity != o.getSimilarity())
+            return Double.compare(o.getSimilarity(), this.similarity);
+        return Integer.compare(this.index, o.getIndex());
+    }
+}
@@ -0,0 +1,50 @@
+package de.di;
+
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ColumnTest {
+
+    @Test
+    public void testEncoding() {
+        Column column = Column.encode(new String[]{"b", "a", "b", "c", "a", "b"});
+
+        assertEquals(6, column.size());
+        assertEquals(3, column.getNumDistinct());
+        assertArrayEquals(new String[]{"b", "a", "c"}, column.getDictionary());
+        assertArrayEquals(new int[]{0, 1, 0, 2, 1, 0}, column.getCodes());
+        assertArrayEquals(new String[]{"b", "a", "b", "c", "a", "b"}, column.decode());
+    }
+
+    @Test
+    public void testRelationColumns() {
+        Relation relation = new Relation("data" + File.separator + "data_profiling" + File.separator + "tpch_region.csv");
+
+        for (int i = 0; i < relation.getAttributes().length; i++) {
+            Column column = relation.getColumn(i);
+            assertSame(column, relation.getColumn(i));
+            assertEquals(relation.getRecords().length, column.size());
+            for (int j = 0; j < relation.getRecords().length; j++)
+                assertEquals(relation.getRecords()[j][i], column.getValue(j));
+            assertArrayEquals(relation.getColumns()[i], column.decode());
+        }
+    }
+
+    @Test
+    public void testInMemoryRecordsStayUntouched() {
+        // Equal but distinct value instances, which the file constructor would replace by their dictionary instances
+        String value1 = new String("a");
+        String value2 = new String("a");
+        String[][] records = new String[][]{{value1}, {value2}};
+        Relation relation = new Relation("values", new String[]{"value"}, records);
+
+        assertEquals(1, relation.getColumn(0).getNumDistinct());
+        assertSame(value1, records[0][0]);
+        assertSame(value2, records[1][0]);
+    }
+}
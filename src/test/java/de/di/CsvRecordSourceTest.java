@@ -0,0 +1,61 @@
+package de.di;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CsvRecordSourceTest {
+
+    @Test
+    public void testBatchesEqualRelation() {
+        Path filePath = Path.of("data" + File.separator + "data_profiling" + File.separator + "tpch_nation.csv");
+        Relation relation = new Relation(filePath, true, ';', StandardCharsets.UTF_8);
+
+        try (RecordSource source = new CsvRecordSource(filePath, true, ';', StandardCharsets.UTF_8, 7)) {
+            assertEquals(relation.getName(), source.getName());
+            assertArrayEquals(relation.getAttributes(), source.getAttributes());
+            assertArrayEquals(relation.getRecords(), readAll(source, 7));
+        }
+    }
+
+    @Test
+    public void testBatchesWithoutHeader() {
+        Path filePath = Path.of("data" + File.separator + "data_profiling" + File.separator + "abcde.csv");
+        Relation relation = new Relation(filePath, false, ';', StandardCharsets.UTF_8);
+
+        try (RecordSource source = new CsvRecordSource(filePath, false, ';', StandardCharsets.UTF_8, 2)) {
+            assertArrayEquals(relation.getAttributes(), source.getAttributes());
+            assertArrayEquals(relation.getRecords(), readAll(source, 2));
+        }
+    }
+
+    @Test
+    public void testRelationAsRecordSource() {
+        Relation relation = new Relation("data" + File.separator + "data_profiling" + File.separator + "tpch_supplier.csv");
+
+        RecordSource source = relation.asRecordSource(3);
+        assertArrayEquals(relation.getAttributes(), source.getAttributes());
+        assertArrayEquals(relation.getRecords(), readAll(source, 3));
+    }
+
+    private static String[][] readAll(RecordSource source, int batchSize) {
+        List<String[]> records = new ArrayList<>();
+        String[][] batch;
+        while ((batch = source.nextBatch()) != null) {
+            assertTrue(batch.length > 0 && batch.length <= batchSize);
+            records.addAll(Arrays.asList(batch));
+        }
+        assertNull(source.nextBatch());
+        return records.toArray(new String[0][]);
+    }
+}
@@ -1,10 +1,14 @@
 package de.di.data_profiling;
 
+import de.di.CsvRecordSource;
+import de.di.RecordSource;
 import de.di.Relation;
 import de.di.data_profiling.structures.IND;
 import org.junit.Test;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,4 +29,19 @@ public class INDProfilerTest {
         List<IND> inds = profiler.profile(relations, false);
         assertEquals(211, inds.size());
     }
+
+    @Test
+    public void testStreamingCorrectness() {
+        INDProfiler profiler = new INDProfiler();
+        List<RecordSource> sources = new ArrayList<>();
+        for (String name : new String[]{"abcde", "abcdefghi", "tpch_nation", "tpch_region", "tpch_supplier"})
+            sources.add(new CsvRecordSource(Path.of("data", "data_profiling", name + ".csv"), true, ';', StandardCharsets.UTF_8, 8));
+
+        try {
+            List<IND> inds = profiler.profileSources(sources, false);
+            assertEquals(211, inds.size());
+        } finally {
+            sources.forEach(RecordSource::close);
+        }
+    }
 }
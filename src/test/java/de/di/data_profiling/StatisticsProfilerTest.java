@@ -0,0 +1,48 @@
+package de.di.data_profiling;
+
+import de.di.CsvRecordSource;
+import de.di.RecordSource;
+import de.di.Relation;
+import de.di.data_profiling.structures.ColumnStatistics;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+
+public class StatisticsProfilerTest {
+
+    @Test
+    public void testCorrectness_tpch_region() {
+        StatisticsProfiler profiler = new StatisticsProfiler();
+        Relation relation = new Relation("data" + File.separator + "data_profiling" + File.separator + "tpch_region.csv");
+
+        ColumnStatistics[] statistics = profiler.profile(relation);
+        assertEquals(3, statistics.length);
+
+        ColumnStatistics keys = statistics[0];
+        assertEquals(5, keys.getNumValues());
+        assertEquals(0, keys.getNumEmptyValues());
+        assertEquals(1, keys.getMinLength());
+        assertEquals(1, keys.getMaxLength());
+        assertEquals("0", keys.getMinValue());
+        assertEquals("4", keys.getMaxValue());
+        assertEquals(1.0, keys.getAverageLength(), 0.0);
+    }
+
+    @Test
+    public void testStreamingEqualsInMemory() {
+        StatisticsProfiler profiler = new StatisticsProfiler();
+        Path filePath = Path.of("data" + File.separator + "data_profiling" + File.separator + "tpch_supplier.csv");
+        ColumnStatistics[] expected = profiler.profile(new Relation(filePath, true, ';', StandardCharsets.UTF_8));
+
+        try (RecordSource source = new CsvRecordSource(filePath, true, ';', StandardCharsets.UTF_8, 4)) {
+            ColumnStatistics[] streamed = profiler.profile(source);
+            assertEquals(expected.length, streamed.length);
+            for (int i = 0; i < expected.length; i++)
+                assertEquals(expected[i].toString(), streamed[i].toString());
+        }
+    }
+}
@@ -7,7 +7,9 @@ import org.junit.Test;
 
 import java.io.File;
 import java.util.HashSet;
+import java.util.Random;
 import java.util.Set;
+import java.util.stream.IntStream;
 
 import static org.junit.Assert.assertEquals;
 
@@ -76,4 +78,82 @@ public class UCCProfilerTest {
         expectedUccs.add(new UCC(relation, new AttributeList(new int[]{3})));
         assertEquals(expectedUccs, uccs);
     }
+
+    @Test
+    public void testEqualsBruteForce() {
+        Random random = new Random(13);
+        int numAttributes = 9;
+        String[][] records = new String[40][numAttributes];
+        for (String[] record : records)
+            for (int a = 0; a < numAttributes; a++)
+                record[a] = String.valueOf(random.nextInt(2 + a % 3));
+        String[] attributes = new String[numAttributes];
+        for (int a = 0; a < numAttributes; a++)
+            attributes[a] = "a" + a;
+        Relation relation = new Relation("random", attributes, records);
+
+        // A set is a minimal UCC if it is unique and none of the sets without one of its attributes is
+        Set<UCC> expectedUccs = new HashSet<>();
+        for (int mask = 1; mask < 1 << numAttributes; mask++) {
+            boolean minimal = isUnique(records, mask);
+            for (int a = 0; a < numAttributes && minimal; a++)
+                if ((mask & (1 << a)) != 0 && (mask & ~(1 << a)) != 0 && isUnique(records, mask & ~(1 << a)))
+                    minimal = false;
+            if (minimal)
+                expectedUccs.add(new UCC(relation, new AttributeList(indexes(mask))));
+        }
+
+        UCCProfiler profiler = new UCCProfiler();
+        assertEquals(expectedUccs, new HashSet<>(profiler.profile(relation)));
+        // Without a cache budget, every PLI is derived again from the PLIs of single attributes
+        UCCProfiler uncachedProfiler = new UCCProfiler(0);
+        assertEquals(expectedUccs, new HashSet<>(uncachedProfiler.profile(relation)));
+        // The BitSet traversal for relations with more than 64 attributes
+        assertEquals(expectedUccs, new HashSet<>(UCCProfiler.profileWide(relation)));
+    }
+
+    @Test
+    public void testMoreThan64Attributes() {
+        // Every attribute duplicates the value of record 0 in one other record, so two attributes are unique together
+        // unless they duplicate the same record; attribute 0 has no duplicate and is unique on its own
+        int numAttributes = 70;
+        int numRecords = 13;
+        String[][] records = new String[numRecords][numAttributes];
+        for (int a = 0; a < numAttributes; a++)
+            for (int record = 0; record < numRecords; record++)
+                records[record][a] = String.valueOf(record);
+        for (int a = 1; a < numAttributes; a++)
+            records[1 + a % (numRecords - 1)][a] = "0";
+        String[] attributes = new String[numAttributes];
+        for (int a = 0; a < numAttributes; a++)
+            attributes[a] = "a" + a;
+        Relation relation = new Relation("wide", attributes, records);
+
+        Set<UCC> expectedUccs = new HashSet<>();
+        expectedUccs.add(new UCC(relation, new AttributeList(0)));
+        for (int a = 1; a < numAttributes; a++)
+            for (int b = a + 1; b < numAttributes; b++)
+                if (a % (numRecords - 1) != b % (numRecords - 1))
+                    expectedUccs.add(new UCC(relation, new AttributeList(new int[]{a, b})));
+
+        UCCProfiler profiler = new UCCProfiler();
+        assertEquals(expectedUccs, new HashSet<>(profiler.profile(relation)));
+    }
+
+    private static boolean isUnique(String[][] records, int mask) {
+        Set<String> projections = new HashSet<>();
+        for (String[] record : records) {
+            StringBuilder projection = new StringBuilder();
+            for (int a = 0; a < record.length; a++)
+                if ((mask & (1 << a)) != 0)
+                    projection.append(record[a]).append('|');
+            if (!projections.add(projection.toString()))
+                return false;
+        }
+        return true;
+    }
+
+    private static int[] indexes(int mask) {
+        return IntStream.range(0, Integer.SIZE).filter(a -> (mask & (1 << a)) != 0).toArray();
+    }
 }
@@ -0,0 +1,121 @@
+package de.di.data_profiling.structures;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AttributeSetTrieTest {
+
+    @Test
+    public void testQueries() {
+        AttributeSetTrie trie = new AttributeSetTrie();
+        assertTrue(trie.add(0b0011L));
+        assertTrue(trie.add(0b10100L));
+        assertFalse(trie.add(0b0011L));
+        assertTrue(trie.add(1L << 63 | 1L));
+        assertEquals(3, trie.size());
+
+        assertTrue(trie.contains(0b0011L));
+        assertFalse(trie.contains(0b0001L));
+        assertFalse(trie.contains(0b10000L));
+
+        assertTrue(trie.containsSubsetOf(0b0111L));
+        assertTrue(trie.containsSubsetOf(0b10101L));
+        assertTrue(trie.containsSubsetOf(1L << 63 | 1L << 40 | 1L));
+        assertFalse(trie.containsSubsetOf(0b11001L));
+        assertFalse(trie.containsSubsetOf(0L));
+
+        assertTrue(trie.containsSupersetOf(0b0001L));
+        assertTrue(trie.containsSupersetOf(0b10000L));
+        assertTrue(trie.containsSupersetOf(1L << 63));
+        assertTrue(trie.containsSupersetOf(0L));
+        assertFalse(trie.containsSupersetOf(0b0101L));
+        assertFalse(trie.containsSupersetOf(1L << 63 | 0b10L));
+    }
+
+    @Test
+    public void testEqualsLinearScan() {
+        Random random = new Random(17);
+        AttributeSetTrie trie = new AttributeSetTrie();
+        List<Long> sets = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            long set = randomSet(random);
+            trie.add(set);
+            if (!sets.contains(set))
+                sets.add(set);
+        }
+        assertEquals(sets.size(), trie.size());
+
+        for (int i = 0; i < 3000; i++) {
+            long query = randomSet(random);
+            boolean subset = false, superset = false;
+            for (long set : sets) {
+                subset |= (set & ~query) == 0;
+                superset |= (query & ~set) == 0;
+            }
+            assertEquals(sets.contains(query), trie.contains(query));
+            assertEquals(subset, trie.containsSubsetOf(query));
+            assertEquals(superset, trie.containsSupersetOf(query));
+        }
+    }
+
+    @Test
+    public void testBitSets() {
+        Random random = new Random(23);
+        AttributeSetTrie trie = new AttributeSetTrie();
+        List<BitSet> sets = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            BitSet set = randomWideSet(random);
+            assertEquals(!sets.contains(set), trie.add(set));
+            if (!sets.contains(set))
+                sets.add(set);
+        }
+        assertEquals(sets.size(), trie.size());
+
+        for (int i = 0; i < 3000; i++) {
+            BitSet query = randomWideSet(random);
+            boolean subset = false;
+            for (BitSet set : sets) {
+                BitSet outside = (BitSet) set.clone();
+                outside.andNot(query);
+                subset |= outside.isEmpty();
+            }
+            assertEquals(subset, trie.containsSubsetOf(query));
+        }
+
+        // Sets within the first 64 attributes are the same as their long masks
+        assertTrue(trie.add(BitSet.valueOf(new long[]{0b1011L})));
+        assertTrue(trie.contains(0b1011L));
+        assertFalse(trie.add(0b1011L));
+        assertTrue(trie.containsSubsetOf(0b1111L));
+    }
+
+    // Sets over 12 attributes, some of which are spread over the whole 64-bit range
+    private static long randomSet(Random random) {
+        long set = 0L;
+        int size = random.nextInt(7);
+        for (int i = 0; i < size; i++) {
+            int attribute = random.nextInt(12);
+            set |= 1L << (attribute < 10 ? attribute : 50 + attribute);
+        }
+        return set;
+    }
+
+    // Sets over 12 attributes, some of which lie beyond the range of a long
+    private static BitSet randomWideSet(Random random) {
+        BitSet set = new BitSet();
+        int size = random.nextInt(7);
+        for (int i = 0; i < size; i++) {
+            int attribute = random.nextInt(12);
+            set.set(attribute < 10 ? attribute : 100 + attribute);
+        }
+        return set;
+    }
+}
@@ -0,0 +1,114 @@
+package de.di.data_profiling.structures;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PLICacheTest {
+
+    @Test
+    public void testDerivedPLIs() {
+        String[][] columns = randomColumns(new Random(17), 5, 60);
+        PLICache cache = new PLICache(Long.MAX_VALUE);
+        for (int a = 0; a < columns.length; a++)
+            cache.put(1L << a, new PositionListIndex(new AttributeList(a), columns[a]));
+
+        // Neither {0, 1, 2} nor any of its subsets without one attribute is cached, so {0, 1} is derived on the way
+        PositionListIndex pli012 = cache.get(0b00111L);
+        assertTrue(cache.contains(0b00011L));
+        assertEquals(7, cache.size());
+        assertSame(pli012, cache.get(0b00111L));
+        assertClusters(intersect(columns, 0b00111L), pli012);
+
+        // {0, 1, 2, 3} only needs one intersection of cached PLIs
+        assertClusters(intersect(columns, 0b01111L), cache.get(0b01111L));
+        assertEquals(8, cache.size());
+        assertClusters(intersect(columns, 0b11010L), cache.get(0b11010L));
+    }
+
+    @Test
+    public void testBudget() {
+        Random random = new Random(19);
+        String[][] columns = randomColumns(random, 8, 200);
+        PLICache cache = new PLICache(4096);
+        for (int a = 0; a < columns.length; a++)
+            cache.put(1L << a, new PositionListIndex(new AttributeList(a), columns[a]));
+        long singlesBytes = cache.getUsedBytes();
+
+        for (int run = 0; run < 300; run++) {
+            long attributes = random.nextInt(1 << columns.length) | 1L << random.nextInt(columns.length);
+            assertClusters(intersect(columns, attributes), cache.get(attributes));
+            assertTrue(cache.getUsedBytes() <= Math.max(cache.getBudget(), singlesBytes));
+        }
+        // The PLIs of single attributes are never evicted
+        for (int a = 0; a < columns.length; a++)
+            assertTrue(cache.contains(1L << a));
+    }
+
+    @Test
+    public void testEvictionKeepsReusedPLIs() {
+        // All PLIs have the same size, so only their uses decide
+        String[] constant = new String[50];
+        Arrays.fill(constant, "a");
+        int numColumns = 12;
+        long size = new PositionListIndex(new AttributeList(0), constant).estimateMemorySize();
+        PLICache cache = new PLICache((numColumns + 8) * size);
+        for (int a = 0; a < numColumns; a++)
+            cache.put(1L << a, new PositionListIndex(new AttributeList(a), constant));
+
+        for (int use = 0; use < 10; use++)
+            cache.get(0b11L);
+        for (int a = 2; a < numColumns; a++)
+            cache.get(1L << a | 1L);
+
+        assertTrue(cache.contains(0b11L));
+        assertTrue(cache.size() < 2 * numColumns - 1);
+        assertTrue(cache.getUsedBytes() <= cache.getBudget());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingAttribute() {
+        PLICache cache = new PLICache(1024);
+        cache.put(0b01L, new PositionListIndex(new AttributeList(0), new String[]{"a", "a"}));
+        cache.get(0b11L);
+    }
+
+    private static String[][] randomColumns(Random random, int numColumns, int numRecords) {
+        String[][] columns = new String[numColumns][numRecords];
+        for (int a = 0; a < numColumns; a++)
+            for (int record = 0; record < numRecords; record++)
+                columns[a][record] = String.valueOf(random.nextInt(2 + a % 3));
+        return columns;
+    }
+
+    private static PositionListIndex intersect(String[][] columns, long attributes) {
+        PositionListIndex pli = null;
+        for (long remaining = attributes; remaining != 0; remaining &= remaining - 1) {
+            int a = Long.numberOfTrailingZeros(remaining);
+            PositionListIndex single = new PositionListIndex(new AttributeList(a), columns[a]);
+            pli = pli == null ? single : pli.intersect(single);
+        }
+        return pli;
+    }
+
+    private static void assertClusters(PositionListIndex expected, PositionListIndex actual) {
+        assertEquals(expected.getAttributes(), actual.getAttributes());
+        assertEquals(clusters(expected), clusters(actual));
+    }
+
+    private static Set<List<Integer>> clusters(PositionListIndex pli) {
+        Set<List<Integer>> clusters = new HashSet<>();
+        for (int cluster = 0; cluster < pli.getNumClusters(); cluster++)
+            clusters.add(Arrays.stream(pli.getCluster(cluster)).boxed().collect(Collectors.toList()));
+        return clusters;
+    }
+}
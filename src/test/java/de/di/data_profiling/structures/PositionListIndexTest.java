@@ -1,7 +1,13 @@
 package de.di.data_profiling.structures;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import org.junit.Test;
 
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class PositionListIndexTest {
@@ -22,4 +28,68 @@ public class PositionListIndexTest {
         assertEquals(pli4.getClass(), pli1.intersect(pli2).intersect(pli5).getClass());
         assertEquals(pli7.getClass(), pli1.intersect(pli6).intersect(pli3).getClass());
     }
+
+    @Test
+    public void testIntersectionGroups() {
+        PositionListIndex pli1 = new PositionListIndex(new AttributeList(new int[]{0}), new String[]{"a", "a", "a", "b", "b", "a"});
+        PositionListIndex pli2 = new PositionListIndex(new AttributeList(new int[]{1}), new String[]{"a", "a", "b", "b", "b", "b"});
+
+        PositionListIndex intersection = pli1.intersect(pli2);
+        assertEquals("[0, 1]", intersection.getAttributes().toString());
+        assertEquals(groups(new int[][]{{0, 1}, {2, 5}, {3, 4}}), groups(intersection));
+        assertEquals(6, intersection.size());
+        assertEquals(6, intersection.getNumClusteredRecords());
+        assertArrayEquals(new int[]{0, 0, 1, 2, 2, 1}, intersection.getRecordToCluster());
+    }
+
+    @Test
+    public void testMemorySize() {
+        PositionListIndex pli = new PositionListIndex(new AttributeList(0), new String[]{"a", "b", "a", "c", "a", "b"});
+        assertEquals(2, pli.getNumClusters());
+        assertArrayEquals(new int[]{0, 2, 4}, pli.getCluster(0));
+        assertArrayEquals(new int[]{1, 5}, pli.getCluster(1));
+
+        // The record-to-cluster array is only counted while it exists
+        long compactSize = pli.estimateMemorySize();
+        pli.getRecordToCluster();
+        assertEquals(compactSize + 16 + 6 * 4, pli.estimateMemorySize());
+        pli.releaseRecordToCluster();
+        assertEquals(compactSize, pli.estimateMemorySize());
+    }
+
+    @Test
+    public void testIntersectionEqualsCombinedValues() {
+        Random random = new Random(19);
+        for (int run = 0; run < 50; run++) {
+            int numRecords = 1 + random.nextInt(300);
+            String[] values1 = new String[numRecords];
+            String[] values2 = new String[numRecords];
+            String[] combined = new String[numRecords];
+            for (int r = 0; r < numRecords; r++) {
+                values1[r] = String.valueOf(random.nextInt(1 + run));
+                values2[r] = String.valueOf(random.nextInt(1 + run % 7));
+                combined[r] = values1[r] + "|" + values2[r];
+            }
+
+            PositionListIndex pli1 = new PositionListIndex(new AttributeList(0), values1);
+            PositionListIndex pli2 = new PositionListIndex(new AttributeList(1), values2);
+            PositionListIndex expected = new PositionListIndex(new AttributeList(new int[]{0, 1}), combined);
+            assertEquals(groups(expected), groups(pli1.intersect(pli2)));
+            assertEquals(groups(expected), groups(pli2.intersect(pli1)));
+        }
+    }
+
+    private static Set<IntArrayList> groups(PositionListIndex pli) {
+        Set<IntArrayList> groups = new HashSet<>();
+        for (int cluster = 0; cluster < pli.getNumClusters(); cluster++)
+            groups.add(IntArrayList.wrap(pli.getCluster(cluster)));
+        return groups;
+    }
+
+    private static Set<IntArrayList> groups(int[][] groups) {
+        Set<IntArrayList> sortedGroups = new HashSet<>();
+        for (int[] group : groups)
+            sortedGroups.add(IntArrayList.wrap(group));
+        return sortedGroups;
+    }
 }
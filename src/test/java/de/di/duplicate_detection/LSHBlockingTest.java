@@ -0,0 +1,57 @@
+package de.di.duplicate_detection;
+
+import de.di.Relation;
+import de.di.duplicate_detection.structures.AttrSimWeight;
+import de.di.duplicate_detection.structures.Duplicate;
+import de.di.similarity_measures.Jaccard;
+import de.di.similarity_measures.Levenshtein;
+import de.di.similarity_measures.helper.Tokenizer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class LSHBlockingTest {
+
+    @Test
+    public void testCorrectness() {
+        String[][] records = new String[][]{
+                {"Bohemian Rhapsody", "Queen"},
+                {"Stairway to Heaven", "Led Zeppelin"},
+                {"Hotel California", "Eagles"},
+                {"Smells Like Teen Spirit", "Nirvana"},
+                {"Imagine", "John Lennon"},
+                {"Stairway to Heaven", "Led Zepelin"},
+                {"Like a Rolling Stone", "Bob Dylan"},
+                {"Bohemian Rhapsody", "Queen"},
+                {"Hey Jude", "The Beatles"},
+                {"Hotel Californa", "The Eagles"}};
+        Relation relation = new Relation("songs", new String[]{"title", "artist"}, records);
+
+        List<AttrSimWeight> attrSimWeights = new ArrayList<>(2);
+        attrSimWeights.add(new AttrSimWeight(0, new Levenshtein(true), 0.5));
+        attrSimWeights.add(new AttrSimWeight(1, new Jaccard(new Tokenizer(2, true), false), 0.5));
+        RecordComparator recordComparator = new RecordComparator(attrSimWeights, 0.7);
+
+        LSHBlocking lshBlocking = new LSHBlocking(new Tokenizer(3, true), 128, 0.5);
+        Set<Duplicate> duplicates = new TreeSet<>(lshBlocking.detectDuplicates(relation, new int[]{0, 1}, recordComparator, 0.7));
+
+        // The duplicates are far apart in every sort order of the records, but still found
+        assertEquals("[Duplicate(1.000000: 0, 7), Duplicate(0.961538: 1, 5), Duplicate(0.718750: 2, 9)]", duplicates.toString());
+
+        // The full comparison of all pairs finds exactly the same duplicates
+        Set<Duplicate> expected = new TreeSet<>();
+        for (int i = 0; i < records.length; i++)
+            for (int j = i + 1; j < records.length; j++)
+                if (recordComparator.compare(records[i], records[j]) >= 0.7)
+                    expected.add(new Duplicate(i, j, recordComparator.compare(records[i], records[j]), relation));
+        assertEquals(expected.toString(), duplicates.toString());
+
+        // Without an explicit threshold, the comparator's threshold applies
+        assertEquals(duplicates.toString(), new TreeSet<>(lshBlocking.detectDuplicates(relation, new int[]{0, 1}, recordComparator)).toString());
+    }
+}
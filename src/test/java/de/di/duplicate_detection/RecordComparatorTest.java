@@ -1,6 +1,7 @@
 package de.di.duplicate_detection;
 
 import de.di.duplicate_detection.structures.AttrSimWeight;
+import de.di.duplicate_detection.structures.PreparedRecords;
 import de.di.similarity_measures.Jaccard;
 import de.di.similarity_measures.Levenshtein;
 import de.di.similarity_measures.helper.Tokenizer;
@@ -10,6 +11,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import de.di.similarity_measures.SimilarityMeasure;
 
 public class RecordComparatorTest {
 
@@ -85,4 +87,71 @@ public class RecordComparatorTest {
         double similarity = recordComparator.compare(this.tuple1, this.tuple2);
         assertEquals(0.6485968992248062, similarity, 0.0000000001);
     }
+
+    @Test
+    public void testThreshold() {
+        List<AttrSimWeight> attrSimWeights = new ArrayList<>(5);
+        attrSimWeights.add(new AttrSimWeight(0, new Levenshtein(true), 0.4));
+        attrSimWeights.add(new AttrSimWeight(1, new Jaccard(new Tokenizer(2, false), false), 0.1));
+        attrSimWeights.add(new AttrSimWeight(2, new Levenshtein(false), 0.2));
+        attrSimWeights.add(new AttrSimWeight(3, new Jaccard(new Tokenizer(3, true), true), 0.1));
+        attrSimWeights.add(new AttrSimWeight(4, new Levenshtein(true), 0.2));
+        RecordComparator recordComparator = new RecordComparator(attrSimWeights, 1.0);
+
+        String[][] tuples = new String[][]{this.tuple1, this.tuple2, {"Data Integration", "English", "9 ECTS", "University of Marburg", "Schema Matching"}, {"Data Integration"}};
+        for (String[] tupleA : tuples) {
+            for (String[] tupleB : tuples) {
+                double similarity = recordComparator.compare(tupleA, tupleB);
+                for (double minSimilarity : new double[]{0, 0.3, 0.5, 0.65, 0.9, 1, similarity}) {
+                    double expected = similarity >= minSimilarity ? similarity : SimilarityMeasure.BELOW_THRESHOLD;
+                    assertEquals(expected, recordComparator.compare(tupleA, tupleB, minSimilarity), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPreparedRecords() {
+        List<AttrSimWeight> attrSimWeights = new ArrayList<>(5);
+        attrSimWeights.add(new AttrSimWeight(0, new Levenshtein(true), 0.4));
+        attrSimWeights.add(new AttrSimWeight(1, new Jaccard(new Tokenizer(2, false), false), 0.1));
+        attrSimWeights.add(new AttrSimWeight(2, new Jaccard(new Tokenizer(1, false), true), 0.2));
+        attrSimWeights.add(new AttrSimWeight(3, new Jaccard(new Tokenizer(3, true), true), 0.1));
+        attrSimWeights.add(new AttrSimWeight(4, new Jaccard(new Tokenizer(5, true), false), 0.2));
+        RecordComparator recordComparator = new RecordComparator(attrSimWeights, 1.0);
+
+        String[][] tuples = new String[][]{this.tuple1, this.tuple2, {"Data Integration", "English", "9 ECTS", "University of Marburg", "Schema Matching"}, {"Data Integration"}, {"", null, "", "", ""}};
+        PreparedRecords preparedRecords = recordComparator.prepare(tuples);
+        for (int a = 0; a < tuples.length; a++) {
+            for (int b = 0; b < tuples.length; b++) {
+                double similarity = recordComparator.compare(tuples[a], tuples[b]);
+                for (double minSimilarity : new double[]{0, 0.3, 0.5, 0.65, 0.9, 1, similarity}) {
+                    double expected = similarity >= minSimilarity ? similarity : SimilarityMeasure.BELOW_THRESHOLD;
+                    assertEquals(expected, recordComparator.compare(preparedRecords, a, b, minSimilarity), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBatch() {
+        List<AttrSimWeight> attrSimWeights = new ArrayList<>(5);
+        attrSimWeights.add(new AttrSimWeight(0, new Levenshtein(true), 0.4));
+        attrSimWeights.add(new AttrSimWeight(1, new Jaccard(new Tokenizer(2, false), false), 0.1));
+        attrSimWeights.add(new AttrSimWeight(2, new Levenshtein(false), 0.2));
+        attrSimWeights.add(new AttrSimWeight(3, new Jaccard(new Tokenizer(3, true), true), 0.1));
+        attrSimWeights.add(new AttrSimWeight(4, new Jaccard(new Tokenizer(2, true), false), 0.2));
+        RecordComparator recordComparator = new RecordComparator(attrSimWeights, 1.0);
+
+        String[][] tuples1 = new String[][]{this.tuple1, this.tuple2, {"Data Integration"}};
+        String[][] tuples2 = new String[][]{this.tuple2, {"Data Integration", "English", "9 ECTS", "University of Marburg", "Schema Matching"}};
+        double[][] matrix = recordComparator.compare(tuples1, tuples2);
+        for (int i = 0; i < tuples1.length; i++) {
+            double[] row = recordComparator.compare(tuples1[i], tuples2);
+            for (int j = 0; j < tuples2.length; j++) {
+                assertEquals(recordComparator.compare(tuples1[i], tuples2[j]), matrix[i][j], 0.0);
+                assertEquals(matrix[i][j], row[j], 0.0);
+            }
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package de.di.duplicate_detection;
 
+import de.di.CsvRecordSource;
+import de.di.RecordSource;
 import de.di.Relation;
 import de.di.duplicate_detection.structures.AttrSimWeight;
 import de.di.duplicate_detection.structures.Duplicate;
@@ -12,10 +14,14 @@ import org.junit.Test;
 
 import java.io.File;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class SortedNeighborhoodTest {
@@ -46,6 +52,29 @@ public class SortedNeighborhoodTest {
         assertEquals(40, duplicatesDetected.size());
     }
 
+    @Test
+    public void testSortOrders() {
+        Path filePath = Path.of("data", "data_profiling", "tpch_nation.csv");
+        Relation nation = new Relation(filePath, true, ';', StandardCharsets.UTF_8);
+        int[] sortingKeys = new int[]{2, 1, 2};
+
+        // Every pass sorts stably, starting from the order of the previous pass
+        Integer[] expected = new Integer[nation.getRecords().length];
+        for (int i = 0; i < expected.length; i++)
+            expected[i] = i;
+
+        int[][] orders;
+        try (RecordSource source = new CsvRecordSource(filePath, true, ';', StandardCharsets.UTF_8, 4)) {
+            orders = SortedNeighborhood.extractSortOrders(source, sortingKeys);
+        }
+        assertEquals(sortingKeys.length, orders.length);
+        for (int k = 0; k < sortingKeys.length; k++) {
+            int key = sortingKeys[k];
+            Arrays.sort(expected, Comparator.comparing(i -> nation.getRecords()[i][key]));
+            assertArrayEquals(Arrays.stream(expected).mapToInt(Integer::intValue).toArray(), orders[k]);
+        }
+    }
+
     private List<Duplicate> parseCDGoldstandard(Relation cdGold, Relation cd) {
         List<Duplicate> duplicatesGold = new ArrayList<>(cdGold.getRecords().length);
         for (String[] record : cdGold.getRecords()) {
@@ -0,0 +1,72 @@
+package de.di.helper;
+
+import de.di.Relation;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentRelationLoaderTest {
+
+    @Test
+    public void testDeterministicOrder() {
+        String folderPath = "data" + File.separator + "data_profiling";
+        List<Relation> expected = Relation.readAllRelationsIn(folderPath, true, ';', StandardCharsets.UTF_8).stream()
+                .sorted((r1, r2) -> r1.getName().compareTo(r2.getName()))
+                .collect(Collectors.toList());
+
+        for (long memoryBudget : new long[]{1, 1L << 30}) {
+            List<Relation> relations = Relation.readAllRelationsIn(folderPath, true, ';', StandardCharsets.UTF_8, 1, null, 3, memoryBudget);
+            assertEquals(expected.size(), relations.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getName(), relations.get(i).getName());
+                assertArrayEquals(expected.get(i).getAttributes(), relations.get(i).getAttributes());
+                assertArrayEquals(expected.get(i).getRecords(), relations.get(i).getRecords());
+            }
+        }
+    }
+
+    @Test
+    public void testBoundedInFlightFiles() throws Exception {
+        List<Path> files;
+        try (Stream<Path> paths = Files.list(Path.of("data", "data_profiling"))) {
+            files = paths.sorted().collect(Collectors.toList());
+        }
+
+        for (int maxInFlightFiles = 1; maxInFlightFiles <= 3; maxInFlightFiles++) {
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxObserved = new AtomicInteger();
+            List<Relation> relations = new ConcurrentRelationLoader(maxInFlightFiles, 1L << 30).load(files, file -> {
+                maxObserved.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                inFlight.decrementAndGet();
+                return new Relation(file, true, ';', StandardCharsets.UTF_8);
+            });
+
+            assertTrue(maxObserved.get() <= maxInFlightFiles);
+            for (int i = 0; i < files.size(); i++)
+                assertEquals(files.get(i).getFileName().toString().split("\\.")[0], relations.get(i).getName());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFailurePropagation() {
+        new ConcurrentRelationLoader(2, 1L << 30).load(List.of(Path.of("data", "data_profiling", "abcde.csv")), file -> {
+            throw new IllegalStateException();
+        });
+    }
+}
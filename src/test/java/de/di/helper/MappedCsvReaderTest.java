@@ -0,0 +1,98 @@
+package de.di.helper;
+
+import de.di.Relation;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class MappedCsvReaderTest {
+
+    private static final String s = File.separator;
+
+    @Test
+    public void testEqualsOpenCsvOnDataFiles() throws IOException {
+        for (Path file : scanFiles("data" + s + "data_profiling"))
+            assertSameRelation(file, true, ';', StandardCharsets.UTF_8);
+        for (Path file : scanFiles("data" + s + "schema_matching"))
+            assertSameRelation(file, !file.toString().contains("ground_truth"), ',', StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testEqualsOpenCsvOnQuotesAndEscapes() throws IOException {
+        String content = "id,\"na\"\"me\",,note\r\n" +
+                "1,\"Tim, Tina\",x,\"multi\r\nline\"\n" +
+                "2,ab\"c\"d,\\\"quoted\\\",back\\slash\r" +
+                "3,\"\",,\"\"\"\"\n" +
+                "\n" +
+                "4,Universität,é\"é\"é,last";
+        Path file = Files.createTempFile("mapped", ".csv");
+        try {
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+            assertSameRelation(file, true, ',', StandardCharsets.UTF_8);
+            assertSameRelation(file, false, ',', StandardCharsets.UTF_8);
+
+            Files.write(file, content.getBytes(StandardCharsets.ISO_8859_1));
+            assertSameRelation(file, true, ',', StandardCharsets.ISO_8859_1);
+
+            // Tiny mapping windows force records to be continued in the next window
+            Relation expected = new Relation(file, false, ',', StandardCharsets.ISO_8859_1);
+            ColumnarTable table = new MappedCsvReader(',', StandardCharsets.ISO_8859_1, 4, 64, 1).read(file, false);
+            assertArrayEquals(expected.getRecords(), table.buildRecords());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testParallelEqualsSequential() throws IOException {
+        // Quoted line breaks let some chunks start inside a record, which the stitching has to repair
+        StringBuilder content = new StringBuilder("id;text;value\n");
+        for (int i = 0; i < 200; i++)
+            content.append(i).append(";\"line\n").append(i % 7).append(";\nnext\";").append(i % 3).append(i % 5 == 0 ? "\r\n" : "\n");
+        Path file = Files.createTempFile("parallel", ".csv");
+        try {
+            Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+            Relation expected = new Relation(file, true, ';', StandardCharsets.UTF_8);
+            for (int threads = 2; threads <= 8; threads++) {
+                ColumnarTable table = new MappedCsvReader(';', StandardCharsets.UTF_8, 64, 1024, 1).read(file, true, threads);
+                assertArrayEquals(expected.getAttributes(), table.getHeader());
+                assertArrayEquals(expected.getRecords(), table.buildRecords());
+                for (int i = 0; i < expected.getAttributes().length; i++) {
+                    assertArrayEquals(expected.getColumn(i).getDictionary(), table.buildColumns(3)[i].getDictionary());
+                    assertArrayEquals(expected.getColumn(i).getCodes(), table.buildColumns(3)[i].getCodes());
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void assertSameRelation(Path file, boolean hasHeader, char separator, Charset charset) {
+        Relation expected = new Relation(file, hasHeader, separator, charset);
+        Relation actual = Relation.readMapped(file, hasHeader, separator, charset);
+
+        assertArrayEquals(expected.getAttributes(), actual.getAttributes());
+        assertArrayEquals(expected.getRecords(), actual.getRecords());
+        for (int i = 0; i < expected.getAttributes().length; i++) {
+            assertArrayEquals(expected.getColumn(i).getDictionary(), actual.getColumn(i).getDictionary());
+            assertArrayEquals(expected.getColumn(i).getCodes(), actual.getColumn(i).getCodes());
+        }
+    }
+
+    private static List<Path> scanFiles(String folderPath) throws IOException {
+        try (Stream<Path> paths = Files.walk(Paths.get(folderPath))) {
+            return paths.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+    }
+}
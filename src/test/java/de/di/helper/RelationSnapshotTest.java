@@ -0,0 +1,129 @@
+package de.di.helper;
+
+import de.di.Relation;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RelationSnapshotTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path cacheDir = Files.createTempDirectory("snapshots");
+        try {
+            for (String name : new String[]{"abcde", "tpch_nation", "tpch_supplier"}) {
+                Path filePath = Path.of("data", "data_profiling", name + ".csv");
+                Relation expected = new Relation(filePath, true, ';', StandardCharsets.UTF_8);
+
+                RelationSnapshot snapshot = RelationSnapshot.of(cacheDir, filePath, true, ';', StandardCharsets.UTF_8);
+                assertNull(snapshot.load());
+                assertTrue(snapshot.store(expected));
+
+                Relation loaded = RelationSnapshot.of(cacheDir, filePath, true, ';', StandardCharsets.UTF_8).load();
+                assertNotNull(loaded);
+                assertEquals(expected.getName(), loaded.getName());
+                assertArrayEquals(expected.getAttributes(), loaded.getAttributes());
+                assertArrayEquals(expected.getRecords(), loaded.getRecords());
+                for (int i = 0; i < expected.getAttributes().length; i++) {
+                    assertArrayEquals(expected.getColumn(i).getDictionary(), loaded.getColumn(i).getDictionary());
+                    assertArrayEquals(expected.getColumn(i).getCodes(), loaded.getColumn(i).getCodes());
+                }
+
+                // Snapshots of the same file that was parsed with other options are not interchangeable
+                assertNull(RelationSnapshot.of(cacheDir, filePath, false, ';', StandardCharsets.UTF_8).load());
+                assertNull(RelationSnapshot.of(cacheDir, filePath, true, ',', StandardCharsets.UTF_8).load());
+            }
+        } finally {
+            deleteRecursively(cacheDir);
+        }
+    }
+
+    @Test
+    public void testStaleSnapshot() throws IOException {
+        Path cacheDir = Files.createTempDirectory("snapshots");
+        try {
+            Path filePath = cacheDir.resolve("input.csv");
+            Files.write(filePath, "a;b\n1;2\n3;4\n".getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(filePath, FileTime.fromMillis(1000000));
+
+            Relation relation = Relation.readCached(filePath, true, ';', StandardCharsets.UTF_8, 1, cacheDir);
+            assertArrayEquals(new String[][]{{"1", "2"}, {"3", "4"}}, relation.getRecords());
+            assertNotNull(RelationSnapshot.of(cacheDir, filePath, true, ';', StandardCharsets.UTF_8).load());
+
+            // Same size, but a different modification time
+            Files.write(filePath, "a;b\n5;6\n7;8\n".getBytes(StandardCharsets.UTF_8));
+            Files.setLastModifiedTime(filePath, FileTime.fromMillis(2000000));
+            assertNull(RelationSnapshot.of(cacheDir, filePath, true, ';', StandardCharsets.UTF_8).load());
+
+            relation = Relation.readCached(filePath, true, ';', StandardCharsets.UTF_8, 1, cacheDir);
+            assertArrayEquals(new String[][]{{"5", "6"}, {"7", "8"}}, relation.getRecords());
+        } finally {
+            deleteRecursively(cacheDir);
+        }
+    }
+
+    @Test
+    public void testDamagedSnapshot() throws IOException {
+        Path cacheDir = Files.createTempDirectory("snapshots");
+        try {
+            Path filePath = Path.of("data", "data_profiling", "tpch_nation.csv");
+            Relation expected = Relation.readCached(filePath, true, ';', StandardCharsets.UTF_8, 1, cacheDir);
+            RelationSnapshot snapshot = RelationSnapshot.of(cacheDir, filePath, true, ';', StandardCharsets.UTF_8);
+            byte[] bytes = Files.readAllBytes(snapshot.getSnapshotFile());
+
+            // Cut off within the codes of the last column, and within the dictionary of the first one
+            for (int length : new int[]{bytes.length - 1, bytes.length / 2}) {
+                Files.write(snapshot.getSnapshotFile(), Arrays.copyOf(bytes, length));
+                assertNull(snapshot.load());
+                Relation relation = Relation.readCached(filePath, true, ';', StandardCharsets.UTF_8, 1, cacheDir);
+                assertArrayEquals(expected.getRecords(), relation.getRecords());
+                // The snapshot was written again
+                assertNotNull(snapshot.load());
+            }
+
+            // A garbage length right after the header must not allocate a huge array
+            byte[] damaged = bytes.clone();
+            Arrays.fill(damaged, 8, damaged.length, (byte) 0x7F);
+            Files.write(snapshot.getSnapshotFile(), damaged);
+            assertNull(snapshot.load());
+        } finally {
+            deleteRecursively(cacheDir);
+        }
+    }
+
+    @Test
+    public void testRaggedRelationIsNotStored() throws IOException {
+        Path cacheDir = Files.createTempDirectory("snapshots");
+        try {
+            Path filePath = cacheDir.resolve("ragged.csv");
+            Files.write(filePath, "a;b\n1;2;3\n4\n".getBytes(StandardCharsets.UTF_8));
+
+            RelationSnapshot snapshot = RelationSnapshot.of(cacheDir, filePath, true, ';', StandardCharsets.UTF_8);
+            assertFalse(snapshot.store(new Relation(filePath, true, ';', StandardCharsets.UTF_8)));
+            assertFalse(Files.exists(snapshot.getSnapshotFile()));
+        } finally {
+            deleteRecursively(cacheDir);
+        }
+    }
+
+    private static void deleteRecursively(Path folder) throws IOException {
+        try (Stream<Path> paths = Files.walk(folder)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator)
+                Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package de.di.similarity_measures;
+
+import de.di.similarity_measures.helper.Tokenizer;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CachingSimilarityMeasureTest {
+
+    @Test
+    public void testMemoization() {
+        CountingMeasure levenshtein = new CountingMeasure(new Levenshtein(true));
+        CachingSimilarityMeasure cache = new CachingSimilarityMeasure(levenshtein, 100, false);
+
+        assertEquals(new Levenshtein(true).calculate("Rock", "Pop"), cache.calculate("Rock", "Pop"), 0.0);
+        assertEquals(new Levenshtein(true).calculate("Rock", "Pop"), cache.calculate("Rock", "Pop"), 0.0);
+        assertEquals(new Levenshtein(true).calculate("Pop", "Rock"), cache.calculate("Pop", "Rock"), 0.0);
+        assertEquals(new Levenshtein(true).calculate(null, "Rock"), cache.calculate(null, "Rock"), 0.0);
+        assertEquals(3, levenshtein.calls.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+        assertEquals(3, cache.size());
+        assertEquals(0.25, cache.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void testSymmetricPairs() {
+        CountingMeasure levenshtein = new CountingMeasure(new Levenshtein(true));
+        CachingSimilarityMeasure cache = new CachingSimilarityMeasure(levenshtein, 100);
+
+        assertEquals(new Levenshtein(true).calculate("Rock", "Pop"), cache.calculate("Rock", "Pop"), 0.0);
+        assertEquals(new Levenshtein(true).calculate("Pop", "Rock"), cache.calculate("Pop", "Rock"), 0.0);
+        assertEquals(new Levenshtein(true).calculate("Rock", null), cache.calculate("Rock", null), 0.0);
+        assertEquals(new Levenshtein(true).calculate(null, "Rock"), cache.calculate(null, "Rock"), 0.0);
+        assertEquals(2, levenshtein.calls.get());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testThresholds() {
+        CountingMeasure levenshtein = new CountingMeasure(new Levenshtein(false));
+        CachingSimilarityMeasure cache = new CachingSimilarityMeasure(levenshtein, 100);
+        double similarity = new Levenshtein(false).calculate("Data Integration", "Datenintegration");
+
+        // A result below the threshold bounds the similarity for all higher thresholds
+        assertEquals(SimilarityMeasure.BELOW_THRESHOLD, cache.calculate("Data Integration", "Datenintegration", 0.9), 0.0);
+        assertEquals(SimilarityMeasure.BELOW_THRESHOLD, cache.calculate("Data Integration", "Datenintegration", 0.95), 0.0);
+        assertEquals(1, levenshtein.calls.get());
+
+        // Lower thresholds need the exact similarity, which then answers every threshold
+        assertEquals(similarity, cache.calculate("Data Integration", "Datenintegration", 0.5), 0.0);
+        assertEquals(similarity, cache.calculate("Data Integration", "Datenintegration"), 0.0);
+        assertEquals(SimilarityMeasure.BELOW_THRESHOLD, cache.calculate("Data Integration", "Datenintegration", 0.9), 0.0);
+        assertEquals(2, levenshtein.calls.get());
+    }
+
+    @Test
+    public void testEviction() {
+        CachingSimilarityMeasure cache = new CachingSimilarityMeasure(new Levenshtein(true), 64);
+        for (int i = 0; i < 1000; i++)
+            cache.calculate("value " + i, "value " + (i + 1));
+        assertTrue(cache.size() <= 64);
+        assertEquals(1000 - cache.size(), cache.getEvictionCount());
+
+        // The most recently used pair is still cached
+        cache.calculate("value 999", "value 1000");
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void testConcurrency() {
+        CachingSimilarityMeasure cache = new CachingSimilarityMeasure(new Jaccard(new Tokenizer(2, true), false), 50);
+        Jaccard jaccard = new Jaccard(new Tokenizer(2, true), false);
+        IntStream.range(0, 20000).parallel().forEach(i -> {
+            String value1 = "genre " + (i % 37);
+            String value2 = "genre " + (i % 101);
+            assertEquals(jaccard.calculate(value1, value2), cache.calculate(value1, value2), 0.0);
+        });
+        assertEquals(20000, cache.getHitCount() + cache.getMissCount());
+    }
+
+    private static class CountingMeasure implements SimilarityMeasure {
+
+        private final SimilarityMeasure measure;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private CountingMeasure(SimilarityMeasure measure) {
+            this.measure = measure;
+        }
+
+        @Override
+        public double calculate(String string1, String string2) {
+            this.calls.incrementAndGet();
+            return this.measure.calculate(string1, string2);
+        }
+
+        @Override
+        public double calculate(String[] strings1, String[] strings2) {
+            return this.measure.calculate(strings1, strings2);
+        }
+
+        @Override
+        public double calculate(String string1, String string2, double minSimilarity) {
+            this.calls.incrementAndGet();
+            return this.measure.calculate(string1, string2, minSimilarity);
+        }
+    }
+}
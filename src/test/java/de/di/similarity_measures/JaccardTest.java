@@ -1,8 +1,10 @@
 package de.di.similarity_measures;
 
+import de.di.similarity_measures.helper.TokenSet;
 import de.di.similarity_measures.helper.Tokenizer;
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class JaccardTest {
@@ -76,4 +78,89 @@ public class JaccardTest {
         result = jaccard.calculate(new String[]{"a", "", "a", "b", "c", "", "d"}, new String[]{"a", "b", "", "b", "c", "f", ""});
         assertEquals((double) 4 / 6, result, 0.000001);
     }
+
+    @Test
+    public void testThreshold() {
+        String[] strings = new String[]{"", "Tim", "Tim Tim Tina", "Tina Tim Tim", "VL Big Data Systems 2020", "VL Big Data Integration 2022", "aaaa"};
+        for (boolean bagSemantics : new boolean[]{false, true}) {
+            Jaccard jaccard = new Jaccard(new Tokenizer(2, true), bagSemantics);
+            for (String string1 : strings) {
+                for (String string2 : strings) {
+                    double similarity = jaccard.calculate(string1, string2);
+                    for (double minSimilarity : new double[]{0, 0.2, 0.4, 0.5, 0.8, 1, similarity}) {
+                        double expected = similarity >= minSimilarity ? similarity : SimilarityMeasure.BELOW_THRESHOLD;
+                        assertEquals(expected, jaccard.calculate(string1, string2, minSimilarity), 0.0);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTokenCodesEqualTokenStrings() {
+        String[] strings = {"", "a", "Big Data Systems", "Data Integration", "Tim Tim Tina", "Tina Tim Tim", "\u00e4\u20ac\ud83d\ude00x", "aaaaaaaa"};
+
+        for (int tokenSize = 0; tokenSize <= 6; tokenSize++) {
+            for (boolean usePadding : new boolean[]{false, true}) {
+                Tokenizer tokenizer = new Tokenizer(tokenSize, usePadding);
+                for (boolean allowDuplicates : new boolean[]{false, true}) {
+                    Jaccard jaccard = new Jaccard(tokenizer, allowDuplicates);
+                    for (String string1 : strings)
+                        for (String string2 : strings)
+                            assertEquals(jaccard.calculate(tokenizer.tokenize(string1), tokenizer.tokenize(string2)),
+                                    jaccard.calculate(string1, string2), 0.0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPreparedTokenSets() {
+        String[] strings = {"", "a", "Big Data Systems", "Data Integration", "Tim Tim Tina", "Tina Tim Tim", "aaaaaaaa", null};
+
+        for (int tokenSize = 0; tokenSize <= 6; tokenSize++) {
+            for (boolean usePadding : new boolean[]{false, true}) {
+                for (boolean allowDuplicates : new boolean[]{false, true}) {
+                    Jaccard jaccard = new Jaccard(new Tokenizer(tokenSize, usePadding), allowDuplicates);
+                    for (String string1 : strings) {
+                        TokenSet tokens1 = jaccard.prepare(string1);
+                        for (String string2 : strings) {
+                            TokenSet tokens2 = jaccard.prepare(string2);
+                            for (double minSimilarity : new double[]{Double.NEGATIVE_INFINITY, 0.2, 0.5, 1})
+                                assertEquals(jaccard.calculate(string1, string2, minSimilarity), jaccard.calculatePrepared(tokens1, tokens2, minSimilarity), 0.0);
+                        }
+                    }
+                }
+            }
+        }
+
+        TokenSet tokens = new Jaccard(new Tokenizer(1, false), true).prepare("abcab");
+        assertEquals(5, tokens.getNumTokens());
+        assertArrayEquals(new long[]{'a', 'b', 'c'}, tokens.getTokens());
+        assertArrayEquals(new int[]{2, 2, 1}, tokens.getCounts());
+    }
+
+    @Test
+    public void testBatch() {
+        String[] strings1 = {"", "Big Data Systems", "Data Integration", "Tim Tim Tina", null};
+        String[] strings2 = {"Tina Tim Tim", "Data Integration", "Integration", ""};
+        String[][] tokenLists1 = {{}, {"a", "b", "a"}, {"Big Data", "Systems"}, {"a", "b", "c", "c", "d"}};
+        String[][] tokenLists2 = {{"a", "b"}, {"Systems", "Big Data", "Systems"}, {"a", "b", "c", "f", "e"}};
+
+        for (boolean allowDuplicates : new boolean[]{false, true}) {
+            Jaccard jaccard = new Jaccard(new Tokenizer(2, true), allowDuplicates);
+
+            double[][] matrix = jaccard.calculateMatrix(strings1, strings2);
+            for (int i = 0; i < strings1.length; i++) {
+                assertArrayEquals(matrix[i], jaccard.calculateAll(strings1[i], strings2), 0.0);
+                for (int j = 0; j < strings2.length; j++)
+                    assertEquals(jaccard.calculate(strings1[i], strings2[j]), matrix[i][j], 0.0);
+            }
+
+            matrix = jaccard.calculateTokenMatrix(tokenLists1, tokenLists2);
+            for (int i = 0; i < tokenLists1.length; i++)
+                for (int j = 0; j < tokenLists2.length; j++)
+                    assertEquals(jaccard.calculate(tokenLists1[i], tokenLists2[j]), matrix[i][j], 0.0);
+        }
+    }
 }
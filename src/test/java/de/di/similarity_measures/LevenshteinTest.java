@@ -2,7 +2,10 @@ package de.di.similarity_measures;
 
 import org.junit.Test;
 
+import static de.di.similarity_measures.helper.RandomStrings.randomString;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.util.Random;
 
 public class LevenshteinTest {
 
@@ -77,4 +80,41 @@ public class LevenshteinTest {
         result = levenshtein.calculate(new String[]{"a", "", "a", "b", "c", "c", ""}, new String[]{"a", "", "a", "b", "c", "f", "e"});
         assertEquals(1 - (double) 2 / 7, result, 0.000001);
     }
+
+    @Test
+    public void testThreshold() {
+        Random random = new Random(7);
+        char[] alphabet = "abc".toCharArray();
+        for (boolean useDamerau : new boolean[]{false, true}) {
+            Levenshtein levenshtein = new Levenshtein(useDamerau);
+            for (int run = 0; run < 2000; run++) {
+                String string1 = randomString(random, alphabet, random.nextInt(run % 2 == 0 ? 12 : 150));
+                String string2 = randomString(random, alphabet, random.nextInt(run % 2 == 0 ? 12 : 150));
+                double similarity = levenshtein.calculate(string1, string2);
+                for (double minSimilarity : new double[]{0, 0.3, 0.5, 0.75, 0.9, 1, similarity}) {
+                    double expected = similarity >= minSimilarity ? similarity : SimilarityMeasure.BELOW_THRESHOLD;
+                    assertEquals(expected, levenshtein.calculate(string1, string2, minSimilarity), 0.0);
+                    assertEquals(expected, levenshtein.calculate(string1.split(""), string2.split(""), minSimilarity), 0.0);
+                }
+            }
+            // The filter cascade rejected pairs without changing any result
+            assertTrue(levenshtein.getFilter().getRejections() > 0);
+        }
+    }
+
+    @Test
+    public void testBatch() {
+        String[] strings1 = {"", "Big Data Systems", "Data Integration", "Tim Tim Tina", null};
+        String[] strings2 = {"Tina Tim Tim", "Data Integration", "Integration", ""};
+        Levenshtein levenshtein = new Levenshtein(true);
+
+        double[][] matrix = levenshtein.calculateMatrix(strings1, strings2);
+        for (int i = 0; i < strings1.length; i++) {
+            double[] row = levenshtein.calculateAll(strings1[i], strings2);
+            for (int j = 0; j < strings2.length; j++) {
+                assertEquals(levenshtein.calculate(strings1[i], strings2[j]), matrix[i][j], 0.0);
+                assertEquals(matrix[i][j], row[j], 0.0);
+            }
+        }
+    }
 }
@@ -10,29 +10,34 @@ public class LocalitySensitiveHashingTest {
     @Test
     public void testCorrectnessBag() {
         LocalitySensitiveHashing localitySensitiveHashing = null;
+        Jaccard jaccard = null;
         double result = 0;
 
-        localitySensitiveHashing = new LocalitySensitiveHashing(new Tokenizer(2, false), true, 2);
+        localitySensitiveHashing = new LocalitySensitiveHashing(new Tokenizer(2, false), true, 256);
+        jaccard = new Jaccard(new Tokenizer(2, false), true);
         result = localitySensitiveHashing.calculate("Big Data Systems", "Data Integration");
-        assertEquals((double) 1 / 4, result, 0.000001);
+        assertEquals(jaccard.calculate("Big Data Systems", "Data Integration"), result, 0.05);
 
-        localitySensitiveHashing = new LocalitySensitiveHashing(new Tokenizer(2, false), true, 2);
         result = localitySensitiveHashing.calculate(new String[]{"aa", "ba", "ab", "ba", "cb", "cb", "da"}, new String[]{"aa", "bb", "ab", "ba", "cb", "fa", "eb"});
-        assertEquals((double) 2 / 4, result, 0.000001);
+        assertEquals((double) 4 / 14, result, 0.05);
     }
 
     @Test
     public void testCorrectnessSet() {
         LocalitySensitiveHashing localitySensitiveHashing = null;
+        Jaccard jaccard = null;
         double result = 0;
 
-        localitySensitiveHashing = new LocalitySensitiveHashing(new Tokenizer(2, false), false, 2);
+        localitySensitiveHashing = new LocalitySensitiveHashing(new Tokenizer(2, false), false, 256);
+        jaccard = new Jaccard(new Tokenizer(2, false), false);
         result = localitySensitiveHashing.calculate("Big Data Systems", "Data Integration");
-        assertEquals((double) 1 / 3, result, 0.000001);
+        assertEquals(jaccard.calculate("Big Data Systems", "Data Integration"), result, 0.1);
 
-        localitySensitiveHashing = new LocalitySensitiveHashing(new Tokenizer(2, false), false, 2);
         result = localitySensitiveHashing.calculate(new String[]{"aa", "ba", "ab", "ba", "cb", "cb", "da"}, new String[]{"aa", "bb", "ab", "ba", "cb", "fa", "eb"});
-        assertEquals((double) 1 / 1, result, 0.000001);
+        assertEquals((double) 4 / 8, result, 0.1);
+
+        result = localitySensitiveHashing.calculate("Data Integration", "Data Integration");
+        assertEquals(1.0, result, 0.0);
     }
 
     @Test
@@ -44,8 +49,46 @@ public class LocalitySensitiveHashingTest {
         result = localitySensitiveHashing.calculate("", "Data Integration");
         assertEquals((double) 0 / 3, result, 0.000001);
 
+        // Empty tokens are tokens like any other
+        localitySensitiveHashing = new LocalitySensitiveHashing(new Tokenizer(2, false), false, 256);
+        String[] tokens1 = new String[]{"aa", "", "ab", "ba", "cb", "", "da"};
+        String[] tokens2 = new String[]{"", "bb", "ab", "ba", "cb", "fa", "eb"};
+        result = localitySensitiveHashing.calculate(tokens1, tokens2);
+        assertEquals(new Jaccard(new Tokenizer(2, false), false).calculate(tokens1, tokens2), result, 0.1);
+
         localitySensitiveHashing = new LocalitySensitiveHashing(new Tokenizer(2, false), false, 2);
-        result = localitySensitiveHashing.calculate(new String[]{"aa", "", "ab", "ba", "cb", "", "da"}, new String[]{"", "bb", "ab", "ba", "cb", "fa", "eb"});
+        result = localitySensitiveHashing.calculate(null, "");
         assertEquals((double) 1 / 1, result, 0.000001);
     }
+
+    @Test
+    public void testPreparedSignatures() {
+        String[] strings = {"", "a", "Big Data Systems", "Data Integration", "Tim Tim Tina", "Tina Tim Tim", null};
+
+        for (boolean countDuplicates : new boolean[]{false, true}) {
+            LocalitySensitiveHashing localitySensitiveHashing = new LocalitySensitiveHashing(new Tokenizer(3, true), countDuplicates, 128);
+            for (String string1 : strings)
+                for (String string2 : strings)
+                    assertEquals(localitySensitiveHashing.calculate(string1, string2),
+                            localitySensitiveHashing.calculatePrepared(localitySensitiveHashing.prepare(string1), localitySensitiveHashing.prepare(string2), 0), 0.0);
+        }
+    }
+
+    @Test
+    public void testTokenCodesEqualTokenStrings() {
+        String[] strings = {"", "a", "Big Data Systems", "Data Integration", "Tim Tim Tina", "Tina Tim Tim", "\u00e4\u20ac\ud83d\ude00x", "Systems Big Data"};
+
+        for (int tokenSize = 0; tokenSize <= 6; tokenSize++) {
+            for (boolean usePadding : new boolean[]{false, true}) {
+                Tokenizer tokenizer = new Tokenizer(tokenSize, usePadding);
+                for (boolean countDuplicates : new boolean[]{false, true}) {
+                    LocalitySensitiveHashing localitySensitiveHashing = new LocalitySensitiveHashing(tokenizer, countDuplicates, 16);
+                    for (String string1 : strings)
+                        for (String string2 : strings)
+                            assertEquals(localitySensitiveHashing.calculate(tokenizer.tokenize(string1), tokenizer.tokenize(string2)),
+                                    localitySensitiveHashing.calculate(string1, string2), 0.0);
+                }
+            }
+        }
+    }
 }
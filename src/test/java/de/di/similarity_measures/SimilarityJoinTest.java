@@ -0,0 +1,82 @@
+package de.di.similarity_measures;
+
+import de.di.Relation;
+import de.di.similarity_measures.helper.Tokenizer;
+import de.di.similarity_measures.structures.SimilarPair;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SimilarityJoinTest {
+
+    @Test
+    public void testCorrectness() {
+        String[] values1 = new String[]{"Hasso Plattner Institut", "Philipps Universitaet Marburg", "Universitaet Potsdam", "", null};
+        String[] values2 = new String[]{"Universitaet Marburg", "Hasso-Plattner-Institut", "Potsdam Universitaet", ""};
+
+        List<SimilarPair> pairs = new SimilarityJoin(new Tokenizer(2, false), false, 0.5).join(values1, values2);
+        assertEquals("[SimilarPair(0.692308: 0, 1), SimilarPair(0.678571: 1, 0), SimilarPair(0.809524: 2, 2), SimilarPair(1.000000: 3, 3), SimilarPair(1.000000: 4, 3)]", pairs.toString());
+    }
+
+    @Test
+    public void testEqualsNestedLoops() {
+        Random random = new Random(7);
+        String[] values1 = randomValues(random, 300);
+        String[] values2 = randomValues(random, 200);
+
+        for (int tokenSize : new int[]{1, 2, 3, 5}) {
+            for (boolean allowDuplicates : new boolean[]{false, true}) {
+                Tokenizer tokenizer = new Tokenizer(tokenSize, tokenSize > 2);
+                Jaccard jaccard = new Jaccard(tokenizer, allowDuplicates);
+                for (double threshold : allowDuplicates ? new double[]{0.1, 0.25, 0.4, 0.5} : new double[]{0.2, 0.5, 0.7, 0.9, 1.0}) {
+                    SimilarityJoin join = new SimilarityJoin(tokenizer, allowDuplicates, threshold);
+
+                    List<SimilarPair> expected = new ArrayList<>();
+                    for (int i = 0; i < values1.length; i++)
+                        for (int j = 0; j < values2.length; j++)
+                            if (jaccard.calculate(values1[i], values2[j]) >= threshold)
+                                expected.add(new SimilarPair(i, j, jaccard.calculate(values1[i], values2[j])));
+                    assertEquals(expected.toString(), join.join(values1, values2).toString());
+
+                    expected.clear();
+                    for (int i = 0; i < values1.length; i++)
+                        for (int j = i + 1; j < values1.length; j++)
+                            if (jaccard.calculate(values1[i], values1[j]) >= threshold)
+                                expected.add(new SimilarPair(i, j, jaccard.calculate(values1[i], values1[j])));
+                    assertEquals(expected.toString(), join.selfJoin(values1).toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRelations() {
+        Relation relation1 = new Relation("r1", new String[]{"id", "name"}, new String[][]{{"1", "Acme Corp"}, {"2", "Globex"}, {"3", "Acme Corp"}});
+        Relation relation2 = new Relation("r2", new String[]{"name"}, new String[][]{{"Globex Inc"}, {"ACME Corp"}, {"Acme Corp."}});
+
+        List<SimilarPair> pairs = new SimilarityJoin(new Tokenizer(2, false), false, 0.4).join(relation1, 1, relation2, 0);
+        assertEquals("[SimilarPair(0.888889: 0, 2), SimilarPair(0.555556: 1, 0), SimilarPair(0.888889: 2, 2)]", pairs.toString());
+    }
+
+    private static String[] randomValues(Random random, int count) {
+        // Few distinct words, so that many pairs are similar, and some duplicated values
+        String[] words = new String[]{"data", "base", "integration", "profiling", "uni", "marburg", "potsdam", "aa", "ab", "b"};
+        String[] values = new String[count];
+        for (int v = 0; v < count; v++) {
+            if (v > 0 && random.nextInt(10) == 0) {
+                values[v] = values[random.nextInt(v)];
+                continue;
+            }
+            StringBuilder value = new StringBuilder();
+            int numWords = random.nextInt(4);
+            for (int w = 0; w < numWords; w++)
+                value.append(w > 0 ? " " : "").append(words[random.nextInt(words.length)]);
+            values[v] = value.toString();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,77 @@
+package de.di.similarity_measures;
+
+import de.di.similarity_measures.helper.Tokenizer;
+import de.di.similarity_measures.structures.SimilarityMatch;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static de.di.similarity_measures.helper.RandomStrings.randomString;
+import static org.junit.Assert.assertEquals;
+
+public class SimilaritySearchTest {
+
+    private static final String[] ARTISTS = new String[]{"Metallica", "Megadeth", "Metallic", "Motörhead", null, "Slayer", "Anthrax", "Metal Church"};
+
+    @Test
+    public void testTopKJaccard() {
+        SimilaritySearch search = SimilaritySearch.jaccard(ARTISTS, new Tokenizer(2, true), false);
+
+        List<SimilarityMatch> matches = search.topK("Metalica", 2);
+        assertEquals(2, matches.size());
+        assertEquals("Metallica", search.getValue(matches.get(0).getIndex()));
+        assertEquals("Metallic", search.getValue(matches.get(1).getIndex()));
+        assertEquals(new Jaccard(new Tokenizer(2, true), false).calculate("Metalica", "Metallica"), matches.get(0).getSimilarity(), 0.0);
+
+        // Only values with a positive similarity are returned
+        assertEquals("[]", search.topK("Queen", 3).toString());
+    }
+
+    @Test
+    public void testTopKLevenshtein() {
+        SimilaritySearch search = SimilaritySearch.levenshtein(ARTISTS, 2, false);
+
+        assertEquals("[SimilarityMatch(1.000000: 0), SimilarityMatch(0.888889: 2)]", search.topK("Metallica", 2).toString());
+        assertEquals("[SimilarityMatch(1.000000: 4)]", search.topK("", 1).toString());
+    }
+
+    @Test
+    public void testEqualsLinearScan() {
+        Random random = new Random(5);
+        char[] alphabet = "abcdef ".toCharArray();
+        String[] values = new String[1500];
+        for (int i = 0; i < values.length; i++)
+            values[i] = randomString(random, alphabet, random.nextInt(16));
+        String[] queries = new String[100];
+        for (int i = 0; i < queries.length; i++)
+            queries[i] = random.nextBoolean() ? values[random.nextInt(values.length)] + "a" : randomString(random, alphabet, random.nextInt(16));
+
+        Tokenizer tokenizer = new Tokenizer(2, false);
+        assertEqualsLinearScan(SimilaritySearch.jaccard(values, tokenizer, false), new Jaccard(tokenizer, false), values, queries);
+        assertEqualsLinearScan(SimilaritySearch.jaccard(values, tokenizer, true), new Jaccard(tokenizer, true), values, queries);
+        assertEqualsLinearScan(SimilaritySearch.levenshtein(values, 2, false), new Levenshtein(false), values, queries);
+        assertEqualsLinearScan(SimilaritySearch.levenshtein(values, 3, true), new Levenshtein(true), values, queries);
+    }
+
+    private static void assertEqualsLinearScan(SimilaritySearch search, SimilarityMeasure measure, String[] values, String[] queries) {
+        for (int k : new int[]{1, 5, 40}) {
+            List<List<SimilarityMatch>> matches = search.topKAll(queries, k);
+            for (int q = 0; q < queries.length; q++)
+                assertEquals(queries[q], linearScan(measure, values, queries[q], k), matches.get(q));
+        }
+    }
+
+    private static List<SimilarityMatch> linearScan(SimilarityMeasure measure, String[] values, String query, int k) {
+        List<SimilarityMatch> matches = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            double similarity = measure.calculate(query, values[i]);
+            if (similarity > 0)
+                matches.add(new SimilarityMatch(i, similarity));
+        }
+        Collections.sort(matches);
+        return matches.subList(0, Math.min(k, matches.size()));
+    }
+}
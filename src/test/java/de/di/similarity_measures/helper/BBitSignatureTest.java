@@ -0,0 +1,120 @@
+package de.di.similarity_measures.helper;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class BBitSignatureTest {
+
+    @Test
+    public void testPacking() {
+        int[] signature = new int[]{0b1011, 0b0110, -1, 0};
+
+        assertEquals(1, BBitSignature.of(signature, 1).getWords().length);
+        assertEquals(0b0101L, BBitSignature.of(signature, 1).getWords()[0]);
+        assertEquals(0x00FF060BL, BBitSignature.of(signature, 8).getWords()[0]);
+        assertEquals(2, BBitSignature.of(signature, 32).getWords().length);
+        assertEquals(0, BBitSignature.of(new int[0], 4).getWords().length);
+    }
+
+    @Test
+    public void testCountMatches() {
+        Random random = new Random(7);
+        for (int bitsPerHash = 1; bitsPerHash <= 32; bitsPerHash <<= 1) {
+            for (int numHashFunctions : new int[]{1, 5, 64, 100}) {
+                int[] signature1 = new int[numHashFunctions];
+                int[] signature2 = new int[numHashFunctions];
+                for (int i = 0; i < numHashFunctions; i++) {
+                    signature1[i] = random.nextInt();
+                    // Flip a random bit in about half of the values
+                    signature2[i] = random.nextBoolean() ? signature1[i] : signature1[i] ^ (1 << random.nextInt(32));
+                }
+                assertEquals(MinHash.countMatches(signature1, signature2, numHashFunctions, bitsPerHash),
+                        BBitSignature.of(signature1, bitsPerHash).countMatches(BBitSignature.of(signature2, bitsPerHash)));
+            }
+        }
+    }
+
+    @Test
+    public void testEstimate() {
+        // Two sets of 1000 tokens that share 500 tokens have a Jaccard similarity of 500 / 1500
+        LongArrayList codes1 = new LongArrayList();
+        LongArrayList codes2 = new LongArrayList();
+        LongArrayList codes3 = new LongArrayList();
+        for (long token = 0; token < 1000; token++) {
+            codes1.add(token);
+            codes2.add(token + 500);
+            codes3.add(token + 5000);
+        }
+
+        MinHash minHash = new MinHash(1024);
+        int[] signature1 = minHash.signature(codes1, false);
+        int[] signature2 = minHash.signature(codes2, false);
+        int[] signature3 = minHash.signature(codes3, false);
+        for (int bitsPerHash = 1; bitsPerHash <= 32; bitsPerHash <<= 1) {
+            BBitSignature sketch1 = BBitSignature.of(signature1, bitsPerHash);
+            assertEquals(1.0 / 3, sketch1.estimate(BBitSignature.of(signature2, bitsPerHash)), 0.1);
+            assertEquals(0.0, sketch1.estimate(BBitSignature.of(signature3, bitsPerHash)), 0.1);
+            assertEquals(1.0, sketch1.estimate(sketch1), 0.0);
+        }
+
+        // Without the bias correction, one bit per hash lets disjoint sets agree on about half of the fields
+        int matches = BBitSignature.of(signature1, 1).countMatches(BBitSignature.of(signature3, 1));
+        assertEquals(0.5, (double) matches / 1024, 0.1);
+
+        BBitSignature empty = BBitSignature.of(new int[0], 2);
+        assertEquals(1.0, empty.estimate(BBitSignature.of(new int[0], 2)), 0.0);
+        assertEquals(0.0, empty.estimate(BBitSignature.of(signature1, 2)), 0.0);
+    }
+
+    @Test
+    public void testSerialization() throws IOException, ClassNotFoundException {
+        Random random = new Random(11);
+        int[] signature = new int[100];
+        for (int i = 0; i < signature.length; i++)
+            signature[i] = random.nextInt();
+
+        BBitSignature sketch = BBitSignature.of(signature, 2);
+        byte[] bytes = sketch.toBytes();
+        assertEquals(1 + 4 + 4 * 8, bytes.length);
+        assertEquals(sketch.getSerializedSize(), bytes.length);
+        assertEquals(sketch, BBitSignature.fromBytes(bytes));
+
+        // Many signatures can share one buffer
+        BBitSignature empty = BBitSignature.of(new int[0], 2);
+        ByteBuffer buffer = ByteBuffer.allocate(sketch.getSerializedSize() + empty.getSerializedSize());
+        sketch.write(buffer);
+        empty.write(buffer);
+        buffer.flip();
+        assertEquals(sketch, BBitSignature.read(buffer));
+        assertEquals(empty, BBitSignature.read(buffer));
+        assertEquals(0, buffer.remaining());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream objects = new ObjectOutputStream(out)) {
+            objects.writeObject(sketch);
+        }
+        try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(sketch, objects.readObject());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedBitsPerHash() {
+        BBitSignature.of(new int[]{1, 2, 3}, 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLayoutMismatch() {
+        BBitSignature.of(new int[]{1, 2, 3}, 2).countMatches(BBitSignature.of(new int[]{1, 2, 3}, 4));
+    }
+}
@@ -0,0 +1,70 @@
+package de.di.similarity_measures.helper;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static de.di.similarity_measures.helper.RandomStrings.mutate;
+import static de.di.similarity_measures.helper.RandomStrings.randomString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EditDistanceFilterTest {
+
+    @Test
+    public void testBounds() {
+        assertEquals(2, EditDistanceFilter.countSharedQGrams("abcd", "xbcd"));
+        assertEquals(2, EditDistanceFilter.countSharedQGrams("aaa", "aaaa"));
+        assertEquals(0, EditDistanceFilter.countSharedQGrams("a", "a"));
+
+        assertEquals(3, EditDistanceFilter.histogramDistance("kitten", "sitting"));
+        assertEquals(0, EditDistanceFilter.histogramDistance("Integrations", "Itnegratoins"));
+        assertEquals(3, EditDistanceFilter.histogramDistance("", "abc"));
+    }
+
+    @Test
+    public void testStageCounters() {
+        EditDistanceFilter filter = new EditDistanceFilter(false);
+
+        assertFalse(filter.accepts("abc", "abcdef", 2));
+        assertEquals(1, filter.getLengthRejections());
+
+        // Equal lengths, but no shared q-grams
+        assertFalse(filter.accepts("abcdefgh", "hgfedcba", 2));
+        assertEquals(1, filter.getQGramRejections());
+
+        // Too short for the q-gram bound, but the histograms differ in three chars
+        assertFalse(filter.accepts("abcd", "axyz", 2));
+        assertEquals(1, filter.getHistogramRejections());
+
+        assertTrue(filter.accepts("kitten", "sitting", 3));
+        assertTrue(filter.accepts("abc", "xyz", 3));
+        assertEquals(1, filter.getVerifications());
+        assertEquals(3, filter.getRejections());
+    }
+
+    @Test
+    public void testNeverRejectsWithinMaxDistance() {
+        Random random = new Random(7);
+        char[][] alphabets = new char[][]{"ab".toCharArray(), "abcdefghij".toCharArray(), "aäЖ中Ā".toCharArray()};
+        EditDistanceFilter[] filters = new EditDistanceFilter[]{new EditDistanceFilter(false), new EditDistanceFilter(true)};
+
+        for (int run = 0; run < 3000; run++) {
+            char[] alphabet = alphabets[run % alphabets.length];
+            String string1 = randomString(random, alphabet, random.nextInt(run % 2 == 0 ? 20 : 150));
+            String string2 = random.nextBoolean() ? randomString(random, alphabet, random.nextInt(150)) : mutate(random, string1, alphabet, 8);
+            for (EditDistanceFilter filter : filters) {
+                boolean withTranspositions = filter == filters[1];
+                int distance = EditDistance.distance(string1, string2, withTranspositions);
+                for (int maxDistance = Math.max(0, distance - 3); maxDistance <= distance + 3; maxDistance++) {
+                    boolean accepted = filter.accepts(string1, string2, maxDistance);
+                    assertTrue(string1 + " / " + string2, accepted || maxDistance < distance);
+                }
+            }
+        }
+        // The cascade must actually reject something on random pairs
+        assertTrue(filters[0].getRejections() > 0);
+        assertTrue(filters[1].getRejections() > 0);
+    }
+}
@@ -0,0 +1,81 @@
+package de.di.similarity_measures.helper;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static de.di.similarity_measures.helper.RandomStrings.mutate;
+import static de.di.similarity_measures.helper.RandomStrings.randomString;
+import static org.junit.Assert.assertEquals;
+
+public class EditDistanceTest {
+
+    @Test
+    public void testKnownDistances() {
+        assertEquals(0, EditDistance.distance("", "", false));
+        assertEquals(3, EditDistance.distance("", "abc", true));
+        assertEquals(3, EditDistance.distance("kitten", "sitting", false));
+        assertEquals(4, EditDistance.distance("Integrations", "Itnegratoins", false));
+        assertEquals(2, EditDistance.distance("Integrations", "Itnegratoins", true));
+        // The optimal string alignment distance does not edit a transposed substring again
+        assertEquals(3, EditDistance.distance("CA", "ABC", true));
+    }
+
+    @Test
+    public void testEqualsDynamicProgramming() {
+        Random random = new Random(42);
+        // Lengths around the block boundaries at 64 and 128 characters
+        int[] maxLengths = new int[]{8, 63, 65, 130, 200};
+        char[][] alphabets = new char[][]{"ab".toCharArray(), "abcd".toCharArray(), "aäЖ中😀".toCharArray()};
+
+        for (int maxLength : maxLengths) {
+            for (char[] alphabet : alphabets) {
+                for (int run = 0; run < 200; run++) {
+                    String string1 = randomString(random, alphabet, random.nextInt(maxLength + 1));
+                    String string2 = random.nextBoolean() ? randomString(random, alphabet, random.nextInt(maxLength + 1)) : mutate(random, string1, alphabet, 6);
+                    for (boolean withTranspositions : new boolean[]{false, true}) {
+                        int expected = referenceDistance(string1, string2, withTranspositions);
+                        assertEquals(string1 + " / " + string2, expected, EditDistance.distance(string1, string2, withTranspositions));
+                        assertEquals(string2 + " / " + string1, expected, EditDistance.distance(string2, string1, withTranspositions));
+                    }
+                }
+            }
+        }
+    }
+
+    private static int referenceDistance(String a, String b, boolean withTranspositions) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++)
+            d[i][0] = i;
+        for (int j = 0; j <= b.length(); j++)
+            d[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (withTranspositions && i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1))
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + cost);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    @Test
+    public void testMaxDistance() {
+        Random random = new Random(13);
+        char[] alphabet = "abc".toCharArray();
+        for (int run = 0; run < 3000; run++) {
+            String string1 = randomString(random, alphabet, random.nextInt(run % 2 == 0 ? 40 : 200));
+            String string2 = random.nextBoolean() ? randomString(random, alphabet, random.nextInt(200)) : mutate(random, string1, alphabet, 6);
+            for (boolean withTranspositions : new boolean[]{false, true}) {
+                int expected = referenceDistance(string1, string2, withTranspositions);
+                for (int maxDistance : new int[]{0, 1, 3, 10, 31, 40, expected - 1, expected}) {
+                    if (maxDistance < 0)
+                        continue;
+                    int distance = EditDistance.distance(string1, string2, withTranspositions, maxDistance);
+                    assertEquals(expected <= maxDistance ? expected : maxDistance + 1, distance);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package de.di.similarity_measures.helper;
+
+import de.di.Relation;
+import de.di.similarity_measures.structures.DistanceMatch;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static de.di.similarity_measures.helper.RandomStrings.randomString;
+import static org.junit.Assert.assertEquals;
+
+public class EditDistanceTrieTest {
+
+    @Test
+    public void testSearch() {
+        String[] values = new String[]{"Metallica", "Megadeth", "Metallic", "Motörhead", "Metallica", null, "Slayer"};
+        EditDistanceTrie trie = new EditDistanceTrie(values, false);
+
+        assertEquals("[DistanceMatch(0: 0), DistanceMatch(1: 2)]", trie.search("Metallica", 1).toString());
+        assertEquals("[DistanceMatch(1: 0), DistanceMatch(2: 2)]", trie.search("Metalica", 2).toString());
+        assertEquals("[DistanceMatch(0: 5)]", trie.search("", 0).toString());
+        assertEquals("[]", trie.search("Anthrax", 3).toString());
+        assertEquals("Metallic", trie.getValue(2));
+        assertEquals(9, trie.getMaxLength());
+    }
+
+    @Test
+    public void testTranspositions() {
+        String[] values = new String[]{"Integrations", "Integration"};
+
+        assertEquals("[]", new EditDistanceTrie(values, false).search("Itnegratoins", 2).toString());
+        assertEquals("[DistanceMatch(2: 0)]", new EditDistanceTrie(values, true).search("Itnegratoins", 2).toString());
+    }
+
+    @Test
+    public void testEqualsLinearScan() {
+        Random random = new Random(23);
+        char[] alphabet = "abcd".toCharArray();
+        String[] values = new String[2000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = randomString(random, alphabet, random.nextInt(12));
+        String[] queries = new String[200];
+        for (int i = 0; i < queries.length; i++)
+            queries[i] = randomString(random, alphabet, random.nextInt(14));
+
+        for (boolean withTranspositions : new boolean[]{false, true}) {
+            EditDistanceTrie trie = new EditDistanceTrie(values, withTranspositions);
+            for (int maxDistance : new int[]{0, 1, 2, 4}) {
+                List<List<DistanceMatch>> matches = trie.searchAll(queries, maxDistance);
+                for (int q = 0; q < queries.length; q++)
+                    assertEquals(queries[q], linearScan(values, queries[q], withTranspositions, maxDistance), matches.get(q));
+            }
+        }
+    }
+
+    @Test
+    public void testRelation() {
+        String[][] records = new String[][]{{"1", "Blur"}, {"2", "Blue"}, {"3", "Blur"}, {"4", "Queen"}};
+        Relation relation = new Relation("bands", new String[]{"id", "name"}, records);
+        EditDistanceTrie trie = EditDistanceTrie.of(relation, 1, false);
+
+        List<DistanceMatch> matches = trie.search("Blurr", 2);
+        assertEquals(2, matches.size());
+        assertEquals("Blur", trie.getValue(matches.get(0).getIndex()));
+        assertEquals("Blue", trie.getValue(matches.get(1).getIndex()));
+    }
+
+    private static List<DistanceMatch> linearScan(String[] values, String query, boolean withTranspositions, int maxDistance) {
+        List<DistanceMatch> matches = new ArrayList<>();
+        List<String> seen = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            if (seen.contains(values[i]))
+                continue;
+            seen.add(values[i]);
+            int distance = EditDistance.distance(values[i], query, withTranspositions);
+            if (distance <= maxDistance)
+                matches.add(new DistanceMatch(i, distance));
+        }
+        DistanceMatch[] sorted = matches.toArray(new DistanceMatch[0]);
+        Arrays.sort(sorted);
+        return Arrays.asList(sorted);
+    }
+}
@@ -0,0 +1,62 @@
+package de.di.similarity_measures.helper;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LSHIndexTest {
+
+    @Test
+    public void testForThreshold() {
+        for (double threshold : new double[]{0.3, 0.5, 0.8}) {
+            LSHIndex index = LSHIndex.forThreshold(threshold, 128);
+            assertTrue(index.getSignatureLength() <= 128);
+
+            // The steepest part of the S-curve lies close to the threshold
+            double curveCenter = Math.pow(1.0 / index.getNumBands(), 1.0 / index.getRowsPerBand());
+            assertEquals(threshold, curveCenter, 0.15);
+        }
+    }
+
+    @Test
+    public void testCandidates() {
+        MinHash minHash = new MinHash(128);
+        LSHIndex index = LSHIndex.forThreshold(0.7, 128);
+
+        // Sets 0, 1 and 2 overlap almost completely, set 3 shares little with them, and set 4 is disjoint
+        int[][] signatures = new int[][]{
+                minHash.signature(range(0, 100), false),
+                minHash.signature(range(2, 100), false),
+                minHash.signature(range(0, 95), false),
+                minHash.signature(range(80, 200), false),
+                minHash.signature(range(1000, 1100), false)};
+        for (int id = 0; id < signatures.length; id++)
+            index.add(id, signatures[id]);
+        assertEquals(5, index.getSize());
+
+        long[] pairs = index.candidatePairs();
+        assertTrue(Arrays.binarySearch(pairs, LSHIndex.pairOf(0, 1)) >= 0);
+        assertTrue(Arrays.binarySearch(pairs, LSHIndex.pairOf(2, 0)) >= 0);
+        assertTrue(Arrays.binarySearch(pairs, LSHIndex.pairOf(1, 2)) >= 0);
+        for (long pair : pairs) {
+            assertTrue(LSHIndex.firstOf(pair) < LSHIndex.secondOf(pair));
+            assertTrue(LSHIndex.secondOf(pair) < 3);
+        }
+
+        int[] neighbours = index.query(minHash.signature(range(1, 100), false));
+        Arrays.sort(neighbours);
+        assertEquals("[0, 1, 2]", Arrays.toString(neighbours));
+        assertEquals(0, index.query(minHash.signature(range(5000, 5050), false)).length);
+    }
+
+    private static LongArrayList range(long from, long to) {
+        LongArrayList codes = new LongArrayList();
+        for (long code = from; code < to; code++)
+            codes.add(code);
+        return codes;
+    }
+}
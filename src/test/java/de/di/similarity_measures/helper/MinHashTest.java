@@ -1,26 +1,61 @@
 package de.di.similarity_measures.helper;
 
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 public class MinHashTest {
 
     @Test
     public void testMinHashing() {
-        MinHash minHash = null;
-        String result = null;
+        MinHash minHash = new MinHash(64);
 
-        minHash = new MinHash(0);
-        result = minHash.hash(new String[]{"fgh", "bcd", "abc", "cde", "def"});
-        assertEquals("abc", result);
+        int[] signature = minHash.signature(codes(5, 3, 1, 4, 2), false);
+        assertEquals(64, signature.length);
+        assertArrayEquals(signature, minHash.signature(codes(1, 2, 3, 4, 5, 5, 1), false));
+        assertArrayEquals(signature, new MinHash(64).signature(codes(2, 4, 1, 3, 5), false));
+        assertFalse(java.util.Arrays.equals(signature, new MinHash(64, 42).signature(codes(2, 4, 1, 3, 5), false)));
 
-        minHash = new MinHash(1);
-        result = minHash.hash(new String[]{"abc", "bca", "bac", "xyz", "uvw"});
-        assertEquals("bac", result);
+        // Every entry is the minimum over the entries of the single tokens
+        for (int i = 0; i < signature.length; i++) {
+            int minimum = -1;
+            for (long token = 1; token <= 5; token++)
+                if (Integer.compareUnsigned(minHash.signature(codes(token), false)[i], minimum) < 0)
+                    minimum = minHash.signature(codes(token), false)[i];
+            assertEquals(minimum, signature[i]);
+        }
 
-        minHash = new MinHash(2);
-        result = minHash.hash(new String[]{"abc", "bca", "bac", "xyz", "bca"});
-        assertEquals("bca", result);
+        assertEquals(0, minHash.signature(new LongArrayList(), false).length);
+        assertFalse(minHash.signature(new LongArrayList(), true, new int[64]));
+    }
+
+    @Test
+    public void testBagSemantics() {
+        MinHash minHash = new MinHash(32);
+
+        assertArrayEquals(minHash.signature(codes(1, 2, 2, 3), true), minHash.signature(codes(2, 3, 2, 1), true));
+        assertFalse(java.util.Arrays.equals(minHash.signature(codes(1, 2, 3), true), minHash.signature(codes(1, 2, 2, 3), true)));
+    }
+
+    @Test
+    public void testEstimate() {
+        // Two sets of 1000 tokens that share 500 tokens have a Jaccard similarity of 500 / 1500
+        LongArrayList codes1 = new LongArrayList();
+        LongArrayList codes2 = new LongArrayList();
+        for (long token = 0; token < 1000; token++) {
+            codes1.add(token);
+            codes2.add(token + 500);
+        }
+
+        MinHash minHash = new MinHash(256);
+        int matches = MinHash.countMatches(minHash.signature(codes1, false), minHash.signature(codes2, false), 256);
+        assertEquals(1.0 / 3, (double) matches / 256, 0.1);
+    }
+
+    private static LongArrayList codes(long... codes) {
+        return LongArrayList.wrap(codes);
     }
 }
@@ -0,0 +1,53 @@
+package de.di.similarity_measures.helper;
+
+import java.util.Random;
+
+/**
+ * Random strings for the tests that compare a similarity or distance calculation with a reference implementation.
+ */
+public class RandomStrings {
+
+    /**
+     * @param random The source of randomness.
+     * @param alphabet The chars to draw from.
+     * @param length The length of the string.
+     * @return A string of uniformly drawn chars of the alphabet.
+     */
+    public static String randomString(Random random, char[] alphabet, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = alphabet[random.nextInt(alphabet.length)];
+        return new String(chars);
+    }
+
+    /**
+     * Applies random insertions, deletions, substitutions and transpositions of adjacent chars to the given string.
+     * @param random The source of randomness.
+     * @param string The string to mutate.
+     * @param alphabet The chars to insert or substitute.
+     * @param maxEdits The exclusive upper bound of the number of edits.
+     * @return The mutated string.
+     */
+    public static String mutate(Random random, String string, char[] alphabet, int maxEdits) {
+        StringBuilder builder = new StringBuilder(string);
+        for (int edits = random.nextInt(maxEdits); edits > 0 && builder.length() > 1; edits--) {
+            int position = random.nextInt(builder.length() - 1);
+            switch (random.nextInt(4)) {
+                case 0:
+                    builder.insert(position, alphabet[random.nextInt(alphabet.length)]);
+                    break;
+                case 1:
+                    builder.deleteCharAt(position);
+                    break;
+                case 2:
+                    builder.setCharAt(position, alphabet[random.nextInt(alphabet.length)]);
+                    break;
+                default:
+                    char c = builder.charAt(position);
+                    builder.setCharAt(position, builder.charAt(position + 1));
+                    builder.setCharAt(position + 1, c);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,86 @@
+package de.di.similarity_measures.helper;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the kernels in use, which are the vector kernels when the tests run with the vector profile, with the
+ * scalar kernels.
+ */
+public class SimilarityKernelsTest {
+
+    private final SimilarityKernels kernels = SimilarityKernels.get();
+    private final SimilarityKernels scalar = new ScalarKernels();
+
+    @Test
+    public void testCountMatches() {
+        Random random = new Random(3);
+        for (int length = 0; length <= 70; length++) {
+            int[] signature1 = new int[length];
+            int[] signature2 = new int[length];
+            for (int i = 0; i < length; i++) {
+                signature1[i] = random.nextInt();
+                signature2[i] = random.nextBoolean() ? signature1[i] : signature1[i] ^ (1 << random.nextInt(32));
+            }
+            for (int bitsPerHash : new int[]{1, 2, 8, 32})
+                assertEquals(scalar.countMatches(signature1, signature2, length, bitsPerHash), kernels.countMatches(signature1, signature2, length, bitsPerHash));
+        }
+        assertEquals(2, scalar.countMatches(new int[]{1, 2, 3}, new int[]{1, 5, 3}, 3, 32));
+        assertEquals(3, scalar.countMatches(new int[]{1, 2, 3}, new int[]{1, 4, 3}, 3, 1));
+    }
+
+    @Test
+    public void testCountShared() {
+        Random random = new Random(5);
+        for (int run = 0; run < 2000; run++) {
+            int[] set1 = randomSet(random, random.nextInt(60), 1 + random.nextInt(200));
+            int[] set2 = randomSet(random, random.nextInt(60), 1 + random.nextInt(200));
+            int shared = (int) Arrays.stream(set1).filter(id -> Arrays.binarySearch(set2, id) >= 0).count();
+
+            assertEquals(shared, scalar.countShared(set1, set2, 0));
+            assertEquals(shared, kernels.countShared(set1, set2, 0));
+            // With a minimum, a count is either exact or known to be too small
+            int minShared = random.nextInt(40);
+            int count = kernels.countShared(set1, set2, minShared);
+            assertEquals(count < 0 ? -1 : shared, count);
+            if (shared >= minShared)
+                assertEquals(shared, count);
+        }
+        assertEquals(2, scalar.countShared(new int[]{1, 3, 5, 7}, new int[]{2, 3, 7}, 0));
+        assertEquals(-1, scalar.countShared(new int[]{1, 3, 5, 7}, new int[]{2, 3, 7}, 3));
+    }
+
+    @Test
+    public void testLevenshteinRow() {
+        Random random = new Random(7);
+        for (int length = 0; length <= 40; length++) {
+            int[] query = random.ints(length, 'a', 'e').toArray();
+            int[] parentRow = new int[length + 1];
+            parentRow[0] = random.nextInt(5);
+            for (int j = 1; j <= length; j++)
+                parentRow[j] = Math.max(0, parentRow[j - 1] + random.nextInt(3) - 1);
+
+            for (int label = 'a'; label < 'e'; label++) {
+                int[] expected = new int[length + 1];
+                int[] actual = new int[length + 1];
+                expected[0] = actual[0] = parentRow[0] + 1;
+                assertEquals(scalar.levenshteinRow(query, length, label, parentRow, expected), kernels.levenshteinRow(query, length, label, parentRow, actual));
+                assertArrayEquals(expected, actual);
+            }
+        }
+
+        // The row of "ab" below the row of "a", both against the query "abc"
+        int[] row = new int[]{2, 0, 0, 0};
+        assertEquals(0, scalar.levenshteinRow(new int[]{'a', 'b', 'c'}, 3, 'b', new int[]{1, 0, 1, 2}, row));
+        assertArrayEquals(new int[]{2, 1, 0, 1}, row);
+    }
+
+    private static int[] randomSet(Random random, int size, int range) {
+        return random.ints(size, 0, range).distinct().sorted().toArray();
+    }
+}
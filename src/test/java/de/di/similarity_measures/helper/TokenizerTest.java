@@ -1,9 +1,11 @@
 package de.di.similarity_measures.helper;
 
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import org.junit.Test;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 
 public class TokenizerTest {
 
@@ -75,4 +77,47 @@ public class TokenizerTest {
         test = new String[]{p + p + p, p + p + p};
         assertArrayEquals(test, result);
     }
+
+    @Test
+    public void testTokenCodes() {
+        LongArrayList codes = new LongArrayList();
+        String[] strings = {"", "I", "Integration", "Big Data Systems", "Tim Tim Tina", "\u00e4\u20ac\ud83d\ude00x"};
+
+        for (int tokenSize = 0; tokenSize <= 6; tokenSize++) {
+            for (boolean usePadding : new boolean[]{false, true}) {
+                Tokenizer tokenizer = new Tokenizer(tokenSize, usePadding);
+                for (String string : strings) {
+                    String[] tokens = tokenizer.tokenize(string);
+                    assertEquals(tokens.length, tokenizer.tokenize(string, codes));
+                    assertEquals(tokens.length, codes.size());
+
+                    // Equal tokens have equal codes; packed codes are the chars of the token
+                    for (int i = 0; i < tokens.length; i++) {
+                        for (int j = 0; j < tokens.length; j++)
+                            assertEquals(tokens[i].equals(tokens[j]), codes.getLong(i) == codes.getLong(j));
+                        if (tokenizer.isPacked())
+                            assertEquals(pack(tokens[i]), codes.getLong(i));
+                    }
+                }
+            }
+        }
+
+        Tokenizer tokenizer = new Tokenizer(2, false);
+        tokenizer.tokenize("abc", codes);
+        assertArrayEquals(new long[]{('a' << 16) | 'b', ('b' << 16) | 'c'}, codes.toLongArray());
+        tokenizer.tokenize("", codes);
+        assertEquals(0, codes.size());
+
+        tokenizer = new Tokenizer(5, false);
+        tokenizer.tokenize("IntegrationInteg", codes);
+        assertEquals(codes.getLong(0), codes.getLong(11));
+        assertNotEquals(codes.getLong(0), codes.getLong(1));
+    }
+
+    private static long pack(String token) {
+        long code = 0;
+        for (int i = 0; i < token.length(); i++)
+            code = (code << 16) | token.charAt(i);
+        return code;
+    }
 }